@@ -50,8 +50,11 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-hateoas")
     implementation("net.lbruun.springboot:preliquibase-spring-boot-starter:1.6.1")
 	implementation("org.liquibase:liquibase-core")
+	implementation("org.springframework:spring-r2dbc")
+	implementation("io.r2dbc:r2dbc-pool")
 	compileOnly("org.projectlombok:lombok")
 	runtimeOnly("org.postgresql:postgresql")
+	runtimeOnly("org.postgresql:r2dbc-postgresql")
     developmentOnly("org.springframework.boot:spring-boot-devtools")
 	annotationProcessor("org.springframework.boot:spring-boot-configuration-processor")
 	annotationProcessor("org.projectlombok:lombok")
@@ -61,6 +64,7 @@ dependencies {
 	testImplementation("org.springframework.restdocs:spring-restdocs-mockmvc")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     testRuntimeOnly("com.h2database:h2")
+    testRuntimeOnly("io.r2dbc:r2dbc-h2")
 }
 
 dependencyManagement {
@@ -83,10 +87,24 @@ tasks.contractTest {
 }
 
 tasks.test {
+	useJUnitPlatform {
+		excludeTags("load")
+	}
 	outputs.dir(project.extra["snippetsDir"]!!)
     finalizedBy(tasks.jacocoTestReport)
 }
 
+val loadTest by tasks.registering(Test::class) {
+	description = "Runs the load scenarios, whose wall-clock envelopes need a quiet machine."
+	group = LifecycleBasePlugin.VERIFICATION_GROUP
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("load")
+	}
+	shouldRunAfter(tasks.test)
+}
+
 tasks.jacocoTestReport {
     dependsOn(tasks.test)
 }
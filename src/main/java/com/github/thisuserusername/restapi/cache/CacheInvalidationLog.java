@@ -0,0 +1,118 @@
+package com.github.thisuserusername.restapi.cache;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.github.thisuserusername.restapi.jdbc.UsePool;
+import com.github.thisuserusername.restapi.model.DeviceChangeType;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import com.github.thisuserusername.restapi.service.DeviceChangedEvent;
+import com.github.thisuserusername.restapi.service.DeviceSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends the device writes that affect the {@link DevicePageCache} or the {@link DeviceNaturalIdCache} to the
+ * {@code cache_invalidations} table, in the transaction of the write, for the {@link CacheInvalidationPoller}s of
+ * the other nodes. Entries carry the brand, name and state before and after the write, so other nodes evict
+ * exactly what the writing node evicts locally.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class CacheInvalidationLog {
+
+    private static final String INSERT_SQL = "INSERT INTO %s.cache_invalidations (change_type, device_id, "
+            + "device_version, before_brand_id, before_name, before_state, after_brand_id, after_name, after_state, "
+            + "node_id, created_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String PURGE_SQL = "DELETE FROM %s.cache_invalidations WHERE created_on < ?";
+
+    private final CacheInvalidationProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final BrandDictionary brandDictionary;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final String insertSql;
+    private final String purgeSql;
+
+    public CacheInvalidationLog(CacheInvalidationProperties properties,
+                                JdbcTemplate jdbcTemplate,
+                                BrandDictionary brandDictionary,
+                                @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.brandDictionary = brandDictionary;
+        this.insertSql = INSERT_SQL.formatted(schema);
+        this.purgeSql = PURGE_SQL.formatted(schema);
+    }
+
+    /**
+     * @return the id this node tags its entries with, so that its poller can skip them
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (!properties.enabled() || (!event.affectsListings() && !event.affectsNaturalKey())) {
+            return;
+        }
+        DeviceSnapshot device = event.after() != null ? event.after() : event.before();
+        jdbcTemplate.update(insertSql, row(event.type(), device.id(), device.version(), event.before(),
+                event.after()));
+    }
+
+    /**
+     * Logs a set-based state change of the devices of {@code brand} ({@code null} for any brand) from any of
+     * {@code fromStates} to {@code target}. Joins the current transaction, if any.
+     */
+    public void onStateChanged(String brand, Collection<DeviceState> fromStates, DeviceState target) {
+        if (!properties.enabled()) {
+            return;
+        }
+        DeviceSnapshot after = new DeviceSnapshot(null, null, brand, target, null, null);
+        List<Object[]> rows = fromStates.stream()
+                .map(state -> row(DeviceChangeType.UPDATED, null, null,
+                        new DeviceSnapshot(null, null, brand, state, null, null), after))
+                .toList();
+        jdbcTemplate.batchUpdate(insertSql, rows);
+    }
+
+    @Scheduled(cron = "${restapi.cache.invalidation.purge-cron:-}")
+    @UsePool(ConnectionPool.BACKGROUND)
+    public void purge() {
+        int purged = jdbcTemplate.update(purgeSql,
+                Timestamp.valueOf(LocalDateTime.now().minus(properties.retention())));
+        LOG.info("Purged {} cache invalidations", purged);
+    }
+
+    private Object[] row(DeviceChangeType type, Long deviceId, Long version, DeviceSnapshot before,
+                         DeviceSnapshot after) {
+        return new Object[]{type.name(), deviceId, version,
+                brandId(before), before == null ? null : before.name(), state(before),
+                brandId(after), after == null ? null : after.name(), state(after),
+                nodeId, Timestamp.valueOf(LocalDateTime.now())};
+    }
+
+    private Integer brandId(DeviceSnapshot device) {
+        if (device == null || device.brand() == null) {
+            return null;
+        }
+        return brandDictionary.idOf(device.brand()).orElseGet(() -> brandDictionary.register(device.brand()));
+    }
+
+    private static String state(DeviceSnapshot device) {
+        return device == null ? null : device.state().name();
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.thisuserusername.restapi.cache;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.github.thisuserusername.restapi.model.DeviceChangeType;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import com.github.thisuserusername.restapi.service.DeviceChangedEvent;
+import com.github.thisuserusername.restapi.service.DeviceSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Applies the device writes other nodes appended to the {@link CacheInvalidationLog} to the local
+ * {@link DevicePageCache} and {@link DeviceNaturalIdCache}.
+ * <p>
+ * The log is read by sequence number after a high watermark. Transactions commit out of sequence order, so a
+ * skipped sequence number is remembered as a gap and read again until its entry shows up; on start-up, so are the
+ * sequence numbers missing below the end of the log. Staleness is bounded by {@code maxStaleness}: both caches are
+ * cleared when a gap stays open for longer, and every read of the log lets them serve entries for at most
+ * {@code maxStaleness} after it started, so a poll held up by the database makes readers bypass the caches
+ * instead of serving entries the poll has not confirmed.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class CacheInvalidationPoller {
+
+    private static final String SELECT_SQL = "SELECT seq, change_type, device_id, device_version, before_brand_id, "
+            + "before_name, before_state, after_brand_id, after_name, after_state, node_id, created_on "
+            + "FROM %s.cache_invalidations WHERE seq > ? ORDER BY seq FETCH FIRST ? ROWS ONLY";
+    private static final String END_OF_LOG_SQL = "SELECT seq FROM %1$s.cache_invalidations "
+            + "WHERE seq > (SELECT COALESCE(MAX(seq), 0) FROM %1$s.cache_invalidations) - ? ORDER BY seq";
+    private static final int MAX_GAPS = 1000;
+
+    private final CacheInvalidationProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskScheduler taskScheduler;
+    private final BrandDictionary brandDictionary;
+    private final DevicePageCache devicePageCache;
+    private final DeviceNaturalIdCache deviceNaturalIdCache;
+    private final String nodeId;
+    private final String selectSql;
+    private final String endOfLogSql;
+    private final Timer lag;
+    private final Counter staleFlushes;
+    private final Counter gapFlushes;
+    /** sequence number of a skipped entry to the {@link System#nanoTime()} it was first missed at */
+    private final NavigableMap<Long, Long> gaps = new TreeMap<>();
+    private long highWatermark = -1;
+    private boolean failing;
+    private volatile long lastPollNanos = System.nanoTime();
+    private volatile int openGaps;
+    private ScheduledFuture<?> pollTask;
+
+    public CacheInvalidationPoller(CacheInvalidationProperties properties,
+                                   JdbcTemplate jdbcTemplate,
+                                   TaskScheduler taskScheduler,
+                                   BrandDictionary brandDictionary,
+                                   DevicePageCache devicePageCache,
+                                   DeviceNaturalIdCache deviceNaturalIdCache,
+                                   CacheInvalidationLog cacheInvalidationLog,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.brandDictionary = brandDictionary;
+        this.devicePageCache = devicePageCache;
+        this.deviceNaturalIdCache = deviceNaturalIdCache;
+        this.nodeId = cacheInvalidationLog.nodeId();
+        this.selectSql = SELECT_SQL.formatted(schema);
+        this.endOfLogSql = END_OF_LOG_SQL.formatted(schema);
+        this.lag = Timer.builder("cache.invalidation.lag")
+                .description("Time from a write on another node to its eviction from the local caches")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.staleFlushes = meterRegistry.counter("cache.invalidation.flushes", "reason", "stale");
+        this.gapFlushes = meterRegistry.counter("cache.invalidation.flushes", "reason", "gap");
+        Gauge.builder("cache.invalidation.staleness", this, poller -> poller.staleness().toMillis() / 1000.0)
+                .description("Time since the invalidation log was last read")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("cache.invalidation.gaps", this, poller -> poller.openGaps)
+                .description("Skipped log entries waited for")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (properties.enabled()) {
+            serveCachesUntil(System.nanoTime() + properties.maxStaleness().toNanos());
+            pollTask = taskScheduler.scheduleWithFixedDelay(() -> ConnectionPool.BACKGROUND.run(this::poll),
+                    properties.pollInterval());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+        }
+    }
+
+    /**
+     * @return the time since the last successful read of the log started
+     */
+    public Duration staleness() {
+        return Duration.ofNanos(System.nanoTime() - lastPollNanos);
+    }
+
+    /**
+     * Reads the entries after the high watermark and the open gaps, evicts the entries of other nodes and enforces
+     * the staleness bound.
+     */
+    public synchronized void poll() {
+        long maxStalenessNanos = properties.maxStaleness().toNanos();
+        long started = System.nanoTime();
+        try {
+            if (highWatermark < 0) {
+                startAtEndOfLog();
+            }
+            long cursor = gaps.isEmpty() ? highWatermark : gaps.firstKey() - 1;
+            List<Invalidation> batch;
+            do {
+                batch = jdbcTemplate.query(selectSql, this::mapRow, cursor, properties.batchSize());
+                for (Invalidation invalidation : batch) {
+                    track(invalidation);
+                    cursor = invalidation.seq();
+                }
+            } while (batch.size() == properties.batchSize());
+            lastPollNanos = started;
+            serveCachesUntil(started + maxStalenessNanos);
+            if (failing) {
+                LOG.info("Reading cache invalidations again");
+                failing = false;
+            }
+        } catch (DataAccessException e) {
+            if (!failing) {
+                LOG.warn("Failed to read cache invalidations", e);
+                failing = true;
+            }
+        }
+
+        long now = System.nanoTime();
+        if (gaps.values().removeIf(missedSince -> now - missedSince > maxStalenessNanos)) {
+            LOG.debug("Gave up waiting for skipped cache invalidations, clearing the caches");
+            flush(gapFlushes);
+        }
+        if (now - lastPollNanos > maxStalenessNanos) {
+            flush(staleFlushes);
+        }
+        openGaps = gaps.size();
+    }
+
+    /**
+     * Starts reading after the last entry of the log. The caches start empty, so the entries written before do not
+     * matter, except for those whose transaction has not committed yet: the sequence numbers missing among the
+     * last {@code MAX_GAPS} ones are waited for as gaps.
+     */
+    private void startAtEndOfLog() {
+        List<Long> lastEntries = jdbcTemplate.queryForList(endOfLogSql, Long.class, MAX_GAPS);
+        long now = System.nanoTime();
+        for (int i = 1; i < lastEntries.size(); i++) {
+            for (long missed = lastEntries.get(i - 1) + 1; missed < lastEntries.get(i); missed++) {
+                gaps.put(missed, now);
+            }
+        }
+        highWatermark = lastEntries.isEmpty() ? 0 : lastEntries.get(lastEntries.size() - 1);
+    }
+
+    private void track(Invalidation invalidation) {
+        long seq = invalidation.seq();
+        if (seq <= highWatermark) {
+            if (gaps.remove(seq) == null) {
+                // applied by an earlier poll
+                return;
+            }
+        } else {
+            if (gaps.size() + seq - highWatermark - 1 > MAX_GAPS) {
+                LOG.debug("Too many skipped cache invalidations, clearing the caches");
+                gaps.clear();
+                flush(gapFlushes);
+            } else {
+                long now = System.nanoTime();
+                for (long missed = highWatermark + 1; missed < seq; missed++) {
+                    gaps.put(missed, now);
+                }
+            }
+            highWatermark = seq;
+        }
+        if (nodeId.equals(invalidation.nodeId())) {
+            // evicted after the commit already
+            return;
+        }
+        devicePageCache.onDeviceChanged(invalidation.event());
+        deviceNaturalIdCache.onDeviceChanged(invalidation.event());
+        // clamped, the clocks of the nodes may be slightly apart
+        Duration sinceWrite = Duration.between(invalidation.createdOn(), LocalDateTime.now());
+        lag.record(sinceWrite.isNegative() ? Duration.ZERO : sinceWrite);
+    }
+
+    private void serveCachesUntil(long deadlineNanos) {
+        devicePageCache.serveUntil(deadlineNanos);
+        deviceNaturalIdCache.serveUntil(deadlineNanos);
+    }
+
+    private void flush(Counter reason) {
+        devicePageCache.invalidateAll();
+        deviceNaturalIdCache.invalidateAll();
+        reason.increment();
+    }
+
+    private Invalidation mapRow(ResultSet rs, int rowNum) throws SQLException {
+        DeviceChangedEvent event = new DeviceChangedEvent(DeviceChangeType.valueOf(rs.getString("change_type")),
+                snapshot(rs, "before_"), snapshot(rs, "after_"));
+        return new Invalidation(rs.getLong("seq"), event, rs.getString("node_id"),
+                rs.getTimestamp("created_on").toLocalDateTime());
+    }
+
+    /**
+     * @return the device as it was before or after the write, {@code null} if it did not exist
+     */
+    private DeviceSnapshot snapshot(ResultSet rs, String prefix) throws SQLException {
+        String state = rs.getString(prefix + "state");
+        if (state == null) {
+            return null;
+        }
+        int brandId = rs.getInt(prefix + "brand_id");
+        String brand = rs.wasNull() ? null : brandDictionary.nameOf(brandId);
+        long deviceId = rs.getLong("device_id");
+        Long id = rs.wasNull() ? null : deviceId;
+        long deviceVersion = rs.getLong("device_version");
+        Long version = rs.wasNull() ? null : deviceVersion;
+        return new DeviceSnapshot(id, rs.getString(prefix + "name"), brand, DeviceState.valueOf(state), version,
+                null);
+    }
+
+    private record Invalidation(long seq, DeviceChangedEvent event, String nodeId, LocalDateTime createdOn) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.thisuserusername.restapi.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link CacheInvalidationLog} and the {@link CacheInvalidationPoller}.
+ *
+ * @param enabled      whether device writes are logged for, and evicted from, the caches of the other nodes
+ * @param pollInterval delay between two reads of the log
+ * @param batchSize    maximum number of log entries read per query
+ * @param maxStaleness longest time a node serves cache entries without having read the log; also how long a
+ *                     missing entry is waited for before the caches are cleared instead
+ * @param retention    how long log entries are kept
+ * @param purgeCron    schedule of the log purge, {@code -} disables it
+ */
+@ConfigurationProperties("restapi.cache.invalidation")
+public record CacheInvalidationProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("250ms") Duration pollInterval,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("5s") Duration maxStaleness,
+        @DefaultValue("1h") Duration retention,
+        @DefaultValue("-") String purgeCron) {
+}
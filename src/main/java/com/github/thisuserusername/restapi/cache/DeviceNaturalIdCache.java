@@ -0,0 +1,125 @@
+package com.github.thisuserusername.restapi.cache;
+
+import com.github.thisuserusername.restapi.service.DeviceChangedEvent;
+import com.github.thisuserusername.restapi.service.DeviceSnapshot;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache of the device id a {@code (brand, name)} natural key resolves to.
+ * <p>
+ * A committed write evicts the old and the new key of the device if it was created, renamed, moved to another
+ * brand, deleted or archived. Lookups not finding a device are not cached. Like the {@link DevicePageCache}, a
+ * lookup result is only cached if no eviction happened since the lookup started, and readers still check the
+ * device they load by the cached id against the key. Ids are bypassed once the {@link CacheInvalidationPoller}
+ * has not confirmed them fresh for too long.
+ */
+@Component
+public class DeviceNaturalIdCache {
+
+    private final boolean enabled;
+    private final Cache<NaturalKey, Long> ids;
+    private final AtomicLong generation = new AtomicLong();
+    private final Lock writeLock = new ReentrantLock();
+    private volatile long servedUntilNanos;
+    private volatile boolean bounded;
+
+    public DeviceNaturalIdCache(DeviceNaturalIdCacheProperties properties) {
+        this.enabled = properties.enabled();
+        this.ids = CacheBuilder.newBuilder()
+                .maximumSize(properties.maxSize())
+                .build();
+    }
+
+    /**
+     * @return the current invalidation generation; must be read before the lookup whose result is later passed
+     * to {@link #put}
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public Optional<Long> get(String brand, String name) {
+        if (!enabled || expired()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(ids.getIfPresent(new NaturalKey(brand, name)));
+    }
+
+    /**
+     * Stops serving cached ids after {@code deadlineNanos} on the {@link System#nanoTime()} scale, unless this
+     * is called again before. Until the first call they are served without a time bound.
+     */
+    public void serveUntil(long deadlineNanos) {
+        servedUntilNanos = deadlineNanos;
+        bounded = true;
+    }
+
+    /**
+     * Caches the id a natural key resolved to unless an eviction happened since {@code observedGeneration} was
+     * read, in which case the id may already be stale.
+     */
+    public void put(String brand, String name, long id, long observedGeneration) {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (generation.get() == observedGeneration) {
+                ids.put(new NaturalKey(brand, name), id);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void evict(String brand, String name) {
+        writeLock.lock();
+        try {
+            generation.incrementAndGet();
+            ids.invalidate(new NaturalKey(brand, name));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        writeLock.lock();
+        try {
+            generation.incrementAndGet();
+            ids.invalidateAll();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (!event.affectsNaturalKey()) {
+            return;
+        }
+        DeviceSnapshot before = event.before();
+        DeviceSnapshot after = event.after();
+        // a created or renamed device may now be the one with the lowest id of its new key
+        if (before != null) {
+            evict(before.brand(), before.name());
+        }
+        if (after != null) {
+            evict(after.brand(), after.name());
+        }
+    }
+
+    private boolean expired() {
+        return bounded && System.nanoTime() - servedUntilNanos > 0;
+    }
+
+    private record NaturalKey(String brand, String name) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.thisuserusername.restapi.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the {@link DeviceNaturalIdCache}.
+ *
+ * @param enabled whether the ids of looked up natural keys are cached at all
+ * @param maxSize maximum number of cached natural keys
+ */
+@ConfigurationProperties("restapi.cache.natural-ids")
+public record DeviceNaturalIdCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maxSize) {
+}
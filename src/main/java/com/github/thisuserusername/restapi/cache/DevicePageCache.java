@@ -0,0 +1,200 @@
+package com.github.thisuserusername.restapi.cache;
+
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.service.DeviceChangedEvent;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import com.github.thisuserusername.restapi.service.DeviceSnapshot;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Result cache for filtered device listings.
+ * <p>
+ * Only the ordered ids of a page and the total element count are cached, the devices themselves are
+ * re-read by id on every hit. Every entry is tagged with the brand/state pair of its filter (a {@code null}
+ * part matching any value), so a committed write only evicts the pages whose filter matches the old or the
+ * new brand/state of the changed device. The cache is bounded by the estimated memory weight of the id lists.
+ * Pages are bypassed once the {@link CacheInvalidationPoller} has not confirmed them fresh for too long.
+ */
+@Component
+@Slf4j
+public class DevicePageCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final boolean enabled;
+    private final Cache<PageKey, CachedPage> pages;
+    private final Map<Tag, Set<PageKey>> keysByTag = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Lock writeLock = new ReentrantLock();
+    private volatile long servedUntilNanos;
+    private volatile boolean bounded;
+
+    public DevicePageCache(DevicePageCacheProperties properties) {
+        this.enabled = properties.enabled();
+        this.pages = CacheBuilder.newBuilder()
+                .maximumWeight(properties.maxWeight().toBytes())
+                .weigher((PageKey key, CachedPage page) -> ENTRY_OVERHEAD_BYTES + page.ids().length * Long.BYTES)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    /**
+     * @return the current invalidation generation; must be read before the listing query whose result is
+     * later passed to {@link #put}
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public Optional<CachedPage> get(DeviceFilter filter, int page, int size) {
+        if (!enabled || expired()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(pages.getIfPresent(new PageKey(filter, page, size)));
+    }
+
+    /**
+     * Stops serving cached pages after {@code deadlineNanos} on the {@link System#nanoTime()} scale, unless this
+     * is called again before. Until the first call they are served without a time bound.
+     */
+    public void serveUntil(long deadlineNanos) {
+        servedUntilNanos = deadlineNanos;
+        bounded = true;
+    }
+
+    /**
+     * Caches a listing result unless an invalidation happened since {@code observedGeneration} was read,
+     * in which case the result may already be stale.
+     */
+    public void put(DeviceFilter filter, int page, int size, List<Long> ids, long totalElements,
+                    long observedGeneration) {
+        if (!enabled) {
+            return;
+        }
+        PageKey key = new PageKey(filter, page, size);
+        CachedPage value = new CachedPage(ids.stream().mapToLong(Long::longValue).toArray(), totalElements);
+        writeLock.lock();
+        try {
+            if (generation.get() != observedGeneration) {
+                return;
+            }
+            keysByTag.computeIfAbsent(Tag.of(filter), tag -> ConcurrentHashMap.newKeySet()).add(key);
+            pages.put(key, value);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Drops every page whose filter matches a device with the given brand and state. A {@code null} brand or state
+     * stands for any value, as for a set-based change of the devices of all brands.
+     */
+    public void evict(String brand, DeviceState state) {
+        writeLock.lock();
+        try {
+            generation.incrementAndGet();
+            List<PageKey> evicted = new ArrayList<>();
+            keysByTag.forEach((tag, keys) -> {
+                if (tag.matches(brand, state)) {
+                    evicted.addAll(keys);
+                }
+            });
+            pages.invalidateAll(evicted);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        writeLock.lock();
+        try {
+            generation.incrementAndGet();
+            pages.invalidateAll();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (!event.affectsListings()) {
+            return;
+        }
+        evict(event.before());
+        evict(event.after());
+    }
+
+    private void evict(DeviceSnapshot device) {
+        if (device != null) {
+            LOG.trace("Evicting device pages for brand {} and state {}", device.brand(), device.state());
+            evict(device.brand(), device.state());
+        }
+    }
+
+    private boolean expired() {
+        return bounded && System.nanoTime() - servedUntilNanos > 0;
+    }
+
+    private void onRemoval(RemovalNotification<PageKey, CachedPage> notification) {
+        if (notification.getCause() == RemovalCause.REPLACED) {
+            return;
+        }
+        PageKey key = notification.getKey();
+        writeLock.lock();
+        try {
+            if (pages.asMap().containsKey(key)) {
+                return;
+            }
+            keysByTag.computeIfPresent(Tag.of(key.filter()), (tag, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Ordered ids of a cached page together with the total number of devices matching its filter.
+     */
+    public record CachedPage(long[] ids, long totalElements) {
+    }
+
+    private record PageKey(DeviceFilter filter, int page, int size) {
+    }
+
+    /**
+     * Brand/state pair covered by a cached page; {@code null} parts match any value.
+     */
+    private record Tag(String brand, DeviceState state) {
+
+        static Tag of(DeviceFilter filter) {
+            return new Tag(filter.brand(), filter.state());
+        }
+
+        /**
+         * @return whether a device with the given brand and state may be on a page with this tag, a {@code null}
+         * on either side matching any value
+         */
+        boolean matches(String brand, DeviceState state) {
+            return (this.brand == null || brand == null || this.brand.equals(brand))
+                    && (this.state == null || state == null || this.state == state);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.thisuserusername.restapi.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of the {@link DevicePageCache}.
+ *
+ * @param enabled   whether filtered device pages are cached at all
+ * @param maxWeight upper bound of the estimated memory held by cached id lists
+ */
+@ConfigurationProperties("restapi.cache.device-pages")
+public record DevicePageCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("16MB") DataSize maxWeight) {
+}
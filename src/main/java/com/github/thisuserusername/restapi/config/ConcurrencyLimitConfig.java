@@ -0,0 +1,34 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.web.ConcurrencyLimitFilter;
+import com.github.thisuserusername.restapi.web.ConcurrencyLimitProperties;
+import com.github.thisuserusername.restapi.web.ConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.concurrency-limit", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    ConcurrencyLimiter concurrencyLimiter(ConcurrencyLimitProperties properties) {
+        return new ConcurrencyLimiter(properties);
+    }
+
+    @Bean
+    FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ConcurrencyLimiter concurrencyLimiter,
+                                                                          ConcurrencyLimitProperties properties,
+                                                                          MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(concurrencyLimiter, properties, meterRegistry));
+        registration.addUrlPatterns("/api/v1/devices", "/api/v1/devices/*");
+        // inside the request log, so rejections are logged, and ahead of the filters doing work for a request
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 200);
+        return registration;
+    }
+}
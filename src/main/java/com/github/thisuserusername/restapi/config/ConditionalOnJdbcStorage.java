@@ -0,0 +1,20 @@
+package com.github.thisuserusername.restapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers a component only when devices are stored in a SQL database, which is the default
+ * ({@code restapi.storage.mode=jdbc}). Features built on SQL are not available with the in-memory storage.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Documented
+@ConditionalOnProperty(prefix = "restapi.storage", name = "mode", havingValue = "jdbc", matchIfMissing = true)
+public @interface ConditionalOnJdbcStorage {
+}
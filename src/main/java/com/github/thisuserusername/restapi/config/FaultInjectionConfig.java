@@ -0,0 +1,85 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.jdbc.FaultInjectingDataSource;
+import com.github.thisuserusername.restapi.jdbc.FaultInjectionProperties;
+import com.github.thisuserusername.restapi.jdbc.FaultInjector;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Injects latency and failures into the application {@link DataSource}, see the {@code faults} profile. Never
+ * enable this in production.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.jdbc.faults", name = "enabled", havingValue = "true")
+@Slf4j
+public class FaultInjectionConfig {
+
+    @Bean
+    FaultInjector faultInjector() {
+        return new FaultInjector();
+    }
+
+    @Bean
+    MeterBinder faultInjectionMetrics(FaultInjector faultInjector) {
+        return registry -> FunctionCounter.builder("jdbc.faults.errors", faultInjector, FaultInjector::injectedErrors)
+                .description("Connection acquisitions and statements failed on purpose")
+                .register(registry);
+    }
+
+    /**
+     * Wraps every {@link DataSource} bean ahead of the statement instrumentation, so that the {@code jdbc.query}
+     * metrics include the injected latency.
+     */
+    @Bean
+    static BeanPostProcessor faultInjectingDataSourcePostProcessor(ObjectProvider<FaultInjector> faultInjector) {
+        return new FaultInjectingPostProcessor(faultInjector);
+    }
+
+    /**
+     * Starts injecting the configured faults once the application is ready, so that migrations and start-up are
+     * not affected.
+     */
+    @Bean
+    ApplicationListener<ApplicationReadyEvent> faultInjectionStarter(FaultInjector faultInjector,
+                                                                     FaultInjectionProperties properties) {
+        return event -> {
+            LOG.warn("Injecting database faults: acquire {}, statements {}", properties.acquire(),
+                    properties.statements());
+            faultInjector.inject(properties.acquire(), properties.statements());
+        };
+    }
+
+    private static final class FaultInjectingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<FaultInjector> faultInjector;
+
+        FaultInjectingPostProcessor(ObjectProvider<FaultInjector> faultInjector) {
+            this.faultInjector = faultInjector;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof FaultInjectingDataSource)) {
+                return new FaultInjectingDataSource(dataSource, faultInjector.getObject());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
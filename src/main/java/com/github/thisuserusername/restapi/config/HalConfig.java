@@ -0,0 +1,19 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.web.DeviceHalModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.mediatype.hal.HalConfiguration;
+import org.springframework.hateoas.server.LinkRelationProvider;
+
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.hal", name = "streaming-serializers", havingValue = "true", matchIfMissing = true)
+public class HalConfig {
+
+    @Bean
+    HalConfiguration halConfiguration(LinkRelationProvider linkRelationProvider) {
+        return new HalConfiguration()
+                .withObjectMapperCustomizer(mapper -> mapper.registerModule(new DeviceHalModule(linkRelationProvider)));
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.web.IdempotencyFilter;
+import com.github.thisuserusername.restapi.web.IdempotencyProperties;
+import com.github.thisuserusername.restapi.web.IdempotencyStore;
+import com.github.thisuserusername.restapi.web.InMemoryIdempotencyStore;
+import com.github.thisuserusername.restapi.web.JdbcIdempotencyStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    @Bean
+    IdempotencyStore idempotencyStore(IdempotencyProperties properties,
+                                      ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                      @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        return switch (properties.store()) {
+            case MEMORY -> new InMemoryIdempotencyStore(properties);
+            case JDBC -> new JdbcIdempotencyStore(jdbcTemplate.getObject(), properties, schema);
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore,
+                                                                IdempotencyProperties properties) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyStore, properties));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.repository.ArchivedDeviceRepository;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import com.github.thisuserusername.restapi.repository.memory.InMemoryArchivedDeviceRepository;
+import com.github.thisuserusername.restapi.repository.memory.InMemoryBrandDictionary;
+import com.github.thisuserusername.restapi.repository.memory.InMemoryDeviceRepository;
+import com.github.thisuserusername.restapi.repository.memory.InMemoryDeviceStore;
+import com.github.thisuserusername.restapi.repository.memory.InMemoryStorageProperties;
+import com.github.thisuserusername.restapi.repository.memory.InMemoryTransactionManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Keeps devices in memory, made durable by a write-ahead log, instead of a SQL database. Only the device API is
+ * served with this storage; features built on SQL are registered with {@link ConditionalOnJdbcStorage}. The
+ * {@code memory} profile also turns off the data source, JPA and Liquibase.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.storage", name = "mode", havingValue = "memory")
+public class InMemoryStorageConfig {
+
+    @Bean
+    BrandDictionary brandDictionary() {
+        return new InMemoryBrandDictionary();
+    }
+
+    @Bean
+    InMemoryDeviceStore inMemoryDeviceStore(InMemoryStorageProperties properties,
+                                            BrandDictionary brandDictionary,
+                                            TaskScheduler taskScheduler) {
+        return new InMemoryDeviceStore(properties, brandDictionary, taskScheduler);
+    }
+
+    @Bean
+    DeviceRepository deviceRepository(InMemoryDeviceStore store, BrandDictionary brandDictionary) {
+        return new InMemoryDeviceRepository(store, brandDictionary);
+    }
+
+    @Bean
+    ArchivedDeviceRepository archivedDeviceRepository() {
+        return new InMemoryArchivedDeviceRepository();
+    }
+
+    @Bean
+    PlatformTransactionManager transactionManager() {
+        return new InMemoryTransactionManager();
+    }
+}
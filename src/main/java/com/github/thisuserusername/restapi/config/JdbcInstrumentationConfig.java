@@ -0,0 +1,48 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.jdbc.InstrumentedDataSource;
+import com.github.thisuserusername.restapi.jdbc.JdbcMetricsProperties;
+import com.github.thisuserusername.restapi.jdbc.QueryRecorder;
+import com.github.thisuserusername.restapi.jdbc.StatementListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.jdbc", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JdbcInstrumentationConfig {
+
+    /**
+     * Wraps every {@link DataSource} bean once it is initialized. Dependencies are looked up lazily so that
+     * the post processor itself does not force the early creation of the meter registry.
+     */
+    @Bean
+    static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<JdbcMetricsProperties> properties,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                                                 ObjectProvider<StatementListener> listeners) {
+        return new BeanPostProcessor() {
+            private QueryRecorder queryRecorder;
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource(dataSource, queryRecorder());
+                }
+                return bean;
+            }
+
+            private synchronized QueryRecorder queryRecorder() {
+                if (queryRecorder == null) {
+                    queryRecorder = new QueryRecorder(properties.getObject(), meterRegistry.getObject(),
+                            listeners.orderedStream().toList());
+                }
+                return queryRecorder;
+            }
+        };
+    }
+}
@@ -1,14 +1,37 @@
 package com.github.thisuserusername.restapi.config;
 
+import com.github.thisuserusername.restapi.jdbc.ConnectionPoolProperties;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPools;
+import com.github.thisuserusername.restapi.jdbc.PoolRoutingDataSource;
+import com.github.thisuserusername.restapi.jdbc.UsePool;
+import com.github.thisuserusername.restapi.jdbc.UsePoolInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManagerFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.sql.DataSource;
+
 @Configuration
+@ConditionalOnJdbcStorage
 @EnableJpaAuditing
 public class JpaConfig {
 
@@ -17,4 +40,43 @@ public class JpaConfig {
     PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
         return new JpaTransactionManager(entityManagerFactory);
     }
+
+    /**
+     * Splits the connections into an interactive, a bulk and a background pool, so that long list queries and
+     * jobs cannot take the connections single device requests are waiting for.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "restapi.jdbc.pools", name = "enabled", havingValue = "true", matchIfMissing = true)
+    ConnectionPools connectionPools(ConnectionPoolProperties properties,
+                                    DataSourceProperties dataSourceProperties,
+                                    Environment environment,
+                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        return new ConnectionPools(properties, () -> {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            return binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource)).orElse(dataSource);
+        }, meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "restapi.jdbc.pools", name = "enabled", havingValue = "true", matchIfMissing = true)
+    DataSource dataSource(ConnectionPools connectionPools) {
+        return new PoolRoutingDataSource(connectionPools.asMap());
+    }
+
+    /**
+     * Applies {@link UsePool} ahead of the transaction interceptor, which obtains the connection.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnProperty(prefix = "restapi.jdbc.pools", name = "enabled", havingValue = "true", matchIfMissing = true)
+    static Advisor usePoolAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(UsePool.class, true))
+                .union(AnnotationMatchingPointcut.forMethodAnnotation(UsePool.class));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new UsePoolInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
 }
@@ -0,0 +1,56 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.reactive.ReactiveDeviceProperties;
+import com.github.thisuserusername.restapi.reactive.ReactiveDeviceRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.reactive", name = "enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    /**
+     * The R2DBC pool is kept inside the repository rather than exposed as a {@code ConnectionFactory} bean, which
+     * would make Spring Boot back off from configuring the JDBC {@code DataSource}.
+     */
+    @Bean(destroyMethod = "close")
+    ReactiveDeviceRepository reactiveDeviceRepository(ReactiveDeviceProperties properties,
+                                                      MeterRegistry meterRegistry,
+                                                      @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        if (properties.url() == null) {
+            throw new IllegalStateException("restapi.reactive.enabled is set but restapi.reactive.url is missing");
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.url()).mutate();
+        if (properties.username() != null) {
+            options.option(ConnectionFactoryOptions.USER, properties.username());
+        }
+        if (properties.password() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.password());
+        }
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name("reactive")
+                .initialSize(properties.initialSize())
+                .maxSize(properties.maxSize())
+                .maxAcquireTime(properties.maxAcquireTime())
+                .build());
+        pool.getMetrics().ifPresent(metrics -> {
+            Gauge.builder("r2dbc.pool.acquired", metrics, PoolMetrics::acquiredSize)
+                    .description("Connections of the reactive pool in use")
+                    .register(meterRegistry);
+            Gauge.builder("r2dbc.pool.pending", metrics, PoolMetrics::pendingAcquireSize)
+                    .description("Requests waiting for a connection of the reactive pool")
+                    .register(meterRegistry);
+        });
+        return new ReactiveDeviceRepository(pool, schema, properties.fetchSize());
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.web.RequestLogFilter;
+import com.github.thisuserusername.restapi.web.RequestLogProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.request-log", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RequestLogConfig {
+
+    @Bean
+    FilterRegistrationBean<RequestLogFilter> requestLogFilter(RequestLogProperties properties) {
+        FilterRegistrationBean<RequestLogFilter> registration =
+                new FilterRegistrationBean<>(new RequestLogFilter(properties));
+        registration.addUrlPatterns("/api/*");
+        // outermost, so the logged duration and status cover the other filters
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.web.ResourceUsageFilter;
+import com.github.thisuserusername.restapi.web.ResourceUsageProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.resource-usage", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResourceUsageConfig {
+
+    @Bean
+    FilterRegistrationBean<ResourceUsageFilter> resourceUsageFilter(ResourceUsageProperties properties,
+                                                                    MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ResourceUsageFilter> registration =
+                new FilterRegistrationBean<>(new ResourceUsageFilter(properties, meterRegistry));
+        registration.addUrlPatterns("/api/v1/devices", "/api/v1/devices/*");
+        return registration;
+    }
+}
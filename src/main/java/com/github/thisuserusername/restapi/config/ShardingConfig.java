@@ -0,0 +1,146 @@
+package com.github.thisuserusername.restapi.config;
+
+import com.github.thisuserusername.restapi.cache.DeviceNaturalIdCache;
+import com.github.thisuserusername.restapi.cache.DevicePageCache;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.repository.ArchivedDeviceRepository;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import com.github.thisuserusername.restapi.service.DeviceServiceImpl;
+import com.github.thisuserusername.restapi.shard.DeviceShard;
+import com.github.thisuserusername.restapi.shard.DeviceShards;
+import com.github.thisuserusername.restapi.shard.ShardingProperties;
+import com.github.thisuserusername.restapi.shard.UnshardedEndpointFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sets up the shards of the device store. Every shard gets its own connection pool, Liquibase run, entity manager
+ * factory and transaction manager. The shard changelog runs in the {@code sharded} context, which skips the seed
+ * data and stripes the device ids across the shards.
+ * <p>
+ * Heartbeats, bulk state changes, the delta sync, analytics, jobs, archival and the reactive endpoints work on the
+ * device tables of the primary datasource. Their endpoints answer {@code 501 Not Implemented}, and the context fails
+ * to start if a scheduled job or the reactive endpoints are enabled next to the shards.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "restapi.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    /**
+     * Properties enabling a feature that only knows the device tables of the primary datasource, with the value
+     * that leaves the feature off.
+     */
+    private static final Map<String, String> UNSHARDED_FEATURES = Map.of(
+            "restapi.archive.cron", "-",
+            "restapi.utilization.rollup-cron", "-",
+            "restapi.reactive.enabled", "false");
+
+    @Bean
+    FilterRegistrationBean<UnshardedEndpointFilter> unshardedEndpointFilter() {
+        FilterRegistrationBean<UnshardedEndpointFilter> registration =
+                new FilterRegistrationBean<>(new UnshardedEndpointFilter());
+        registration.addUrlPatterns("/api/v1/*");
+        // inside the request log and ahead of the concurrency limit, so rejected calls take no permit
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 150);
+        return registration;
+    }
+
+    @Bean(destroyMethod = "close")
+    DeviceShards deviceShards(ShardingProperties properties,
+                              EntityManagerFactoryBuilder entityManagerFactoryBuilder,
+                              ConfigurableListableBeanFactory beanFactory,
+                              ResourceLoader resourceLoader,
+                              ApplicationEventPublisher eventPublisher,
+                              DevicePageCache devicePageCache,
+                              DeviceNaturalIdCache deviceNaturalIdCache,
+                              BrandDictionary brandDictionary,
+                              Environment environment,
+                              @Value("${spring.liquibase.change-log}") String changeLog,
+                              @Value("${spring.liquibase.liquibase-schema}") String schema) throws LiquibaseException {
+        if (properties.shards().isEmpty()) {
+            throw new IllegalStateException("Sharding is enabled but no shards are configured");
+        }
+        UNSHARDED_FEATURES.forEach((property, off) -> {
+            if (!off.equals(environment.getProperty(property, off))) {
+                throw new IllegalStateException(
+                        "Sharding is enabled but " + property + " is set, which only works on the primary datasource");
+            }
+        });
+        List<DeviceShard> shards = new ArrayList<>();
+        List<AutoCloseable> resources = new ArrayList<>();
+        int shardCount = properties.shards().size();
+        for (int index = 0; index < shardCount; index++) {
+            ShardingProperties.Shard shard = properties.shards().get(index);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.url())
+                    .username(shard.username())
+                    .password(shard.password())
+                    .build();
+            dataSource.setPoolName("shard-" + index);
+            dataSource.setMaximumPoolSize(properties.poolSize());
+            resources.add(dataSource);
+
+            new JdbcTemplate(dataSource).execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource);
+            liquibase.setResourceLoader(resourceLoader);
+            liquibase.setChangeLog("classpath:" + changeLog);
+            liquibase.setLiquibaseSchema(schema);
+            liquibase.setContexts("sharded");
+            liquibase.setChangeLogParameters(Map.of(
+                    "schema", schema,
+                    "shardCount", String.valueOf(shardCount),
+                    "shardStart", String.valueOf(index + 1)));
+            liquibase.afterPropertiesSet();
+
+            LocalContainerEntityManagerFactoryBean factoryBean = entityManagerFactoryBuilder
+                    .dataSource(dataSource)
+                    .packages(Device.class)
+                    .persistenceUnit("shard-" + index)
+                    .properties(Map.of(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory)))
+                    .build();
+            factoryBean.afterPropertiesSet();
+            EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+            resources.add(0, entityManagerFactory::close);
+
+            JpaRepositoryFactory repositoryFactory =
+                    new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+            DeviceRepository deviceRepository = repositoryFactory.getRepository(DeviceRepository.class);
+            ArchivedDeviceRepository archivedDeviceRepository =
+                    repositoryFactory.getRepository(ArchivedDeviceRepository.class);
+            JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+            shards.add(new DeviceShard(index, deviceRepository,
+                    new DeviceServiceImpl(deviceRepository, archivedDeviceRepository, eventPublisher, devicePageCache,
+                            brandDictionary, deviceNaturalIdCache, transactionManager),
+                    transactionManager));
+        }
+        return new DeviceShards(shards, resources);
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.dto.UtilizationDTO;
+import com.github.thisuserusername.restapi.service.DeviceUtilizationService;
+import com.github.thisuserusername.restapi.service.Utilization;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller reporting how long devices and brands spend in each state.
+ */
+@RestController
+@ConditionalOnJdbcStorage
+@RequestMapping("/api/v1/analytics")
+@Slf4j
+@Tag(name = "Device Analytics", description = "APIs for device utilization")
+public class DeviceAnalyticsController {
+
+    private final DeviceUtilizationService deviceUtilizationService;
+    private final ObjectWriter lineWriter;
+
+    public DeviceAnalyticsController(DeviceUtilizationService deviceUtilizationService, ObjectMapper objectMapper) {
+        this.deviceUtilizationService = deviceUtilizationService;
+        this.lineWriter = objectMapper.writerFor(UtilizationDTO.class);
+    }
+
+    @Operation(summary = "Stream the time per state of every device or brand within a time window as NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One utilization per line")
+    })
+    @GetMapping(value = "/utilization", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Valid
+    public ResponseEntity<StreamingResponseBody> getUtilization(
+            @Parameter(description = "Start of the window, inclusive")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @RequestParam LocalDateTime from,
+            @Parameter(description = "End of the window, exclusive. Defaults to now")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) @RequestParam(required = false) LocalDateTime to,
+            @Parameter(description = "Whether utilization is reported per device or per brand")
+            @Pattern(regexp = "device|brand") @RequestParam(defaultValue = "device") String groupBy,
+            @RequestParam(required = false) String brand) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Request to get utilization by {} from {} to {} for brand {}", groupBy, from, to, brand);
+        }
+        LocalDateTime end = Optional.ofNullable(to).orElseGet(LocalDateTime::now);
+        String brandFilter = StringUtils.trimToNull(brand);
+        StreamingResponseBody body = "brand".equals(groupBy)
+                ? out -> {
+                    for (Utilization utilization : deviceUtilizationService.getBrandUtilization(from, end, brandFilter)) {
+                        writeLine(out, utilization);
+                    }
+                }
+                : out -> deviceUtilizationService.streamDeviceUtilization(from, end, brandFilter,
+                        utilization -> writeLine(out, utilization));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Get the rolled up daily time per state of every brand")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Daily utilization per brand, for completed days only")
+    })
+    @GetMapping("/utilization/daily")
+    public ResponseEntity<List<UtilizationDTO>> getDailyUtilization(
+            @Parameter(description = "First day, inclusive")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam LocalDate from,
+            @Parameter(description = "Last day, inclusive")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam LocalDate to,
+            @RequestParam(required = false) String brand) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Request to get daily utilization from {} to {} for brand {}", from, to, brand);
+        }
+        return ResponseEntity.ok(deviceUtilizationService
+                .getDailyUtilization(from, to, StringUtils.trimToNull(brand)).stream()
+                .map(DeviceAnalyticsController::toModel)
+                .toList());
+    }
+
+    private void writeLine(OutputStream out, Utilization utilization) {
+        try {
+            out.write(lineWriter.writeValueAsBytes(toModel(utilization)));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static UtilizationDTO toModel(Utilization utilization) {
+        return UtilizationDTO.builder()
+                .key(utilization.key())
+                .day(Optional.ofNullable(utilization.day()).map(DateTimeFormatter.ISO_DATE::format).orElse(null))
+                .availableSeconds(utilization.available().toSeconds())
+                .inUseSeconds(utilization.inUse().toSeconds())
+                .inactiveSeconds(utilization.inactive().toSeconds())
+                .utilization(utilization.ratio())
+                .build();
+    }
+}
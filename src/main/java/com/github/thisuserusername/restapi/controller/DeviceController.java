@@ -1,8 +1,10 @@
 package com.github.thisuserusername.restapi.controller;
 
 import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.dto.DevicePatchResultDTO;
 import com.github.thisuserusername.restapi.model.Device;
 import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.service.DeviceArchivedException;
 import com.github.thisuserusername.restapi.service.DeviceFilter;
 import com.github.thisuserusername.restapi.service.DeviceService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,8 +15,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -25,7 +30,10 @@ import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -38,6 +46,10 @@ import java.util.Optional;
 @Tag(name = "Device Management", description = "APIs for managing device resources")
 public class DeviceController {
 
+    static final int MAX_BATCH_PATCHES = 1000;
+    static final int MAX_PAGE = 100_000;
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final DeviceService deviceService;
     private final PagedResourcesAssembler<Device> assembler;
     private final RepresentationModelAssembler<Device, DeviceDTO> deviceModelAssembler;
@@ -71,9 +83,26 @@ public class DeviceController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Look a device up by its brand and name")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device found",
+                    content = @Content(schema = @Schema(implementation = DeviceDTO.class))),
+            @ApiResponse(responseCode = "404", description = "No device with this brand and name")
+    })
+    @GetMapping("/lookup")
+    public ResponseEntity<DeviceDTO> lookupDevice(
+            @NotBlank @Parameter(description = "Device brand") @RequestParam String brand,
+            @NotBlank @Parameter(description = "Device name") @RequestParam String name) {
+        LOG.debug("Request to look up device {} of brand {}", name, brand);
+        return deviceService.getDeviceByNaturalKey(brand, name)
+                .map(device -> ResponseEntity.ok().body(deviceModelAssembler.toModel(device)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @Operation(summary = "Get devices represented as pageable view. Result set can be optionally filtered by brand and state")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Page of (optionally filtered) devices retrieved successfully")
+            @ApiResponse(responseCode = "200", description = "Page of (optionally filtered) devices retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, page or size")
     })
     @GetMapping
     @Valid
@@ -81,16 +110,21 @@ public class DeviceController {
             @RequestParam(required = false) String brand,
             @Pattern(regexp = "available|in_use|inactive")
             @RequestParam(required = false) String state,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "100") int size
+            @Min(0) @Max(MAX_PAGE) @RequestParam(defaultValue = "0") int page,
+            @Min(1) @Max(MAX_PAGE_SIZE) @RequestParam(defaultValue = "100") int size,
+            @Parameter(description = "Whether archived devices are listed as well")
+            @RequestParam(required = false) Boolean includeArchived
     ) {
-        LOG.debug("Request to get devices list page with filters {}, {}, {}, {}", brand, state, page, size);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Request to get devices list page with filters {}, {}, {}, {}", brand, state, page, size);
+        }
         Page<Device> devices = deviceService.getFilteredDevicesAsPage(DeviceFilter.builder()
                 .brand(StringUtils.trimToNull(brand))
                 .state(Optional.ofNullable(StringUtils.trimToNull(state))
                         .map(String::toUpperCase)
                         .map(DeviceState::valueOf)
                         .orElse(null))
+                .includeArchived(Boolean.TRUE.equals(includeArchived))
                 .build(), page, size);
         return ResponseEntity.ok(assembler.toModel(devices, deviceModelAssembler));
     }
@@ -100,14 +134,15 @@ public class DeviceController {
             @ApiResponse(responseCode = "200", description = "Device updated successfully",
                     content = @Content(schema = @Schema(implementation = DeviceDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input data or business rule violation"),
-            @ApiResponse(responseCode = "404", description = "Device not found")
+            @ApiResponse(responseCode = "404", description = "Device not found"),
+            @ApiResponse(responseCode = "410", description = "Device is archived")
     })
     @PutMapping("/{id}")
     public ResponseEntity<DeviceDTO> updateDevice(
             @Min(1) @Parameter(description = "Device ID") @PathVariable Long id,
             @Valid @RequestBody DeviceDTO device) {
-        LOG.debug("Request to update device: {}", device);
-        return ResponseEntity.ok(deviceModelAssembler.toModel(deviceService.updateDevice(id, device)));
+        LOG.debug("Request to update device: {}", id);
+        return ResponseEntity.ok(deviceModelAssembler.toModel(updateLiveDevice(id, device)));
     }
 
     @Operation(summary = "Partially update a device")
@@ -115,27 +150,63 @@ public class DeviceController {
             @ApiResponse(responseCode = "200", description = "Device updated successfully",
                     content = @Content(schema = @Schema(implementation = DeviceDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input data or business rule violation"),
-            @ApiResponse(responseCode = "404", description = "Device not found")
+            @ApiResponse(responseCode = "404", description = "Device not found"),
+            @ApiResponse(responseCode = "410", description = "Device is archived")
     })
     @PatchMapping("/{id}")
     public ResponseEntity<DeviceDTO> patchDevice(
             @Min(1) @Parameter(description = "Device ID") @PathVariable Long id,
             @RequestBody DeviceDTO updates) {
         LOG.debug("Request to patch device: {}", id);
-        return ResponseEntity.ok(deviceModelAssembler.toModel(deviceService.updateDevice(id, updates)));
+        return ResponseEntity.ok(deviceModelAssembler.toModel(updateLiveDevice(id, updates)));
+    }
+
+    @Operation(summary = "Partially update many devices in one transaction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Patches processed, see the outcome of every item"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    @PatchMapping
+    public ResponseEntity<List<DevicePatchResultDTO>> patchDevices(
+            @Parameter(description = "Patches by device ID")
+            @Size(max = MAX_BATCH_PATCHES) @RequestBody Map<Long, DeviceDTO> patches) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Request to patch {} devices", patches.size());
+        }
+        return ResponseEntity.ok(deviceService.patchDevices(patches).stream()
+                .map(result -> DevicePatchResultDTO.builder()
+                        .id(result.id())
+                        .outcome(result.outcome().name().toLowerCase())
+                        .message(result.message())
+                        .device(result.device() == null ? null : deviceModelAssembler.toModel(result.device()))
+                        .build())
+                .toList());
     }
 
     @Operation(summary = "Delete a device")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Device deleted successfully"),
             @ApiResponse(responseCode = "400", description = "Cannot delete device that is in use"),
-            @ApiResponse(responseCode = "404", description = "Device not found")
+            @ApiResponse(responseCode = "404", description = "Device not found"),
+            @ApiResponse(responseCode = "410", description = "Device is archived")
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteDevice(
             @Min(1) @Parameter(description = "Device ID") @PathVariable Long id) {
         LOG.debug("Request to delete device: {}", id);
-        deviceService.deleteDevice(id);
+        try {
+            deviceService.deleteDevice(id);
+        } catch (DeviceArchivedException e) {
+            throw new ResponseStatusException(HttpStatus.GONE, e.getMessage(), e);
+        }
         return ResponseEntity.noContent().build();
     }
+
+    private Device updateLiveDevice(long id, DeviceDTO device) {
+        try {
+            return deviceService.updateDevice(id, device);
+        } catch (DeviceArchivedException e) {
+            throw new ResponseStatusException(HttpStatus.GONE, e.getMessage(), e);
+        }
+    }
 }
\ No newline at end of file
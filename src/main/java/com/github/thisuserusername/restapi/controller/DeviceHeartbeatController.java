@@ -0,0 +1,81 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.dto.DeviceHeartbeatDTO;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.service.DeviceHeartbeatBuffer;
+import com.github.thisuserusername.restapi.service.DeviceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * REST controller receiving device check-ins.
+ */
+@RestController
+@ConditionalOnJdbcStorage
+@RequestMapping("/api/v1/devices")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Device Heartbeat", description = "APIs for recording and reading device check-ins")
+public class DeviceHeartbeatController {
+
+    private final DeviceHeartbeatBuffer deviceHeartbeatBuffer;
+    private final DeviceService deviceService;
+
+    @Operation(summary = "Record a device check-in. The last seen time is persisted asynchronously")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Heartbeat accepted")
+    })
+    @PostMapping("/{id}/heartbeat")
+    public ResponseEntity<Void> heartbeat(
+            @Min(1) @Parameter(description = "Device ID") @PathVariable Long id) {
+        LOG.trace("Heartbeat of device {}", id);
+        deviceHeartbeatBuffer.record(id, LocalDateTime.now());
+        return ResponseEntity.accepted().build();
+    }
+
+    @Operation(summary = "Get the last time a device checked in")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device found",
+                    content = @Content(schema = @Schema(implementation = DeviceHeartbeatDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Device not found")
+    })
+    @GetMapping("/{id}/heartbeat")
+    public ResponseEntity<DeviceHeartbeatDTO> getLastSeen(
+            @Min(1) @Parameter(description = "Device ID") @PathVariable Long id) {
+        LOG.debug("Request to get last seen time of device {}", id);
+        return deviceService.getDeviceById(id)
+                .map(device -> ResponseEntity.ok(toModel(device)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private DeviceHeartbeatDTO toModel(Device device) {
+        LocalDateTime lastSeen = ObjectUtils.max(device.getLastSeen(),
+                deviceHeartbeatBuffer.pending(device.getId()).orElse(null));
+        DeviceHeartbeatDTO model = DeviceHeartbeatDTO.builder()
+                .deviceId(device.getId())
+                .lastSeen(Optional.ofNullable(lastSeen).map(DateTimeFormatter.ISO_DATE_TIME::format).orElse(null))
+                .build();
+        model.add(linkTo(methodOn(DeviceHeartbeatController.class).getLastSeen(device.getId())).withSelfRel());
+        model.add(linkTo(methodOn(DeviceController.class).getDevice(device.getId())).withRel("device"));
+        return model;
+    }
+}
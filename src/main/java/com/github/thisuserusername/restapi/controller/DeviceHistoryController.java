@@ -0,0 +1,75 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.dto.DeviceHistoryDTO;
+import com.github.thisuserusername.restapi.model.DeviceHistory;
+import com.github.thisuserusername.restapi.service.DeviceHistoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * REST controller exposing the change history of devices.
+ */
+@RestController
+@ConditionalOnJdbcStorage
+@RequestMapping("/api/v1/devices")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Device History", description = "APIs for reading the change history of devices")
+public class DeviceHistoryController {
+
+    private final DeviceHistoryService deviceHistoryService;
+
+    @Operation(summary = "Get the change history of a device, newest first. "
+            + "Use the id of the last returned entry as 'before' to get the next page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of history entries retrieved successfully")
+    })
+    @GetMapping("/{id}/history")
+    public ResponseEntity<CollectionModel<DeviceHistoryDTO>> getDeviceHistory(
+            @Min(1) @Parameter(description = "Device ID") @PathVariable Long id,
+            @Parameter(description = "Keyset cursor, only entries older than this entry id are returned")
+            @RequestParam(required = false) Long before,
+            @Min(1) @Max(500) @RequestParam(defaultValue = "20") int size) {
+        LOG.debug("Request to get history of device {} before {}", id, before);
+        List<DeviceHistory> entries = deviceHistoryService.getDeviceHistory(id, before, size);
+
+        CollectionModel<DeviceHistoryDTO> model = CollectionModel.of(entries.stream().map(this::toModel).toList());
+        model.add(linkTo(methodOn(DeviceHistoryController.class).getDeviceHistory(id, before, size)).withSelfRel());
+        model.add(linkTo(methodOn(DeviceController.class).getDevice(id)).withRel("device"));
+        if (entries.size() == size) {
+            Long next = entries.get(entries.size() - 1).getId();
+            model.add(linkTo(methodOn(DeviceHistoryController.class).getDeviceHistory(id, next, size)).withRel("next"));
+        }
+        return ResponseEntity.ok(model);
+    }
+
+    private DeviceHistoryDTO toModel(DeviceHistory entry) {
+        return DeviceHistoryDTO.builder()
+                .id(entry.getId())
+                .deviceId(entry.getDeviceId())
+                .changeType(entry.getChangeType().name().toLowerCase())
+                .name(entry.getName())
+                .brand(entry.getBrand())
+                .state(entry.getState().name().toLowerCase())
+                .version(entry.getDeviceVersion())
+                .changedOn(entry.getChangedOn().format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+}
@@ -31,7 +31,7 @@ public class DeviceModelAssembler extends RepresentationModelAssemblerSupport<De
 
         Link selfRel = linkTo(methodOn(DeviceController.class).getDevice(deviceModel.getId())).withSelfRel();
         deviceModel.add(selfRel);
-        Link devicesLink = linkTo(methodOn(DeviceController.class).getAllDevices(null, null, 0, 100)).withRel("devices");
+        Link devicesLink = linkTo(methodOn(DeviceController.class).getAllDevices(null, null, 0, 100, null)).withRel("devices");
         deviceModel.add(devicesLink);
 
         return deviceModel;
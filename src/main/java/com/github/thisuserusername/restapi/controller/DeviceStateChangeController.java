@@ -0,0 +1,65 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.dto.DeviceStateChangeDTO;
+import com.github.thisuserusername.restapi.dto.DeviceStateChangeResultDTO;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.service.BulkStateChangeResult;
+import com.github.thisuserusername.restapi.service.DeviceBulkStateChanger;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+/**
+ * REST controller changing the state of all devices matching a filter.
+ */
+@RestController
+@ConditionalOnJdbcStorage
+@RequestMapping("/api/v1/devices")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Device State Change", description = "APIs for changing the state of many devices at once")
+public class DeviceStateChangeController {
+
+    private final DeviceBulkStateChanger deviceBulkStateChanger;
+
+    @Operation(summary = "Change the state of all devices matching the brand and state filters. Devices in use are skipped")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "State changed",
+                    content = @Content(schema = @Schema(implementation = DeviceStateChangeResultDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid state")
+    })
+    @PostMapping("/state-changes")
+    public ResponseEntity<DeviceStateChangeResultDTO> changeState(
+            @Valid @RequestBody DeviceStateChangeDTO stateChange) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Request to change state of {} devices in state {} to {}", stateChange.getBrand(),
+                    stateChange.getState(), stateChange.getTargetState());
+        }
+        DeviceFilter filter = DeviceFilter.builder()
+                .brand(StringUtils.trimToNull(stateChange.getBrand()))
+                .state(Optional.ofNullable(StringUtils.trimToNull(stateChange.getState()))
+                        .map(String::toUpperCase)
+                        .map(DeviceState::valueOf)
+                        .orElse(null))
+                .build();
+        BulkStateChangeResult result = deviceBulkStateChanger.changeState(filter,
+                DeviceState.valueOf(stateChange.getTargetState().toUpperCase()));
+        return ResponseEntity.ok(DeviceStateChangeResultDTO.builder()
+                .affected(result.affected())
+                .skipped(result.skipped())
+                .build());
+    }
+}
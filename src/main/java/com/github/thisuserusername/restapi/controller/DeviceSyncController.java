@@ -0,0 +1,87 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.dto.DeviceChangesDTO;
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.service.DeviceChanges;
+import com.github.thisuserusername.restapi.service.DeviceSyncService;
+import com.github.thisuserusername.restapi.service.SyncWatermark;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * REST controller serving incremental device changes to clients keeping a local copy of the inventory.
+ */
+@RestController
+@ConditionalOnJdbcStorage
+@RequestMapping("/api/v1/devices")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Device Sync", description = "APIs for synchronizing local copies of the device inventory")
+public class DeviceSyncController {
+
+    static final int MAX_CHANGES = 1000;
+
+    private final DeviceSyncService deviceSyncService;
+    private final RepresentationModelAssembler<Device, DeviceDTO> deviceModelAssembler;
+
+    @Operation(summary = "Get the devices created, modified or removed since a watermark. Without a watermark, "
+            + "all devices are returned. Follow the returned watermark until hasMore is false")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes retrieved",
+                    content = @Content(schema = @Schema(implementation = DeviceChangesDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid watermark"),
+            @ApiResponse(responseCode = "410", description = "Watermark expired, resync without a watermark")
+    })
+    @GetMapping("/changes")
+    @Valid
+    public ResponseEntity<DeviceChangesDTO> getChanges(
+            @Parameter(description = "Watermark returned by the previous sync")
+            @RequestParam(required = false) String since,
+            @Min(1) @Max(MAX_CHANGES) @RequestParam(defaultValue = "500") int size) {
+        LOG.debug("Request to get device changes since {}", since);
+        SyncWatermark watermark;
+        try {
+            watermark = StringUtils.isBlank(since) ? SyncWatermark.ORIGIN : SyncWatermark.decode(since);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        if (deviceSyncService.isExpired(watermark)) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Watermark expired, resync without a watermark");
+        }
+
+        DeviceChanges changes = deviceSyncService.getChangesSince(watermark, size);
+        String next = changes.watermark().encode();
+        DeviceChangesDTO model = DeviceChangesDTO.builder()
+                .devices(changes.devices().stream().map(deviceModelAssembler::toModel).toList())
+                .deleted(changes.deletedIds())
+                .watermark(next)
+                .hasMore(changes.hasMore())
+                .build();
+        model.add(linkTo(methodOn(DeviceSyncController.class).getChanges(since, size)).withSelfRel());
+        if (changes.hasMore()) {
+            model.add(linkTo(methodOn(DeviceSyncController.class).getChanges(next, size)).withRel("next"));
+        }
+        return ResponseEntity.ok(model);
+    }
+}
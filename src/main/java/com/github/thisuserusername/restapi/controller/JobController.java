@@ -0,0 +1,125 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.dto.JobDTO;
+import com.github.thisuserusername.restapi.dto.JobRequestDTO;
+import com.github.thisuserusername.restapi.job.Job;
+import com.github.thisuserusername.restapi.job.JobQueueFullException;
+import com.github.thisuserusername.restapi.job.JobRunner;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * REST controller submitting and tracking long-running background jobs.
+ */
+@RestController
+@ConditionalOnJdbcStorage
+@RequestMapping("/api/v1/jobs")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Jobs", description = "APIs for running long device operations in the background")
+public class JobController {
+
+    private final JobRunner jobRunner;
+
+    @Operation(summary = "Submit a background job. Types: bulk-state-change (brand, state, targetState), archive (threshold)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job accepted",
+                    content = @Content(schema = @Schema(implementation = JobDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown job type or invalid parameters"),
+            @ApiResponse(responseCode = "503", description = "Job queue is full, retry after the Retry-After delay")
+    })
+    @PostMapping
+    public ResponseEntity<JobDTO> submitJob(
+            @Valid @RequestBody JobRequestDTO request) {
+        LOG.debug("Request to submit {} job", request.getType());
+        Job job;
+        try {
+            job = jobRunner.submit(request.getType(), Optional.ofNullable(request.getParameters()).orElse(Map.of()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (JobQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                    .build();
+        }
+        JobDTO model = toModel(job);
+        return ResponseEntity.accepted()
+                .location(model.getRequiredLink("self").toUri())
+                .body(model);
+    }
+
+    @Operation(summary = "Get the status and progress of a job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job found",
+                    content = @Content(schema = @Schema(implementation = JobDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<JobDTO> getJob(
+            @Min(1) @Parameter(description = "Job ID") @PathVariable Long id) {
+        LOG.debug("Request to get job {}", id);
+        return jobRunner.getJob(id)
+                .map(job -> ResponseEntity.ok(toModel(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Cancel a job. A running job stops after its current chunk")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Cancellation accepted",
+                    content = @Content(schema = @Schema(implementation = JobDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<JobDTO> cancelJob(
+            @Min(1) @Parameter(description = "Job ID") @PathVariable Long id) {
+        LOG.debug("Request to cancel job {}", id);
+        return jobRunner.cancel(id)
+                .map(job -> ResponseEntity.accepted().body(toModel(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private JobDTO toModel(Job job) {
+        JobDTO model = JobDTO.builder()
+                .id(job.id())
+                .type(job.type())
+                .status(job.status().name().toLowerCase())
+                .parameters(job.parameters())
+                .checkpoint(job.checkpoint())
+                .processed(job.processed())
+                .itemsPerSecond(job.throughput(LocalDateTime.now()))
+                .message(job.message())
+                .createdOn(format(job.createdOn()))
+                .startedOn(format(job.startedOn()))
+                .finishedOn(format(job.finishedOn()))
+                .build();
+        model.add(linkTo(methodOn(JobController.class).getJob(job.id())).withSelfRel());
+        return model;
+    }
+
+    private static String format(LocalDateTime time) {
+        return Optional.ofNullable(time).map(DateTimeFormatter.ISO_DATE_TIME::format).orElse(null);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.reactive.ReactiveDeviceRepository;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * Read-only device API on non-blocking database access. Requests release their servlet thread while waiting for
+ * the database, and streamed results are fetched only as fast as the client reads them.
+ */
+@RestController
+@RequestMapping("/api/v1/reactive/devices")
+@ConditionalOnProperty(prefix = "restapi.reactive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Tag(name = "Reactive Device Reads", description = "Non-blocking read-only device APIs")
+public class ReactiveDeviceController {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveDeviceRepository reactiveDeviceRepository;
+
+    @Operation(summary = "Get a device by ID")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<DeviceDTO>> getDevice(@Parameter(description = "Device ID") @PathVariable long id) {
+        return reactiveDeviceRepository.findById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Get a page of devices ordered by id, optionally filtered by brand and state")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DeviceDTO> getDevices(
+            @RequestParam(required = false) String brand,
+            @Pattern(regexp = "available|in_use|inactive") @RequestParam(required = false) String state,
+            @Min(0) @RequestParam(defaultValue = "0") int page,
+            @Min(1) @Max(MAX_PAGE_SIZE) @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) Boolean includeArchived) {
+        return reactiveDeviceRepository.findAll(filter(brand, state, includeArchived), page, size);
+    }
+
+    @Operation(summary = "Stream all devices ordered by id as newline-delimited JSON, optionally filtered by brand "
+            + "and state")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DeviceDTO> streamDevices(
+            @RequestParam(required = false) String brand,
+            @Pattern(regexp = "available|in_use|inactive") @RequestParam(required = false) String state,
+            @RequestParam(required = false) Boolean includeArchived) {
+        return reactiveDeviceRepository.streamAll(filter(brand, state, includeArchived));
+    }
+
+    private static DeviceFilter filter(String brand, String state, Boolean includeArchived) {
+        return DeviceFilter.builder()
+                .brand(StringUtils.trimToNull(brand))
+                .state(Optional.ofNullable(StringUtils.trimToNull(state))
+                        .map(String::toUpperCase)
+                        .map(DeviceState::valueOf)
+                        .orElse(null))
+                .includeArchived(Boolean.TRUE.equals(includeArchived))
+                .build();
+    }
+}
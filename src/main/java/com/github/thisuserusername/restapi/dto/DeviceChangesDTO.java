@@ -0,0 +1,18 @@
+package com.github.thisuserusername.restapi.dto;
+
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.List;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceChangesDTO extends RepresentationModel<DeviceChangesDTO> {
+    private List<DeviceDTO> devices;
+    private List<Long> deleted;
+    private String watermark;
+    private boolean hasMore;
+}
@@ -0,0 +1,14 @@
+package com.github.thisuserusername.restapi.dto;
+
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceHeartbeatDTO extends RepresentationModel<DeviceHeartbeatDTO> {
+    private Long deviceId;
+    private String lastSeen;
+}
@@ -0,0 +1,20 @@
+package com.github.thisuserusername.restapi.dto;
+
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceHistoryDTO extends RepresentationModel<DeviceHistoryDTO> {
+    private Long id;
+    private Long deviceId;
+    private String changeType;
+    private String name;
+    private String brand;
+    private String state;
+    private Long version;
+    private String changedOn;
+}
@@ -0,0 +1,14 @@
+package com.github.thisuserusername.restapi.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DevicePatchResultDTO {
+    private Long id;
+    private String outcome;
+    private String message;
+    private DeviceDTO device;
+}
@@ -0,0 +1,15 @@
+package com.github.thisuserusername.restapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceStateChangeDTO {
+    private String brand;
+    private @Pattern(regexp = "available|in_use|inactive") String state;
+    private @NotBlank(message = "Target state is required") @Pattern(regexp = "available|in_use|inactive") String targetState;
+}
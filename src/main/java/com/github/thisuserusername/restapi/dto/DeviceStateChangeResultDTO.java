@@ -0,0 +1,12 @@
+package com.github.thisuserusername.restapi.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceStateChangeResultDTO {
+    private long affected;
+    private long skipped;
+}
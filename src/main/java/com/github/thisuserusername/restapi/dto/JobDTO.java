@@ -0,0 +1,25 @@
+package com.github.thisuserusername.restapi.dto;
+
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.util.Map;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobDTO extends RepresentationModel<JobDTO> {
+    private Long id;
+    private String type;
+    private String status;
+    private Map<String, String> parameters;
+    private long checkpoint;
+    private long processed;
+    private double itemsPerSecond;
+    private String message;
+    private String createdOn;
+    private String startedOn;
+    private String finishedOn;
+}
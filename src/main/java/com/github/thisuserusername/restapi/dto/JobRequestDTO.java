@@ -0,0 +1,15 @@
+package com.github.thisuserusername.restapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobRequestDTO {
+    private @NotBlank(message = "Job type is required") String type;
+    private Map<String, String> parameters;
+}
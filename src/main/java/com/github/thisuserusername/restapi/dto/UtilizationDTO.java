@@ -0,0 +1,16 @@
+package com.github.thisuserusername.restapi.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UtilizationDTO {
+    private String key;
+    private String day;
+    private long availableSeconds;
+    private long inUseSeconds;
+    private long inactiveSeconds;
+    private double utilization;
+}
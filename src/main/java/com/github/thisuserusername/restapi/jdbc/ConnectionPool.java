@@ -0,0 +1,70 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import java.util.function.Supplier;
+
+/**
+ * The connection pools work is divided into, so that one kind of work cannot exhaust the connections of another.
+ * The pool of the current thread is chosen with {@link UsePool} or {@link #run(Runnable)} and picked up by the
+ * {@link PoolRoutingDataSource} when a connection is obtained, i.e. when a transaction begins.
+ */
+public enum ConnectionPool {
+
+    /**
+     * Short requests on single devices; the default.
+     */
+    INTERACTIVE,
+
+    /**
+     * Requests reading or writing many devices, such as device pages and bulk changes.
+     */
+    BULK,
+
+    /**
+     * Scheduled tasks and background jobs.
+     */
+    BACKGROUND;
+
+    private static final ThreadLocal<ConnectionPool> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return the pool connections of the current thread are taken from
+     */
+    public static ConnectionPool current() {
+        ConnectionPool current = CURRENT.get();
+        return current == null ? INTERACTIVE : current;
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Calls the action with connections taken from this pool, restoring the previous pool afterwards.
+     */
+    public <T> T call(Supplier<T> action) {
+        ConnectionPool previous = select(this);
+        try {
+            return action.get();
+        } finally {
+            select(previous);
+        }
+    }
+
+    /**
+     * Sets the pool of the current thread, {@code null} for the default.
+     *
+     * @return the previously set pool, {@code null} if none was set
+     */
+    static ConnectionPool select(ConnectionPool pool) {
+        ConnectionPool previous = CURRENT.get();
+        if (pool == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(pool);
+        }
+        return previous;
+    }
+}
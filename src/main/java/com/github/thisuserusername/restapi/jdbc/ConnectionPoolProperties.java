@@ -0,0 +1,40 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link ConnectionPool}s. Settings not listed here, such as the idle timeout and driver
+ * properties, are taken from {@code spring.datasource.hikari} for every pool.
+ *
+ * @param enabled whether the application {@code DataSource} is split into the pools; otherwise all work shares
+ *                the single pool configured under {@code spring.datasource.hikari}
+ */
+@ConfigurationProperties("restapi.jdbc.pools")
+public record ConnectionPoolProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue Pool interactive,
+        @DefaultValue Pool bulk,
+        @DefaultValue Pool background) {
+
+    public Pool of(ConnectionPool pool) {
+        return switch (pool) {
+            case INTERACTIVE -> interactive;
+            case BULK -> bulk;
+            case BACKGROUND -> background;
+        };
+    }
+
+    /**
+     * @param maximumSize       maximum number of connections
+     * @param minimumIdle       number of idle connections kept open
+     * @param connectionTimeout time to wait for a free connection before the request fails
+     */
+    public record Pool(
+            @DefaultValue("5") int maximumSize,
+            @DefaultValue("1") int minimumIdle,
+            @DefaultValue("30s") Duration connectionTimeout) {
+    }
+}
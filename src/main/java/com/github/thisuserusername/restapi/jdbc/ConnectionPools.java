@@ -0,0 +1,53 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * One Hikari pool per {@link ConnectionPool}, each with its own size and connection timeout. Every pool publishes
+ * the {@code hikaricp.connections.*} metrics tagged with its name, so waiting for connections shows up per pool.
+ */
+public class ConnectionPools implements AutoCloseable {
+
+    private final Map<ConnectionPool, HikariDataSource> pools = new EnumMap<>(ConnectionPool.class);
+
+    /**
+     * @param factory       creates a data source with the settings shared by all pools
+     * @param meterRegistry registry of the pool metrics, {@code null} to publish none
+     */
+    public ConnectionPools(ConnectionPoolProperties properties, Supplier<HikariDataSource> factory,
+                           MeterRegistry meterRegistry) {
+        for (ConnectionPool pool : ConnectionPool.values()) {
+            ConnectionPoolProperties.Pool settings = properties.of(pool);
+            HikariDataSource dataSource = factory.get();
+            dataSource.setPoolName(pool.name().toLowerCase(Locale.ROOT));
+            dataSource.setMaximumPoolSize(settings.maximumSize());
+            dataSource.setMinimumIdle(Math.min(settings.minimumIdle(), settings.maximumSize()));
+            dataSource.setConnectionTimeout(settings.connectionTimeout().toMillis());
+            if (meterRegistry != null) {
+                dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            }
+            pools.put(pool, dataSource);
+        }
+    }
+
+    public HikariDataSource get(ConnectionPool pool) {
+        return pools.get(pool);
+    }
+
+    public Map<ConnectionPool, HikariDataSource> asMap() {
+        return Collections.unmodifiableMap(pools);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * {@link DataSource} decorator passing connection acquisitions and statement executions through a
+ * {@link FaultInjector} first. Injected statement latency is spent while holding the connection, like a lock wait,
+ * so slow statements exhaust the pools the way they would in production.
+ */
+public class FaultInjectingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> PREPARE_METHODS = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final FaultInjector faultInjector;
+
+    public FaultInjectingDataSource(DataSource targetDataSource, FaultInjector faultInjector) {
+        super(targetDataSource);
+        this.faultInjector = faultInjector;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        faultInjector.beforeAcquire();
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        faultInjector.beforeAcquire();
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = FaultInjectingDataSource.invoke(target, method, args);
+            if (PREPARE_METHODS.contains(method.getName())) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class : PreparedStatement.class;
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler((Statement) result, (String) args[0]));
+            }
+            if ("createStatement".equals(method.getName())) {
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                        new StatementHandler((Statement) result, null));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private String batchSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("addBatch".equals(name) && args != null && args.length == 1) {
+                batchSql = (String) args[0];
+            }
+            if (EXECUTE_METHODS.contains(name)) {
+                String sql = preparedSql != null ? preparedSql
+                        : args != null && args.length > 0 && args[0] instanceof String s ? s
+                        : batchSql;
+                if (sql != null) {
+                    faultInjector.beforeStatement(sql);
+                }
+            }
+            return FaultInjectingDataSource.invoke(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings of the {@link FaultInjector}, for reproducing a slow or failing database outside production.
+ *
+ * @param enabled    whether the application {@code DataSource} is wrapped in a {@link FaultInjectingDataSource};
+ *                   the faults below are injected once the application is ready, start-up runs without them
+ * @param acquire    fault of every connection acquisition
+ * @param statements faults per statement type ({@code select}, {@code insert}, {@code update}, {@code delete},
+ *                   {@code merge} or {@code other})
+ */
+@ConfigurationProperties("restapi.jdbc.faults")
+public record FaultInjectionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue Fault acquire,
+        @DefaultValue Map<String, Fault> statements) {
+
+    /**
+     * Injected latency, log-normally distributed with the given median and 99th percentile, and failure rate.
+     *
+     * @param median    median injected latency, {@code 0} for none
+     * @param p99       99th percentile of the injected latency, at least the median
+     * @param errorRate share of the operations failing with a {@link java.sql.SQLTransientException}
+     */
+    public record Fault(
+            @DefaultValue("0ms") Duration median,
+            @DefaultValue("0ms") Duration p99,
+            @DefaultValue("0") double errorRate) {
+
+        public static final Fault NONE = new Fault(Duration.ZERO, Duration.ZERO, 0);
+
+        private static final double Z_99 = 2.326;
+
+        /**
+         * @return a latency drawn from the distribution, in nanoseconds
+         */
+        public long sampleNanos(double gaussian) {
+            if (median.isZero()) {
+                return 0;
+            }
+            double sigma = p99.compareTo(median) > 0
+                    ? Math.log((double) p99.toNanos() / median.toNanos()) / Z_99
+                    : 0;
+            return (long) (median.toNanos() * Math.exp(sigma * gaussian));
+        }
+    }
+}
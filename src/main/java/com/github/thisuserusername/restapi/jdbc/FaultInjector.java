@@ -0,0 +1,83 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import com.github.thisuserusername.restapi.jdbc.FaultInjectionProperties.Fault;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delays and fails connection acquisitions and statements of a {@link FaultInjectingDataSource} according to the
+ * current faults. Nothing is injected until {@link #inject} is called, so that start-up is not affected; tests
+ * switch between scenarios at runtime.
+ */
+public class FaultInjector {
+
+    private final LongAdder injectedErrors = new LongAdder();
+    private volatile Faults faults;
+
+    /**
+     * Starts injecting the given faults, replacing the previous ones. Statement types without a fault run
+     * unchanged.
+     */
+    public void inject(Fault acquire, Map<String, Fault> statements) {
+        this.faults = new Faults(acquire, Map.copyOf(statements));
+    }
+
+    public void clear() {
+        this.faults = null;
+    }
+
+    /**
+     * @return the number of operations failed on purpose so far
+     */
+    public long injectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    void beforeAcquire() throws SQLException {
+        Faults current = faults;
+        if (current != null && apply(current.acquire())) {
+            throw new SQLTransientConnectionException("Injected connection acquisition failure");
+        }
+    }
+
+    void beforeStatement(String sql) throws SQLException {
+        Faults current = faults;
+        if (current == null) {
+            return;
+        }
+        String type = SqlShapes.typeOf(sql);
+        if (apply(current.statements().getOrDefault(type, Fault.NONE))) {
+            throw new SQLTransientException("Injected " + type + " statement failure");
+        }
+    }
+
+    /**
+     * @return whether the operation has to fail, after sleeping for the injected latency
+     */
+    private boolean apply(Fault fault) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = fault.sampleNanos(random.nextGaussian());
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientException("Interrupted during injected latency", e);
+            }
+        }
+        if (random.nextDouble() < fault.errorRate()) {
+            injectedErrors.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private record Faults(Fault acquire, Map<String, Fault> statements) {
+    }
+}
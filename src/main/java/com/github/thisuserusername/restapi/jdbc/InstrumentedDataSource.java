@@ -0,0 +1,181 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link DataSource} decorator timing every executed statement through a {@link QueryRecorder}.
+ * Connections, statements and result sets are wrapped in JDK proxies which only intercept execution,
+ * bind and row iteration methods and pass everything else through.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Set<String> PREPARE_METHODS = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final QueryRecorder queryRecorder;
+
+    public InstrumentedDataSource(DataSource targetDataSource, QueryRecorder queryRecorder) {
+        super(targetDataSource);
+        this.queryRecorder = queryRecorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            if (PREPARE_METHODS.contains(method.getName())) {
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class : PreparedStatement.class;
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler((Statement) result, (String) args[0]));
+            }
+            if ("createStatement".equals(method.getName())) {
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                        new StatementHandler((Statement) result, null));
+            }
+            return result;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final List<Object> binds;
+        private String batchSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.binds = preparedSql != null && queryRecorder.sampleBinds() ? new ArrayList<>() : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (binds != null && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer index) {
+                while (binds.size() < index) {
+                    binds.add(null);
+                }
+                binds.set(index - 1, args[1]);
+            }
+            if ("addBatch".equals(name) && args != null && args.length == 1) {
+                batchSql = (String) args[0];
+            }
+            if (!EXECUTE_METHODS.contains(name)) {
+                return InstrumentedDataSource.invoke(target, method, args);
+            }
+
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String s ? s
+                    : batchSql;
+            long start = System.nanoTime();
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            long elapsed = System.nanoTime() - start;
+            if (sql == null) {
+                return result;
+            }
+            queryRecorder.record(sql, elapsed, writtenRows(result), binds == null ? null : List.copyOf(binds));
+            if (result instanceof ResultSet resultSet) {
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                        new ResultSetHandler(resultSet, sql));
+            }
+            return result;
+        }
+
+        private long writtenRows(Object result) {
+            if (result instanceof Integer count) {
+                return Math.max(count, 0);
+            }
+            if (result instanceof Long count) {
+                return Math.max(count, 0);
+            }
+            if (result instanceof int[] counts) {
+                long total = 0;
+                for (int count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            if (result instanceof long[] counts) {
+                long total = 0;
+                for (long count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            return -1;
+        }
+    }
+
+    private class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final String sql;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                rows++;
+            } else if ("close".equals(method.getName()) && !recorded) {
+                recorded = true;
+                queryRecorder.recordRows(sql, rows);
+            }
+            return result;
+        }
+    }
+}
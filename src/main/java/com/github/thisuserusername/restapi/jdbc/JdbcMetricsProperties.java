@@ -0,0 +1,23 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the JDBC statement instrumentation.
+ *
+ * @param enabled            whether the application {@code DataSource} is instrumented
+ * @param slowQueryThreshold statements running longer than this are logged
+ * @param bindSampleRate     share of statements whose bind parameters are captured for the slow query log
+ * @param maxShapes          number of distinct query shapes tracked as metrics, further shapes are tagged
+ *                           {@code other}
+ */
+@ConfigurationProperties("restapi.jdbc")
+public record JdbcMetricsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("500ms") Duration slowQueryThreshold,
+        @DefaultValue("0.1") double bindSampleRate,
+        @DefaultValue("500") int maxShapes) {
+}
@@ -0,0 +1,24 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections from the {@link ConnectionPool} selected on the current thread.
+ */
+public class PoolRoutingDataSource extends AbstractRoutingDataSource {
+
+    public PoolRoutingDataSource(Map<ConnectionPool, ? extends DataSource> pools) {
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(ConnectionPool.INTERACTIVE));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ConnectionPool.current();
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records executed JDBC statements as per-shape latency histograms ({@code jdbc.query}) and row count
+ * distributions ({@code jdbc.query.rows}), logs statements slower than the configured threshold and notifies the
+ * {@link StatementListener}s.
+ */
+@Slf4j(topic = "com.github.thisuserusername.restapi.jdbc.SlowQueryLog")
+public class QueryRecorder {
+
+    private static final String OTHER_SHAPE = "other";
+
+    private final JdbcMetricsProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final long slowQueryThresholdNanos;
+    private final Map<String, Meters> metersBySql = new ConcurrentHashMap<>();
+    private final Map<String, Meters> metersByShape = new ConcurrentHashMap<>();
+    private final List<StatementListener> listeners;
+
+    public QueryRecorder(JdbcMetricsProperties properties, MeterRegistry meterRegistry,
+                         List<StatementListener> listeners) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThresholdNanos = properties.slowQueryThreshold().toNanos();
+        this.listeners = List.copyOf(listeners);
+    }
+
+    /**
+     * @return whether the bind parameters of a new statement should be captured
+     */
+    public boolean sampleBinds() {
+        return ThreadLocalRandom.current().nextDouble() < properties.bindSampleRate();
+    }
+
+    /**
+     * Records the execution of a statement.
+     *
+     * @param rows  number of rows written, negative if unknown at execution time
+     * @param binds captured bind parameters, or {@code null} if the statement was not sampled
+     */
+    public void record(String sql, long elapsedNanos, long rows, List<Object> binds) {
+        Meters meters = metersFor(sql);
+        meters.latency().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            meters.rows().record(rows);
+        }
+        if (elapsedNanos >= slowQueryThresholdNanos && LOG.isWarnEnabled()) {
+            LOG.warn("Slow query ({} ms): {}{}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), sql,
+                    binds == null ? "" : " binds=" + binds);
+        }
+        for (StatementListener listener : listeners) {
+            listener.executed(sql);
+        }
+    }
+
+    /**
+     * Records the number of rows read from the result set of a query.
+     */
+    public void recordRows(String sql, long rows) {
+        metersFor(sql).rows().record(rows);
+    }
+
+    private Meters metersFor(String sql) {
+        Meters meters = metersBySql.get(sql);
+        if (meters != null) {
+            return meters;
+        }
+        String shape = SqlShapes.shapeOf(sql);
+        if (!metersByShape.containsKey(shape) && metersByShape.size() >= properties.maxShapes()) {
+            shape = OTHER_SHAPE;
+        }
+        meters = metersByShape.computeIfAbsent(shape, s -> createMeters(s, SqlShapes.typeOf(sql)));
+        if (metersBySql.size() < properties.maxShapes() * 4) {
+            metersBySql.put(sql, meters);
+        }
+        return meters;
+    }
+
+    private Meters createMeters(String shape, String type) {
+        String statementType = OTHER_SHAPE.equals(shape) ? OTHER_SHAPE : type;
+        Timer latency = Timer.builder("jdbc.query")
+                .description("Execution time of JDBC statements per query shape")
+                .tag("shape", shape)
+                .tag("type", statementType)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        DistributionSummary rows = DistributionSummary.builder("jdbc.query.rows")
+                .description("Rows read or written by JDBC statements per query shape")
+                .tag("shape", shape)
+                .tag("type", statementType)
+                .register(meterRegistry);
+        return new Meters(shape, latency, rows);
+    }
+
+    private record Meters(String shape, Timer latency, DistributionSummary rows) {
+    }
+}
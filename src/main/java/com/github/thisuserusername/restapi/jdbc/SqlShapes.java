@@ -0,0 +1,44 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL statements into shapes: literals and bind markers become {@code ?}, {@code IN} lists collapse
+ * into a single marker and whitespace is squeezed, so that statements differing only in values share one shape.
+ */
+public final class SqlShapes {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlShapes() {
+    }
+
+    public static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMERIC_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return the statement type of a SQL string, e.g. {@code select}, {@code insert}, {@code update},
+     * {@code delete}, or {@code other}
+     */
+    public static String typeOf(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "with", "values" -> "select";
+            case "insert", "update", "delete", "merge" -> keyword;
+            default -> "other";
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+/**
+ * Notified of every statement executed through an {@link InstrumentedDataSource}, on the executing thread.
+ * Beans of this type are picked up by the {@link QueryRecorder}; a batch counts as one statement.
+ */
+@FunctionalInterface
+public interface StatementListener {
+
+    void executed(String sql);
+}
@@ -0,0 +1,20 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Takes the connections of the annotated method, or of all methods of the annotated class, from the given pool.
+ * The pool is chosen before a transaction of the method begins; a method joining a running transaction keeps
+ * the connection of that transaction.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UsePool {
+
+    ConnectionPool value();
+}
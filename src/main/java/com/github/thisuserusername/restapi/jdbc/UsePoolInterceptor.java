@@ -0,0 +1,39 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Runs invocations of methods annotated with {@link UsePool} on the annotated pool. Must be ordered before the
+ * transaction interceptor, since the connection is obtained when the transaction begins.
+ */
+public class UsePoolInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        UsePool usePool = findAnnotation(invocation);
+        if (usePool == null) {
+            return invocation.proceed();
+        }
+        ConnectionPool previous = ConnectionPool.select(usePool.value());
+        try {
+            return invocation.proceed();
+        } finally {
+            ConnectionPool.select(previous);
+        }
+    }
+
+    private static UsePool findAnnotation(MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() == null ? null : AopUtils.getTargetClass(invocation.getThis());
+        Method method = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+        UsePool usePool = AnnotatedElementUtils.findMergedAnnotation(method, UsePool.class);
+        if (usePool == null && targetClass != null) {
+            usePool = AnnotatedElementUtils.findMergedAnnotation(targetClass, UsePool.class);
+        }
+        return usePool;
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.thisuserusername.restapi.job;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.service.DeviceArchiveProperties;
+import com.github.thisuserusername.restapi.service.DeviceArchiver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Archives devices which have been {@code INACTIVE} since before the {@code threshold} parameter, by default
+ * {@code restapi.archive.inactive-for} before submission. The checkpoint is the number of archived devices.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@RequiredArgsConstructor
+public class ArchiveJobHandler implements JobHandler {
+
+    static final String TYPE = "archive";
+
+    private final DeviceArchiver deviceArchiver;
+    private final DeviceArchiveProperties properties;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Map<String, String> prepare(Map<String, String> parameters) {
+        Map<String, String> prepared = new HashMap<>(parameters);
+        prepared.put("threshold", threshold(parameters).toString());
+        return prepared;
+    }
+
+    @Override
+    public JobStep step(Map<String, String> parameters, long checkpoint) {
+        int moved = deviceArchiver.archiveChunk(threshold(parameters));
+        return new JobStep(checkpoint + moved, moved, moved < properties.chunkSize());
+    }
+
+    private LocalDateTime threshold(Map<String, String> parameters) {
+        String threshold = parameters.get("threshold");
+        if (threshold == null) {
+            return LocalDateTime.now().minus(properties.inactiveFor());
+        }
+        try {
+            return LocalDateTime.parse(threshold);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid threshold: " + threshold);
+        }
+    }
+}
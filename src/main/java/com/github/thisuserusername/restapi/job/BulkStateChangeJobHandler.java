@@ -0,0 +1,85 @@
+package com.github.thisuserusername.restapi.job;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.service.BulkStateChangeResult;
+import com.github.thisuserusername.restapi.service.DeviceBulkProperties;
+import com.github.thisuserusername.restapi.service.DeviceBulkStateChanger;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import com.github.thisuserusername.restapi.service.DeviceIdRange;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Changes the state of all devices matching the {@code brand} and {@code state} parameters to {@code targetState},
+ * walking the matching id range with the {@link DeviceBulkStateChanger}. The checkpoint is the last processed id.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@RequiredArgsConstructor
+public class BulkStateChangeJobHandler implements JobHandler {
+
+    static final String TYPE = "bulk-state-change";
+
+    private final DeviceBulkStateChanger deviceBulkStateChanger;
+    private final DeviceBulkProperties properties;
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Map<String, String> prepare(Map<String, String> parameters) {
+        DeviceFilter filter = filter(parameters);
+        targetState(parameters);
+        Map<String, String> prepared = new HashMap<>(parameters);
+        Optional<DeviceIdRange> range = deviceBulkStateChanger.matchingIds(filter);
+        prepared.put("minId", String.valueOf(range.map(DeviceIdRange::min).orElse(1L)));
+        prepared.put("maxId", String.valueOf(range.map(DeviceIdRange::max).orElse(0L)));
+        return prepared;
+    }
+
+    @Override
+    public JobStep step(Map<String, String> parameters, long checkpoint) {
+        long maxId = Long.parseLong(parameters.get("maxId"));
+        long lo = Math.max(checkpoint + 1, Long.parseLong(parameters.get("minId")));
+        if (lo > maxId) {
+            return new JobStep(checkpoint, 0, true);
+        }
+        long hi = Math.min(lo + properties.chunkSize() - 1, maxId);
+        BulkStateChangeResult result = deviceBulkStateChanger.changeChunk(filter(parameters),
+                targetState(parameters), lo, hi);
+        return new JobStep(hi, result.affected(), hi == maxId);
+    }
+
+    private static DeviceFilter filter(Map<String, String> parameters) {
+        return DeviceFilter.builder()
+                .brand(StringUtils.trimToNull(parameters.get("brand")))
+                .state(Optional.ofNullable(StringUtils.trimToNull(parameters.get("state")))
+                        .map(BulkStateChangeJobHandler::deviceState)
+                        .orElse(null))
+                .build();
+    }
+
+    private static DeviceState targetState(Map<String, String> parameters) {
+        String targetState = StringUtils.trimToNull(parameters.get("targetState"));
+        if (targetState == null) {
+            throw new IllegalArgumentException("Parameter targetState is required");
+        }
+        return deviceState(targetState);
+    }
+
+    private static DeviceState deviceState(String state) {
+        try {
+            return DeviceState.valueOf(state.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid device state: " + state);
+        }
+    }
+}
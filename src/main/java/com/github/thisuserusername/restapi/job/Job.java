@@ -0,0 +1,28 @@
+package com.github.thisuserusername.restapi.job;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * State of a background job as persisted in the {@code jobs} table.
+ *
+ * @param checkpoint      handler specific position up to which the job has been processed
+ * @param processed       number of items processed so far
+ * @param cancelRequested whether the job should stop at its next checkpoint
+ */
+public record Job(long id, String type, JobStatus status, Map<String, String> parameters, long checkpoint,
+                  long processed, boolean cancelRequested, String message, LocalDateTime createdOn,
+                  LocalDateTime startedOn, LocalDateTime finishedOn) {
+
+    /**
+     * @return the average number of items processed per second since the job started, or 0 if it has not started
+     */
+    public double throughput(LocalDateTime now) {
+        if (startedOn == null) {
+            return 0;
+        }
+        long millis = Duration.between(startedOn, finishedOn != null ? finishedOn : now).toMillis();
+        return millis <= 0 ? 0 : processed * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.thisuserusername.restapi.job;
+
+import java.util.Map;
+
+/**
+ * Implementation of one type of background job, processed in chunks by the {@link JobRunner}.
+ */
+public interface JobHandler {
+
+    /**
+     * @return the job type handled, as given on submission
+     */
+    String type();
+
+    /**
+     * Validates the parameters of a submitted job and pins anything which must not change when the job is resumed,
+     * like the time or id range it works on.
+     *
+     * @return the parameters the job is persisted and run with
+     * @throws IllegalArgumentException if the parameters are invalid
+     */
+    Map<String, String> prepare(Map<String, String> parameters);
+
+    /**
+     * Processes the chunk following {@code checkpoint}, which is 0 for a new job. Runs in the transaction
+     * persisting the returned checkpoint, so a resumed job continues exactly after the last committed chunk.
+     */
+    JobStep step(Map<String, String> parameters, long checkpoint);
+}
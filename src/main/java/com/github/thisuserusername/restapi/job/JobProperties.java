@@ -0,0 +1,25 @@
+package com.github.thisuserusername.restapi.job;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link JobRunner}.
+ *
+ * @param concurrency      maximum number of jobs running at the same time, each holding at most one connection;
+ *                         must be lower than the connection pool size
+ * @param queueCapacity    maximum number of jobs waiting for a free worker
+ * @param resumeOnStartup  whether unfinished jobs are resumed from their last checkpoint when the application starts
+ * @param shutdownTimeout  time running jobs get to finish their current chunk on shutdown
+ * @param retryAfter       time clients are asked to wait before submitting again when the queue is full
+ */
+@ConfigurationProperties("restapi.jobs")
+public record JobProperties(
+        @DefaultValue("2") int concurrency,
+        @DefaultValue("100") int queueCapacity,
+        @DefaultValue("true") boolean resumeOnStartup,
+        @DefaultValue("30s") Duration shutdownTimeout,
+        @DefaultValue("30s") Duration retryAfter) {
+}
@@ -0,0 +1,29 @@
+package com.github.thisuserusername.restapi.job;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a job is submitted while every worker is busy and the queue is full.
+ */
+public class JobQueueFullException extends RuntimeException {
+
+    private final long jobId;
+    private final Duration retryAfter;
+
+    public JobQueueFullException(long jobId, Duration retryAfter) {
+        super("Job queue is full, job " + jobId + " was not started");
+        this.jobId = jobId;
+        this.retryAfter = retryAfter;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    /**
+     * @return how long the client should wait before submitting again
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
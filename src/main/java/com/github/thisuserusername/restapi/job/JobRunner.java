@@ -0,0 +1,203 @@
+package com.github.thisuserusername.restapi.job;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs background jobs on a bounded pool of workers.
+ * <p>
+ * A job is processed chunk by chunk; every chunk commits together with the job's checkpoint, so a job interrupted
+ * by a shutdown or crash is resumed after the last committed chunk on the next start. Cancellation is checked
+ * between chunks. Jobs take their connections from the background pool and the number of workers is capped below
+ * its size, so jobs always leave connections for scheduled tasks.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class JobRunner implements DisposableBean {
+
+    private final JobProperties properties;
+    private final JobStore jobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, JobHandler> handlers;
+    private final ThreadPoolExecutor executor;
+    private volatile boolean stopping;
+
+    public JobRunner(JobProperties properties,
+                     JobStore jobStore,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     DataSource dataSource,
+                     List<JobHandler> handlers) {
+        ConnectionPool.BACKGROUND.run(() -> checkConcurrency(properties, dataSource));
+        this.properties = properties;
+        this.jobStore = jobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.handlers = handlers.stream().collect(Collectors.toMap(JobHandler::type, Function.identity()));
+        this.executor = new ThreadPoolExecutor(properties.concurrency(), properties.concurrency(), 0,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.queueCapacity()),
+                new CustomizableThreadFactory("job-"));
+    }
+
+    /**
+     * Persists a new job and queues it for execution.
+     *
+     * @return the queued job
+     * @throws IllegalArgumentException if the job type is unknown or its parameters are invalid
+     * @throws JobQueueFullException    if no worker is free and the queue is full; the job is kept as failed
+     */
+    public Job submit(String type, Map<String, String> parameters) {
+        JobHandler handler = handlers.get(type);
+        if (handler == null) {
+            throw new IllegalArgumentException("Unknown job type: " + type);
+        }
+        long id = jobStore.create(type, handler.prepare(parameters));
+        LOG.info("Submitted {} job {}", type, id);
+        if (!enqueue(id)) {
+            throw new JobQueueFullException(id, properties.retryAfter());
+        }
+        return jobStore.find(id).orElseThrow();
+    }
+
+    public Optional<Job> getJob(long id) {
+        return jobStore.find(id);
+    }
+
+    /**
+     * Cancels a job. A running job stops after its current chunk.
+     *
+     * @return the job, empty if it does not exist
+     */
+    public Optional<Job> cancel(long id) {
+        if (jobStore.cancel(id)) {
+            LOG.info("Requested cancellation of job {}", id);
+        }
+        return jobStore.find(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        if (!properties.resumeOnStartup()) {
+            return;
+        }
+        List<Long> unfinished = jobStore.findUnfinished();
+        if (!unfinished.isEmpty()) {
+            LOG.info("Resuming {} unfinished jobs", unfinished.size());
+            unfinished.forEach(this::enqueue);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(properties.shutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            LOG.warn("Jobs did not stop within {}, they resume from their last checkpoint", properties.shutdownTimeout());
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return whether the job was queued, {@code false} if the queue is full and the job failed
+     */
+    private boolean enqueue(long id) {
+        try {
+            executor.execute(() -> ConnectionPool.BACKGROUND.run(() -> run(id)));
+            return true;
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Job queue is full, rejecting job {}", id);
+            jobStore.finish(id, JobStatus.FAILED, "Job queue is full");
+            return false;
+        }
+    }
+
+    void run(long id) {
+        Optional<Job> job = jobStore.find(id);
+        if (job.isEmpty() || !jobStore.start(id)) {
+            return;
+        }
+        String type = job.get().type();
+        Map<String, String> parameters = job.get().parameters();
+        JobHandler handler = handlers.get(type);
+        if (handler == null) {
+            jobStore.finish(id, JobStatus.FAILED, "Unknown job type: " + type);
+            return;
+        }
+        Counter processedItems = Counter.builder("jobs.processed")
+                .description("Items processed by background jobs")
+                .tag("type", type)
+                .register(meterRegistry);
+        long checkpoint = job.get().checkpoint();
+        try {
+            while (true) {
+                if (jobStore.isCancelRequested(id)) {
+                    LOG.info("Cancelled {} job {} at checkpoint {}", type, id, checkpoint);
+                    jobStore.finish(id, JobStatus.CANCELLED, null);
+                    return;
+                }
+                if (stopping) {
+                    LOG.info("Suspended {} job {} at checkpoint {}", type, id, checkpoint);
+                    return;
+                }
+                long from = checkpoint;
+                JobStep step = transactionTemplate.execute(status -> {
+                    JobStep result = handler.step(parameters, from);
+                    jobStore.checkpoint(id, result.checkpoint(), result.processed());
+                    return result;
+                });
+                if (step == null) {
+                    throw new IllegalStateException("Job step returned no result");
+                }
+                processedItems.increment(step.processed());
+                checkpoint = step.checkpoint();
+                if (step.done()) {
+                    LOG.info("Finished {} job {}", type, id);
+                    jobStore.finish(id, JobStatus.SUCCEEDED, null);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Failed {} job {} at checkpoint {}", type, id, checkpoint, e);
+            jobStore.finish(id, JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private static void checkConcurrency(JobProperties properties, DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                if (properties.concurrency() >= poolSize) {
+                    throw new IllegalArgumentException("restapi.jobs.concurrency (" + properties.concurrency()
+                            + ") must be lower than the connection pool size (" + poolSize + ")");
+                }
+            }
+        } catch (SQLException e) {
+            LOG.debug("Could not determine the connection pool size", e);
+        }
+    }
+}
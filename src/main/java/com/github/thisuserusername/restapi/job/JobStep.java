@@ -0,0 +1,11 @@
+package com.github.thisuserusername.restapi.job;
+
+/**
+ * Result of processing one chunk of a job.
+ *
+ * @param checkpoint position to continue from with the next chunk
+ * @param processed  number of items processed in this chunk
+ * @param done       whether the job is complete
+ */
+public record JobStep(long checkpoint, long processed, boolean done) {
+}
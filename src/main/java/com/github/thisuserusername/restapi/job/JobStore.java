@@ -0,0 +1,153 @@
+package com.github.thisuserusername.restapi.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Persists jobs and their checkpoints in the {@code jobs} table.
+ */
+@Component
+@ConditionalOnJdbcStorage
+public class JobStore {
+
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    private static final String UNFINISHED = "('QUEUED', 'RUNNING')";
+
+    private static final String INSERT_SQL = "INSERT INTO %s.jobs (type, status, parameters, created_on) "
+            + "VALUES (?, 'QUEUED', ?, ?)";
+    private static final String SELECT_SQL = "SELECT id, type, status, parameters, checkpoint, processed, "
+            + "cancel_requested, message, created_on, started_on, finished_on FROM %s.jobs WHERE id = ?";
+    private static final String SELECT_UNFINISHED_SQL = "SELECT id FROM %s.jobs WHERE status IN " + UNFINISHED
+            + " ORDER BY id";
+    private static final String START_SQL = "UPDATE %s.jobs SET status = 'RUNNING', "
+            + "started_on = COALESCE(started_on, ?) WHERE id = ? AND status IN " + UNFINISHED;
+    private static final String CHECKPOINT_SQL = "UPDATE %s.jobs SET checkpoint = ?, processed = processed + ? "
+            + "WHERE id = ?";
+    private static final String CANCEL_REQUESTED_SQL = "SELECT cancel_requested FROM %s.jobs WHERE id = ?";
+    private static final String FINISH_SQL = "UPDATE %s.jobs SET status = ?, message = ?, finished_on = ? "
+            + "WHERE id = ? AND status IN " + UNFINISHED;
+    private static final String REQUEST_CANCEL_SQL = "UPDATE %s.jobs SET cancel_requested = TRUE "
+            + "WHERE id = ? AND status IN " + UNFINISHED;
+    private static final String CANCEL_QUEUED_SQL = "UPDATE %s.jobs SET status = 'CANCELLED', finished_on = ? "
+            + "WHERE id = ? AND status = 'QUEUED'";
+
+    private static final TypeReference<Map<String, String>> PARAMETERS_TYPE = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final String schema;
+    private final RowMapper<Job> rowMapper;
+
+    public JobStore(JdbcTemplate jdbcTemplate,
+                    ObjectMapper objectMapper,
+                    @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.schema = schema;
+        this.rowMapper = (rs, rowNum) -> new Job(rs.getLong("id"), rs.getString("type"),
+                JobStatus.valueOf(rs.getString("status")), readParameters(rs.getString("parameters")),
+                rs.getLong("checkpoint"), rs.getLong("processed"), rs.getBoolean("cancel_requested"),
+                rs.getString("message"), toLocalDateTime(rs.getTimestamp("created_on")),
+                toLocalDateTime(rs.getTimestamp("started_on")), toLocalDateTime(rs.getTimestamp("finished_on")));
+    }
+
+    public long create(String type, Map<String, String> parameters) {
+        String json = writeParameters(parameters);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL.formatted(schema), new String[]{"id"});
+            statement.setString(1, type);
+            statement.setString(2, json);
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            return statement;
+        }, keyHolder);
+        return Objects.requireNonNull(keyHolder.getKey()).longValue();
+    }
+
+    public Optional<Job> find(long id) {
+        return jdbcTemplate.query(SELECT_SQL.formatted(schema), rowMapper, id).stream().findFirst();
+    }
+
+    /**
+     * @return the ids of all queued and running jobs, oldest first
+     */
+    public List<Long> findUnfinished() {
+        return jdbcTemplate.queryForList(SELECT_UNFINISHED_SQL.formatted(schema), Long.class);
+    }
+
+    /**
+     * Marks a job as running.
+     *
+     * @return {@code false} if the job is already finished, e.g. because it was cancelled while queued
+     */
+    public boolean start(long id) {
+        return jdbcTemplate.update(START_SQL.formatted(schema), Timestamp.valueOf(LocalDateTime.now()), id) > 0;
+    }
+
+    public void checkpoint(long id, long checkpoint, long processed) {
+        jdbcTemplate.update(CHECKPOINT_SQL.formatted(schema), checkpoint, processed, id);
+    }
+
+    public boolean isCancelRequested(long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(CANCEL_REQUESTED_SQL.formatted(schema), Boolean.class, id));
+    }
+
+    public void finish(long id, JobStatus status, String message) {
+        jdbcTemplate.update(FINISH_SQL.formatted(schema), status.name(),
+                StringUtils.abbreviate(message, MAX_MESSAGE_LENGTH), Timestamp.valueOf(LocalDateTime.now()), id);
+    }
+
+    /**
+     * Cancels a queued job right away and asks a running job to stop at its next checkpoint.
+     *
+     * @return {@code false} if the job does not exist or is already finished
+     */
+    public boolean cancel(long id) {
+        if (jdbcTemplate.update(REQUEST_CANCEL_SQL.formatted(schema), id) == 0) {
+            return false;
+        }
+        jdbcTemplate.update(CANCEL_QUEUED_SQL.formatted(schema), Timestamp.valueOf(LocalDateTime.now()), id);
+        return true;
+    }
+
+    private String writeParameters(Map<String, String> parameters) {
+        try {
+            return objectMapper.writeValueAsString(parameters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid job parameters", e);
+        }
+    }
+
+    private Map<String, String> readParameters(String json) {
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, PARAMETERS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable job parameters: " + json, e);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.thisuserusername.restapi.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+
+/**
+ * Publishes the drops and the free queue capacity of the {@link DropCountingAsyncAppender}s attached to the root
+ * logger as {@code logging.async.dropped} and {@code logging.async.queue.remaining}.
+ */
+@Component
+public class AsyncAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext loggerContext)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders =
+                loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof DropCountingAsyncAppender appender) {
+                FunctionCounter.builder("logging.async.dropped", appender, DropCountingAsyncAppender::getDroppedCount)
+                        .tag("appender", appender.getName())
+                        .description("Log events dropped because the appender queue was full")
+                        .register(registry);
+                Gauge.builder("logging.async.queue.remaining", appender, DropCountingAsyncAppender::getRemainingCapacity)
+                        .tag("appender", appender.getName())
+                        .description("Free capacity of the appender queue")
+                        .register(registry);
+            }
+        }
+    }
+}
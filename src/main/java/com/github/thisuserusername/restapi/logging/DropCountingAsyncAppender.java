@@ -0,0 +1,31 @@
+package com.github.thisuserusername.restapi.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncAppender} counting the events it drops, either because the queue is filled beyond the discarding
+ * threshold and the event is below {@code WARN}, or because the queue is full and the appender never blocks.
+ * <p>
+ * The count is taken from the queue capacity right before the event is handed to the queue, so it is approximate
+ * while several threads log at the same time.
+ */
+public class DropCountingAsyncAppender extends AsyncAppender {
+
+    private final LongAdder dropped = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if ((remaining < getDiscardingThreshold() && isDiscardable(event)) || (isNeverBlock() && remaining == 0)) {
+            dropped.increment();
+        }
+        super.append(event);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
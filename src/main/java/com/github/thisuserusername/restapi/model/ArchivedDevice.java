@@ -0,0 +1,63 @@
+package com.github.thisuserusername.restapi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Device moved out of the {@code devices} table after being inactive for a long time.
+ */
+@Entity
+@Table(name = "devices_archive")
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ArchivedDevice {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Convert(converter = BrandConverter.class)
+    @Column(name = "brand_id", nullable = false)
+    private String brand;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DeviceState state;
+
+    @Column(name = "created_on", nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(name = "modified_on", nullable = false)
+    private LocalDateTime modifiedOn;
+
+    @Column(name = "last_seen")
+    private LocalDateTime lastSeen;
+
+    private Long version;
+
+    @Column(name = "archived_on", nullable = false)
+    private LocalDateTime archivedOn;
+
+    public Device toDevice() {
+        return Device.builder()
+                .id(id)
+                .name(name)
+                .brand(brand)
+                .state(state)
+                .createdOn(createdOn)
+                .modifiedOn(modifiedOn)
+                .lastSeen(lastSeen)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.thisuserusername.restapi.model;
+
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Maps brand names to the ids of the {@code brands} lookup table. Instantiated by Hibernate through the Spring
+ * bean container so that it can use the {@link BrandDictionary}.
+ */
+@Converter
+@RequiredArgsConstructor
+public class BrandConverter implements AttributeConverter<String, Integer> {
+
+    private final BrandDictionary brandDictionary;
+
+    @Override
+    public Integer convertToDatabaseColumn(String brand) {
+        return brand == null ? null : brandDictionary.register(brand);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer brandId) {
+        return brandId == null ? null : brandDictionary.nameOf(brandId);
+    }
+}
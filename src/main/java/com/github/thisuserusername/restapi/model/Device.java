@@ -29,7 +29,8 @@ public class Device {
     @Column(nullable = false)
     private String name;
 
-    @Column(nullable = false)
+    @Convert(converter = BrandConverter.class)
+    @Column(name = "brand_id", nullable = false)
     private String brand;
 
     @Enumerated(EnumType.STRING)
@@ -44,5 +45,8 @@ public class Device {
     @Column(name = "modified_on", nullable = false)
     private LocalDateTime modifiedOn;
 
+    @Column(name = "last_seen", insertable = false, updatable = false)
+    private LocalDateTime lastSeen;
+
     @Version Long version;
 }
\ No newline at end of file
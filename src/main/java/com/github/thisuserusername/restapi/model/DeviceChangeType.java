@@ -0,0 +1,11 @@
+package com.github.thisuserusername.restapi.model;
+
+/**
+ * Enumeration representing the kinds of changes recorded for a device.
+ */
+public enum DeviceChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    ARCHIVED
+}
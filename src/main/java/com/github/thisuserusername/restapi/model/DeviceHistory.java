@@ -0,0 +1,48 @@
+package com.github.thisuserusername.restapi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only history entry describing one committed change of a device.
+ */
+@Entity
+@Table(name = "device_history")
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class DeviceHistory {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "device_id", nullable = false)
+    private Long deviceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false)
+    private DeviceChangeType changeType;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private String brand;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DeviceState state;
+
+    @Column(name = "device_version")
+    private Long deviceVersion;
+
+    @Column(name = "changed_on", nullable = false)
+    private LocalDateTime changedOn;
+}
@@ -0,0 +1,28 @@
+package com.github.thisuserusername.restapi.reactive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the reactive read API.
+ *
+ * @param enabled        whether the reactive read API is available
+ * @param url            R2DBC URL of the device database, e.g. {@code r2dbc:postgresql://host:5432/restapi}
+ * @param initialSize    number of connections opened at startup
+ * @param maxSize        maximum number of connections
+ * @param maxAcquireTime time to wait for a free connection before the request fails
+ * @param fetchSize      number of rows requested from the database at a time while streaming
+ */
+@ConfigurationProperties("restapi.reactive")
+public record ReactiveDeviceProperties(
+        @DefaultValue("false") boolean enabled,
+        String url,
+        String username,
+        String password,
+        @DefaultValue("2") int initialSize,
+        @DefaultValue("10") int maxSize,
+        @DefaultValue("5s") Duration maxAcquireTime,
+        @DefaultValue("256") int fetchSize) {
+}
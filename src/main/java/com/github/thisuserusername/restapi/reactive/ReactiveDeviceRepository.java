@@ -0,0 +1,111 @@
+package com.github.thisuserusername.restapi.reactive;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking, read-only access to the {@code devices} and {@code devices_archive} tables over R2DBC.
+ * <p>
+ * Brand names are joined from the {@code brands} table instead of being looked up in the
+ * {@link com.github.thisuserusername.restapi.repository.BrandDictionary}, whose misses would block. Rows are only
+ * fetched as fast as they are consumed: the subscriber's demand reaches the driver, which reads the result
+ * {@code fetchSize} rows at a time.
+ */
+public class ReactiveDeviceRepository implements AutoCloseable {
+
+    private static final String SELECT_SQL = "SELECT d.id, d.name, b.name AS brand, d.state, d.created_on"
+            + " FROM %1$s.%2$s d JOIN %1$s.brands b ON b.id = d.brand_id";
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final String schema;
+    private final int fetchSize;
+
+    public ReactiveDeviceRepository(ConnectionPool connectionPool, String schema, int fetchSize) {
+        this.connectionPool = connectionPool;
+        this.databaseClient = DatabaseClient.create(connectionPool);
+        this.schema = schema;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Finds a device by id, falling back to the archive like {@code DeviceService.getDeviceById}.
+     */
+    public Mono<DeviceDTO> findById(long id) {
+        return databaseClient.sql(SELECT_SQL.formatted(schema, "devices") + " WHERE d.id = :id"
+                        + " UNION ALL " + SELECT_SQL.formatted(schema, "devices_archive") + " WHERE d.id = :id")
+                .bind("id", id)
+                .map(ReactiveDeviceRepository::toDevice)
+                .first();
+    }
+
+    /**
+     * Lists one page of the devices matching the filter, ordered by id.
+     */
+    public Flux<DeviceDTO> findAll(DeviceFilter filter, int page, int size) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String sql = select(filter, parameters) + " ORDER BY 1 LIMIT :limit OFFSET :offset";
+        parameters.put("limit", size);
+        parameters.put("offset", (long) page * size);
+        return databaseClient.sql(sql)
+                .bindValues(parameters)
+                .map(ReactiveDeviceRepository::toDevice)
+                .all();
+    }
+
+    /**
+     * Streams all devices matching the filter, ordered by id.
+     */
+    public Flux<DeviceDTO> streamAll(DeviceFilter filter) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String sql = select(filter, parameters) + " ORDER BY 1";
+        return databaseClient.sql(sql)
+                .bindValues(parameters)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveDeviceRepository::toDevice)
+                .all();
+    }
+
+    @Override
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    private String select(DeviceFilter filter, Map<String, Object> parameters) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        if (filter.brand() != null) {
+            where.append(" AND b.name = :brand");
+            parameters.put("brand", filter.brand());
+        }
+        if (filter.state() != null) {
+            where.append(" AND d.state = :state");
+            parameters.put("state", filter.state().name());
+        }
+        String sql = SELECT_SQL.formatted(schema, "devices") + where;
+        if (filter.includeArchived()) {
+            sql += " UNION ALL " + SELECT_SQL.formatted(schema, "devices_archive") + where;
+        }
+        return sql;
+    }
+
+    private static DeviceDTO toDevice(Readable row) {
+        LocalDateTime createdOn = row.get("created_on", LocalDateTime.class);
+        return DeviceDTO.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .brand(row.get("brand", String.class))
+                .state(row.get("state", String.class).toLowerCase())
+                .creationTime(createdOn == null ? null : createdOn.format(DateTimeFormatter.ISO_DATE_TIME))
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.thisuserusername.restapi.repository;
+
+import com.github.thisuserusername.restapi.model.ArchivedDevice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedDeviceRepository extends JpaRepository<ArchivedDevice, Long> {
+
+}
@@ -0,0 +1,26 @@
+package com.github.thisuserusername.restapi.repository;
+
+import java.util.Optional;
+
+/**
+ * Dictionary-encodes device brands as small integer ids.
+ * <p>
+ * Brands are few and never change once created, so implementations keep entries for the lifetime of the application.
+ */
+public interface BrandDictionary {
+
+    /**
+     * @return the id of an existing brand, or empty if no device ever had this brand
+     */
+    Optional<Integer> idOf(String name);
+
+    /**
+     * @throws IllegalStateException if no brand has this id
+     */
+    String nameOf(int id);
+
+    /**
+     * @return the id of the brand, creating the brand if it does not exist yet
+     */
+    int register(String name);
+}
@@ -0,0 +1,16 @@
+package com.github.thisuserusername.restapi.repository;
+
+import com.github.thisuserusername.restapi.model.DeviceHistory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DeviceHistoryRepository extends JpaRepository<DeviceHistory, Long> {
+
+    List<DeviceHistory> findByDeviceIdOrderByIdDesc(long deviceId, Limit limit);
+
+    List<DeviceHistory> findByDeviceIdAndIdLessThanOrderByIdDesc(long deviceId, long id, Limit limit);
+}
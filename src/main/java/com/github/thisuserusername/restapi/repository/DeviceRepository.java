@@ -1,10 +1,54 @@
 package com.github.thisuserusername.restapi.repository;
 
 import com.github.thisuserusername.restapi.model.Device;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, Long> {
 
-}
\ No newline at end of file
+    String ARCHIVE_UNION_FILTER = " WHERE (CAST(:brandId AS INTEGER) IS NULL OR brand_id = :brandId)"
+            + " AND (CAST(:state AS VARCHAR(20)) IS NULL OR state = :state)";
+
+    /**
+     * Lists hot and archived devices matching the optional brand id and state, ordered by id.
+     */
+    @Query(nativeQuery = true,
+            value = "SELECT id, name, brand_id, state, created_on, modified_on, last_seen, version"
+                    + " FROM {h-schema}devices" + ARCHIVE_UNION_FILTER
+                    + " UNION ALL"
+                    + " SELECT id, name, brand_id, state, created_on, modified_on, last_seen, version"
+                    + " FROM {h-schema}devices_archive" + ARCHIVE_UNION_FILTER
+                    + " ORDER BY id",
+            countQuery = "SELECT (SELECT COUNT(*) FROM {h-schema}devices" + ARCHIVE_UNION_FILTER + ")"
+                    + " + (SELECT COUNT(*) FROM {h-schema}devices_archive" + ARCHIVE_UNION_FILTER + ")")
+    Page<Device> findAllIncludingArchived(@Param("brandId") Integer brandId, @Param("state") String state,
+                                          Pageable pageable);
+
+    /**
+     * Lists the devices modified after the position {@code (modifiedOn, id)} and before {@code until},
+     * ordered by modification time and id.
+     */
+    @Query("SELECT d FROM Device d WHERE d.modifiedOn < :until"
+            + " AND (d.modifiedOn > :modifiedOn OR (d.modifiedOn = :modifiedOn AND d.id > :id))"
+            + " ORDER BY d.modifiedOn, d.id")
+    List<Device> findModifiedAfter(@Param("modifiedOn") LocalDateTime modifiedOn, @Param("id") long id,
+                                   @Param("until") LocalDateTime until, Limit limit);
+
+    /**
+     * Finds the lowest id of the devices with the given brand id and name, using the {@code devices_brand_name_idx}
+     * index.
+     */
+    @Query(nativeQuery = true,
+            value = "SELECT id FROM {h-schema}devices WHERE brand_id = :brandId AND name = :name ORDER BY id LIMIT 1")
+    Optional<Long> findIdByBrandIdAndName(@Param("brandId") int brandId, @Param("name") String name);
+}
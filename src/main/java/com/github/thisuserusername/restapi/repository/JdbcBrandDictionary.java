@@ -0,0 +1,167 @@
+package com.github.thisuserusername.restapi.repository;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link BrandDictionary} backed by the {@code brands} lookup table, cached in memory in both directions.
+ * <p>
+ * Brands are few and never change once created, so entries are kept for the lifetime of the application.
+ * The whole table is loaded on first use, brands created by other nodes afterwards are looked up on a miss.
+ * New brands are registered on the connection of the caller's transaction, so registering never waits for a second
+ * connection of a pool the caller may have exhausted. The brand then commits or rolls back together with the
+ * device that introduced it, and ids seen inside a transaction are only cached once it has committed.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class JdbcBrandDictionary implements BrandDictionary {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private static final String SELECT_ALL_SQL = "SELECT id, name FROM %s.brands";
+    private static final String SELECT_ID_SQL = "SELECT id FROM %s.brands WHERE name = ?";
+    private static final String SELECT_NAME_SQL = "SELECT name FROM %s.brands WHERE id = ?";
+    private static final String INSERT_SQL = "INSERT INTO %s.brands (name) VALUES (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final String selectAllSql;
+    private final String selectIdSql;
+    private final String selectNameSql;
+    private final String insertSql;
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public JdbcBrandDictionary(JdbcTemplate jdbcTemplate,
+                               DataSource dataSource,
+                               @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.selectAllSql = SELECT_ALL_SQL.formatted(schema);
+        this.selectIdSql = SELECT_ID_SQL.formatted(schema);
+        this.selectNameSql = SELECT_NAME_SQL.formatted(schema);
+        this.insertSql = INSERT_SQL.formatted(schema);
+    }
+
+    @Override
+    public Optional<Integer> idOf(String name) {
+        loadAll();
+        Integer id = idsByName.get(name);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        List<Integer> ids = jdbcTemplate.queryForList(selectIdSql, Integer.class, name);
+        ids.forEach(found -> cacheOnCommit(found, name));
+        return ids.stream().findFirst();
+    }
+
+    @Override
+    public String nameOf(int id) {
+        loadAll();
+        String name = namesById.get(id);
+        if (name != null) {
+            return name;
+        }
+        name = jdbcTemplate.queryForList(selectNameSql, String.class, id).stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Brand with ID " + id + " does not exist"));
+        cacheOnCommit(id, name);
+        return name;
+    }
+
+    @Override
+    public int register(String name) {
+        return idOf(name).orElseGet(() -> insert(name));
+    }
+
+    private int insert(String name) {
+        // the connection bound to the caller's transaction, or a new one in auto-commit mode outside of any
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            // a failed statement aborts the whole transaction on PostgreSQL unless it is rolled back to a savepoint
+            Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+                insert.setString(1, name);
+                insert.executeUpdate();
+                LOG.info("Registered new brand {}", name);
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                // registered concurrently by another request or node
+                if (savepoint != null) {
+                    connection.rollback(savepoint);
+                }
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            try (PreparedStatement select = connection.prepareStatement(selectIdSql)) {
+                select.setString(1, name);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    resultSet.next();
+                    int id = resultSet.getInt(1);
+                    cacheOnCommit(id, name);
+                    return id;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to register brand " + name, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void loadAll() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                jdbcTemplate.query(selectAllSql, rs -> cache(rs.getInt("id"), rs.getString("name")));
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * Caches a brand read inside a transaction only once the transaction has committed, since the transaction may
+     * have inserted the brand itself.
+     */
+    private void cacheOnCommit(int id, String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache(id, name);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache(id, name);
+            }
+        });
+    }
+
+    private void cache(int id, String name) {
+        idsByName.put(name, id);
+        namesById.put(id, name);
+    }
+}
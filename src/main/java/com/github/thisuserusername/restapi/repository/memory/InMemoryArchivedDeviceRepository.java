@@ -0,0 +1,169 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import com.github.thisuserusername.restapi.model.ArchivedDevice;
+import com.github.thisuserusername.restapi.repository.ArchivedDeviceRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * {@link ArchivedDeviceRepository} of the in-memory storage, which keeps no archive: the archiver needs SQL storage,
+ * so the archive is always empty and cannot be written to. Saving an archived device and fluent queries fail with an
+ * {@link InvalidDataAccessApiUsageException}; deletes have nothing to delete.
+ */
+public class InMemoryArchivedDeviceRepository implements ArchivedDeviceRepository {
+
+    private static final String NO_ARCHIVE = "The in-memory storage has no device archive";
+
+    @Override
+    public Optional<ArchivedDevice> findById(Long id) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return false;
+    }
+
+    @Override
+    public List<ArchivedDevice> findAll() {
+        return List.of();
+    }
+
+    @Override
+    public List<ArchivedDevice> findAllById(Iterable<Long> ids) {
+        return List.of();
+    }
+
+    @Override
+    public List<ArchivedDevice> findAll(Sort sort) {
+        return List.of();
+    }
+
+    @Override
+    public Page<ArchivedDevice> findAll(Pageable pageable) {
+        return Page.empty(pageable);
+    }
+
+    @Override
+    public <S extends ArchivedDevice> Optional<S> findOne(Example<S> example) {
+        return Optional.empty();
+    }
+
+    @Override
+    public <S extends ArchivedDevice> List<S> findAll(Example<S> example) {
+        return List.of();
+    }
+
+    @Override
+    public <S extends ArchivedDevice> List<S> findAll(Example<S> example, Sort sort) {
+        return List.of();
+    }
+
+    @Override
+    public <S extends ArchivedDevice> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return Page.empty(pageable);
+    }
+
+    @Override
+    public <S extends ArchivedDevice> long count(Example<S> example) {
+        return 0;
+    }
+
+    @Override
+    public <S extends ArchivedDevice> boolean exists(Example<S> example) {
+        return false;
+    }
+
+    @Override
+    public <S extends ArchivedDevice, R> R findBy(Example<S> example,
+                                                 Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw new InvalidDataAccessApiUsageException(NO_ARCHIVE);
+    }
+
+    @Override
+    public long count() {
+        return 0;
+    }
+
+    @Override
+    public <S extends ArchivedDevice> S save(S entity) {
+        throw new InvalidDataAccessApiUsageException(NO_ARCHIVE);
+    }
+
+    @Override
+    public <S extends ArchivedDevice> List<S> saveAll(Iterable<S> entities) {
+        throw new InvalidDataAccessApiUsageException(NO_ARCHIVE);
+    }
+
+    @Override
+    public <S extends ArchivedDevice> S saveAndFlush(S entity) {
+        throw new InvalidDataAccessApiUsageException(NO_ARCHIVE);
+    }
+
+    @Override
+    public <S extends ArchivedDevice> List<S> saveAllAndFlush(Iterable<S> entities) {
+        throw new InvalidDataAccessApiUsageException(NO_ARCHIVE);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void deleteById(Long id) {
+    }
+
+    @Override
+    public void delete(ArchivedDevice entity) {
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends ArchivedDevice> entities) {
+    }
+
+    @Override
+    public void deleteAll() {
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<ArchivedDevice> entities) {
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+    }
+
+    @Override
+    @Deprecated
+    public ArchivedDevice getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public ArchivedDevice getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public ArchivedDevice getReferenceById(Long id) {
+        throw new EntityNotFoundException("Archived device with ID " + id + " does not exist");
+    }
+}
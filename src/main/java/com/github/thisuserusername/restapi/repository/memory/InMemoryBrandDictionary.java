@@ -0,0 +1,42 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link BrandDictionary} of the in-memory storage. Devices are journaled with their brand names, so the ids are
+ * only valid within one run and the dictionary is rebuilt while the journal is replayed.
+ */
+public class InMemoryBrandDictionary implements BrandDictionary {
+
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Optional<Integer> idOf(String name) {
+        return Optional.ofNullable(idsByName.get(name));
+    }
+
+    @Override
+    public String nameOf(int id) {
+        String name = namesById.get(id);
+        if (name == null) {
+            throw new IllegalStateException("Brand with ID " + id + " does not exist");
+        }
+        return name;
+    }
+
+    @Override
+    public int register(String name) {
+        return idsByName.computeIfAbsent(name, key -> {
+            int id = sequence.incrementAndGet();
+            namesById.put(id, key);
+            return id;
+        });
+    }
+}
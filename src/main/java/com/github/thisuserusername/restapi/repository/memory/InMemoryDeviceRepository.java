@@ -0,0 +1,418 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@link DeviceRepository} on the {@link InMemoryDeviceStore}, with the semantics {@code DeviceServiceImpl} relies
+ * on from JPA.
+ * <p>
+ * Within a transaction, devices are tracked in a unit of work: the same id always yields the same instance and
+ * changes to it are written without calling {@code save}. {@link #flush()} checks the changed devices, stamps the new
+ * version and modification time on them and queues them; the queued writes reach the store together right before
+ * the transaction commits and are discarded on a rollback. Read-only transactions are never flushed. Outside of a
+ * transaction every write is committed on its own.
+ * <p>
+ * Fluent queries ({@link #findBy}) and examples that do not match all properties are not supported and fail with
+ * an {@link InvalidDataAccessApiUsageException}.
+ */
+public class InMemoryDeviceRepository implements DeviceRepository {
+
+    private final InMemoryDeviceStore store;
+    private final BrandDictionary brandDictionary;
+
+    public InMemoryDeviceRepository(InMemoryDeviceStore store, BrandDictionary brandDictionary) {
+        this.store = store;
+        this.brandDictionary = brandDictionary;
+    }
+
+    @Override
+    public Optional<Device> findById(Long id) {
+        Optional<UnitOfWork> unitOfWork = unitOfWork();
+        if (unitOfWork.isPresent() && unitOfWork.get().contains(id)) {
+            return Optional.ofNullable(unitOfWork.get().get(id));
+        }
+        return Optional.ofNullable(store.get(id)).map(this::attach);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<Device> findAllById(Iterable<Long> ids) {
+        Optional<UnitOfWork> unitOfWork = unitOfWork();
+        List<Device> devices = new ArrayList<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long id : ids) {
+            if (unitOfWork.isPresent() && unitOfWork.get().contains(id)) {
+                Optional.ofNullable(unitOfWork.get().get(id)).ifPresent(devices::add);
+            } else {
+                unknown.add(id);
+            }
+        }
+        store.getAll(unknown).forEach(device -> devices.add(attach(device)));
+        return devices;
+    }
+
+    @Override
+    public List<Device> findAll() {
+        return findAll(Sort.unsorted());
+    }
+
+    @Override
+    public List<Device> findAll(Sort sort) {
+        return find(null, null, device -> true, Pageable.unpaged(sort)).getContent();
+    }
+
+    @Override
+    public Page<Device> findAll(Pageable pageable) {
+        return find(null, null, device -> true, pageable);
+    }
+
+    @Override
+    public <S extends Device> Optional<S> findOne(Example<S> example) {
+        List<S> matches = findAll(example, PageRequest.of(0, 2)).getContent();
+        if (matches.size() > 1) {
+            throw new InvalidDataAccessApiUsageException("More than one device matches " + example.getProbe());
+        }
+        return matches.stream().findFirst();
+    }
+
+    @Override
+    public <S extends Device> List<S> findAll(Example<S> example) {
+        return findAll(example, Sort.unsorted());
+    }
+
+    @Override
+    public <S extends Device> List<S> findAll(Example<S> example, Sort sort) {
+        return findAll(example, Pageable.unpaged(sort)).getContent();
+    }
+
+    /**
+     * Supports probes of the default {@link org.springframework.data.domain.ExampleMatcher}, which match the
+     * non-null id, name, brand and state of the probe exactly.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends Device> Page<S> findAll(Example<S> example, Pageable pageable) {
+        if (!example.getMatcher().isAllMatching()) {
+            throw new InvalidDataAccessApiUsageException("Only all-matching examples are supported");
+        }
+        Device probe = example.getProbe();
+        Predicate<Device> condition = device -> (probe.getId() == null || probe.getId().equals(device.getId()))
+                && (probe.getName() == null || probe.getName().equals(device.getName()));
+        return (Page<S>) (Page<?>) find(probe.getBrand(), probe.getState(), condition, pageable);
+    }
+
+    @Override
+    public <S extends Device> long count(Example<S> example) {
+        return findAll(example, PageRequest.of(0, 1)).getTotalElements();
+    }
+
+    @Override
+    public <S extends Device> boolean exists(Example<S> example) {
+        return count(example) > 0;
+    }
+
+    /**
+     * @throws InvalidDataAccessApiUsageException always, fluent queries are not supported
+     */
+    @Override
+    public <S extends Device, R> R findBy(Example<S> example,
+                                         Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw new InvalidDataAccessApiUsageException("Fluent queries are not supported by the in-memory storage");
+    }
+
+    @Override
+    public long count() {
+        return store.count();
+    }
+
+    /**
+     * Archived devices are not kept by the in-memory storage, so this lists the matching hot devices.
+     */
+    @Override
+    public Page<Device> findAllIncludingArchived(Integer brandId, String state, Pageable pageable) {
+        return find(brandId == null ? null : brandDictionary.nameOf(brandId),
+                state == null ? null : DeviceState.valueOf(state), device -> true, pageable);
+    }
+
+    @Override
+    public Optional<Long> findIdByBrandIdAndName(int brandId, String name) {
+        return find(brandDictionary.nameOf(brandId), null, device -> name.equals(device.getName()),
+                PageRequest.of(0, 1)).stream().findFirst().map(Device::getId);
+    }
+
+    @Override
+    public List<Device> findModifiedAfter(LocalDateTime modifiedOn, long id, LocalDateTime until, Limit limit) {
+        Predicate<Device> condition = device -> device.getModifiedOn().isBefore(until)
+                && (device.getModifiedOn().isAfter(modifiedOn)
+                || (device.getModifiedOn().isEqual(modifiedOn) && device.getId() > id));
+        Sort sort = Sort.by("modifiedOn", "id");
+        return find(null, null, condition,
+                limit.isLimited() ? PageRequest.of(0, limit.max(), sort) : Pageable.unpaged(sort)).getContent();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends Device> S save(S entity) {
+        Optional<UnitOfWork> unitOfWork = unitOfWork();
+        if (unitOfWork.isEmpty()) {
+            UnitOfWork standalone = new UnitOfWork();
+            S saved = (S) standalone.save(entity);
+            standalone.commit();
+            return saved;
+        }
+        return (S) unitOfWork.get().save(entity);
+    }
+
+    @Override
+    public <S extends Device> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends Device> S saveAndFlush(S entity) {
+        S saved = save(entity);
+        flush();
+        return saved;
+    }
+
+    @Override
+    public <S extends Device> List<S> saveAllAndFlush(Iterable<S> entities) {
+        List<S> saved = saveAll(entities);
+        flush();
+        return saved;
+    }
+
+    @Override
+    public void flush() {
+        unitOfWork().ifPresent(UnitOfWork::flush);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        findById(id).ifPresent(this::delete);
+    }
+
+    @Override
+    public void delete(Device entity) {
+        Optional<UnitOfWork> unitOfWork = unitOfWork();
+        if (unitOfWork.isEmpty()) {
+            UnitOfWork standalone = new UnitOfWork();
+            standalone.delete(entity);
+            standalone.commit();
+        } else {
+            unitOfWork.get().delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Device> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        findAll().forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Device> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @Deprecated
+    public Device getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public Device getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public Device getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Device with ID " + id + " does not exist"));
+    }
+
+    private Page<Device> find(String brand, DeviceState state, Predicate<Device> condition, Pageable pageable) {
+        return store.find(brand, state, condition, pageable).map(this::attach);
+    }
+
+    /**
+     * @return the instance tracked by the current unit of work for the device read from the store, if any
+     */
+    private Device attach(Device device) {
+        return unitOfWork().map(unitOfWork -> unitOfWork.attach(device)).orElse(device);
+    }
+
+    private Optional<UnitOfWork> unitOfWork() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Optional.empty();
+        }
+        UnitOfWork unitOfWork = (UnitOfWork) TransactionSynchronizationManager.getResource(this);
+        if (unitOfWork == null) {
+            unitOfWork = new UnitOfWork();
+            TransactionSynchronizationManager.bindResource(this, unitOfWork);
+            TransactionSynchronizationManager.registerSynchronization(unitOfWork);
+        }
+        return Optional.of(unitOfWork);
+    }
+
+    /**
+     * Devices read or created by one transaction and the writes flushed so far.
+     */
+    private final class UnitOfWork implements TransactionSynchronization {
+
+        private final Map<Long, Tracked> tracked = new LinkedHashMap<>();
+        private final Map<Long, InMemoryDeviceStore.Write> writes = new LinkedHashMap<>();
+
+        /**
+         * @param flushed     the device as of the last flush, {@code null} if it was merged from a detached copy
+         * @param readVersion the version in the store when the device was read, {@code null} if it was created
+         */
+        private record Tracked(Device entity, Device flushed, Long readVersion) {
+        }
+
+        boolean contains(long id) {
+            return tracked.containsKey(id) || writes.containsKey(id);
+        }
+
+        /**
+         * @return the tracked device, or {@code null} if this transaction deleted it
+         */
+        Device get(long id) {
+            Tracked device = tracked.get(id);
+            return device == null ? null : device.entity();
+        }
+
+        Device attach(Device device) {
+            if (contains(device.getId())) {
+                return get(device.getId());
+            }
+            tracked.put(device.getId(), new Tracked(device, InMemoryDeviceStore.copy(device), device.getVersion()));
+            return device;
+        }
+
+        Device save(Device entity) {
+            if (entity.getId() == null) {
+                LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+                entity.setId(store.nextId());
+                entity.setCreatedOn(now);
+                entity.setModifiedOn(now);
+                entity.setLastSeen(null);
+                entity.setVersion(0L);
+                tracked.put(entity.getId(), new Tracked(entity, InMemoryDeviceStore.copy(entity), null));
+                writes.put(entity.getId(), new InMemoryDeviceStore.Write(entity.getId(),
+                        InMemoryDeviceStore.copy(entity), null));
+                return entity;
+            }
+            Tracked current = tracked.get(entity.getId());
+            if (current != null) {
+                if (current.entity() != entity) {
+                    // merge of a detached copy into the tracked instance
+                    current.entity().setName(entity.getName());
+                    current.entity().setBrand(entity.getBrand());
+                    current.entity().setState(entity.getState());
+                }
+                return current.entity();
+            }
+            Device merged = InMemoryDeviceStore.copy(entity);
+            tracked.put(merged.getId(), new Tracked(merged, null, entity.getVersion()));
+            return merged;
+        }
+
+        void delete(Device entity) {
+            Tracked current = tracked.remove(entity.getId());
+            Long readVersion = current != null ? current.readVersion() : entity.getVersion();
+            if (current != null && readVersion == null) {
+                // created and deleted by this transaction, the store never sees it
+                writes.remove(entity.getId());
+                return;
+            }
+            writes.put(entity.getId(), new InMemoryDeviceStore.Write(entity.getId(), null, readVersion));
+        }
+
+        void flush() {
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            tracked.replaceAll((id, device) -> {
+                Device entity = device.entity();
+                Device flushed = device.flushed();
+                if (flushed != null && Objects.equals(flushed.getName(), entity.getName())
+                        && Objects.equals(flushed.getBrand(), entity.getBrand())
+                        && flushed.getState() == entity.getState()) {
+                    return device;
+                }
+                entity.setVersion(entity.getVersion() + 1);
+                entity.setModifiedOn(now);
+                Device written = InMemoryDeviceStore.copy(entity);
+                writes.put(id, new InMemoryDeviceStore.Write(id, written, device.readVersion()));
+                return new Tracked(entity, written, device.readVersion());
+            });
+        }
+
+        void commit() {
+            flush();
+            store.commit(writes.values());
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!readOnly) {
+                commit();
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InMemoryDeviceRepository.this);
+        }
+    }
+}
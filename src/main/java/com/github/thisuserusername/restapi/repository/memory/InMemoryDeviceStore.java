@@ -0,0 +1,327 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Committed devices of the in-memory storage, keyed by id in a primitive hash map, with id ordered secondary indexes
+ * on brand and state for filtered pages.
+ * <p>
+ * The stored instances are never modified, every change replaces them, so readers get copies and a snapshot can
+ * reference them without holding the lock. A transaction is committed by {@link #commit(Collection)} as one unit:
+ * all version checks pass before anything is journaled and applied.
+ */
+@Slf4j
+public class InMemoryDeviceStore {
+
+    private final InMemoryStorageProperties properties;
+    private final BrandDictionary brandDictionary;
+    private final TaskScheduler taskScheduler;
+    private final WriteAheadLog journal;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongObjectHashMap<Device> devices = new LongObjectHashMap<>(1024);
+    private final NavigableSet<Long> ids = new TreeSet<>();
+    private final Map<String, NavigableSet<Long>> idsByBrand = new HashMap<>();
+    private final Map<DeviceState, NavigableSet<Long>> idsByState = new EnumMap<>(DeviceState.class);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean changedSinceSnapshot = new AtomicBoolean();
+    private ScheduledFuture<?> snapshotTask;
+
+    /**
+     * A change of one device within a transaction.
+     *
+     * @param device          the new state, {@code null} to delete the device
+     * @param expectedVersion the version the transaction read, {@code null} if it created the device
+     */
+    public record Write(long id, Device device, Long expectedVersion) {
+    }
+
+    public InMemoryDeviceStore(InMemoryStorageProperties properties,
+                               BrandDictionary brandDictionary,
+                               TaskScheduler taskScheduler) {
+        this.properties = properties;
+        this.brandDictionary = brandDictionary;
+        this.taskScheduler = taskScheduler;
+        this.journal = new WriteAheadLog(properties.directory(), (int) properties.segmentSize().toBytes(),
+                properties.syncOnWrite());
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        long started = System.nanoTime();
+        long maxId = journal.replay(change -> {
+            if (change.device() == null) {
+                remove(change.id());
+            } else {
+                put(change.device());
+            }
+        });
+        sequence.set(maxId);
+        LOG.info("Restored {} devices from {} in {} ms", devices.size(), properties.directory(),
+                (System.nanoTime() - started) / 1_000_000);
+        snapshotTask = taskScheduler.scheduleWithFixedDelay(this::snapshot, properties.snapshotInterval());
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (snapshotTask != null) {
+            snapshotTask.cancel(false);
+        }
+        snapshot();
+        journal.close();
+    }
+
+    /**
+     * @return a new device id, never handed out before, not even for devices deleted since
+     */
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    public Device get(long id) {
+        lock.readLock().lock();
+        try {
+            return copy(devices.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Device> getAll(Iterable<Long> ids) {
+        List<Device> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                Device device = devices.get(id);
+                if (device != null) {
+                    result.add(copy(device));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return devices.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pages through the devices of the optional brand and state that also match {@code condition}, ordered by id
+     * unless the page request is sorted.
+     */
+    public Page<Device> find(String brand, DeviceState state, Predicate<Device> condition, Pageable pageable) {
+        List<Device> content = new ArrayList<>();
+        long total = 0;
+        boolean sorted = pageable.getSort().isSorted();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(brand, state)) {
+                Device device = devices.get(id);
+                if ((brand != null && !brand.equals(device.getBrand()))
+                        || (state != null && state != device.getState())
+                        || !condition.test(device)) {
+                    continue;
+                }
+                if (sorted || (total >= offset && content.size() < limit)) {
+                    content.add(device);
+                }
+                total++;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (sorted) {
+            content.sort(comparator(pageable.getSort()));
+            content = content.subList((int) Math.min(offset, content.size()),
+                    (int) Math.min(offset + limit, content.size()));
+        }
+        return new PageImpl<>(content.stream().map(InMemoryDeviceStore::copy).toList(), pageable, total);
+    }
+
+    /**
+     * Checks the versions of all writes, then journals and applies them together.
+     *
+     * @throws ObjectOptimisticLockingFailureException if a device was changed or deleted since it was read
+     */
+    public void commit(Collection<Write> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        List<WriteAheadLog.Change> changes = new ArrayList<>(writes.size());
+        lock.writeLock().lock();
+        try {
+            for (Write write : writes) {
+                Device current = devices.get(write.id());
+                Long currentVersion = current == null ? null : current.getVersion();
+                if (write.expectedVersion() == null ? current != null : !write.expectedVersion().equals(currentVersion)) {
+                    throw new ObjectOptimisticLockingFailureException(Device.class, write.id());
+                }
+                if (write.device() == null) {
+                    changes.add(WriteAheadLog.Change.delete(write.id()));
+                    continue;
+                }
+                Device device = copy(write.device());
+                if (current != null) {
+                    // like JPA, creation time and last seen are not updatable
+                    device.setCreatedOn(current.getCreatedOn());
+                    device.setLastSeen(current.getLastSeen());
+                }
+                changes.add(WriteAheadLog.Change.put(device));
+            }
+            journal.append(changes);
+            for (WriteAheadLog.Change change : changes) {
+                if (change.device() == null) {
+                    remove(change.id());
+                } else {
+                    put(change.device());
+                }
+            }
+            changedSinceSnapshot.set(true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of all devices if any changed since the last one. Commits only wait while the journal
+     * switches to a new segment, not while the snapshot is written.
+     */
+    public synchronized void snapshot() {
+        if (!changedSinceSnapshot.getAndSet(false)) {
+            return;
+        }
+        long generation;
+        long maxId;
+        List<Device> all = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            generation = journal.roll();
+            maxId = sequence.get();
+            for (Long id : ids) {
+                all.add(devices.get(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            journal.writeSnapshot(generation, maxId, all);
+        } catch (IOException e) {
+            changedSinceSnapshot.set(true);
+            throw new UncheckedIOException("Failed to write snapshot " + generation, e);
+        }
+    }
+
+    /**
+     * @return an independent copy of {@code device}, or {@code null}
+     */
+    static Device copy(Device device) {
+        if (device == null) {
+            return null;
+        }
+        Device copy = Device.builder()
+                .id(device.getId())
+                .name(device.getName())
+                .brand(device.getBrand())
+                .state(device.getState())
+                .createdOn(device.getCreatedOn())
+                .modifiedOn(device.getModifiedOn())
+                .lastSeen(device.getLastSeen())
+                .build();
+        copy.setVersion(device.getVersion());
+        return copy;
+    }
+
+    static Comparator<Device> comparator(Sort sort) {
+        Comparator<Device> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Device> next = switch (order.getProperty()) {
+                case "id" -> Comparator.comparing(Device::getId);
+                case "name" -> Comparator.comparing(Device::getName);
+                case "brand" -> Comparator.comparing(Device::getBrand);
+                case "state" -> Comparator.comparing(Device::getState);
+                case "createdOn" -> Comparator.comparing(Device::getCreatedOn);
+                case "modifiedOn" -> Comparator.comparing(Device::getModifiedOn);
+                case "lastSeen" -> Comparator.comparing(Device::getLastSeen,
+                        Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()));
+                default -> throw new IllegalArgumentException("Cannot sort devices by " + order.getProperty());
+            };
+            next = order.isAscending() ? next : next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? Comparator.comparing(Device::getId) : comparator;
+    }
+
+    /**
+     * @return the smallest index which contains all devices of the brand and state
+     */
+    private Collection<Long> candidates(String brand, DeviceState state) {
+        NavigableSet<Long> byBrand = brand == null ? ids : idsByBrand.getOrDefault(brand, Collections.emptyNavigableSet());
+        NavigableSet<Long> byState = state == null ? ids : idsByState.getOrDefault(state, Collections.emptyNavigableSet());
+        return byBrand.size() <= byState.size() ? byBrand : byState;
+    }
+
+    private void put(Device device) {
+        Device previous = devices.put(device.getId(), device);
+        if (previous != null) {
+            unindex(previous);
+        }
+        ids.add(device.getId());
+        idsByBrand.computeIfAbsent(device.getBrand(), brand -> {
+            brandDictionary.register(brand);
+            return new TreeSet<>();
+        }).add(device.getId());
+        idsByState.computeIfAbsent(device.getState(), state -> new TreeSet<>()).add(device.getId());
+    }
+
+    private void remove(long id) {
+        Device previous = devices.remove(id);
+        if (previous != null) {
+            ids.remove(id);
+            unindex(previous);
+        }
+    }
+
+    private void unindex(Device device) {
+        idsByBrand.get(device.getBrand()).remove(device.getId());
+        idsByState.get(device.getState()).remove(device.getId());
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the in-memory device storage, used with {@code restapi.storage.mode=memory}.
+ *
+ * @param directory        where the journal segments and snapshots are kept
+ * @param segmentSize      size of a memory-mapped journal segment; a full segment is continued in a new one
+ * @param snapshotInterval how often a snapshot is written if devices changed, which bounds the replay on startup
+ * @param syncOnWrite      whether every commit is forced to the disk, not only handed to the operating system
+ */
+@ConfigurationProperties("restapi.storage.memory")
+public record InMemoryStorageProperties(
+        @DefaultValue("data/devices") Path directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("5m") Duration snapshotInterval,
+        @DefaultValue("false") boolean syncOnWrite) {
+}
@@ -0,0 +1,48 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSuspensionNotSupportedException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transaction manager of the in-memory storage. It holds no resources of its own: the work of a transaction is
+ * collected by the repository in a transaction synchronization and committed to the store before the transaction
+ * completes, or dropped on a rollback. Suspending a transaction is not supported: starting a transaction with
+ * {@code REQUIRES_NEW} or {@code NOT_SUPPORTED} propagation within another one fails with a
+ * {@link TransactionSuspensionNotSupportedException}.
+ */
+public class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+
+    private record Transaction(boolean existing) {
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Transaction(TransactionSynchronizationManager.isActualTransactionActive());
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((Transaction) transaction).existing();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        throw new TransactionSuspensionNotSupportedException(
+                "The in-memory storage cannot suspend a transaction to run another one");
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive {@code long} keys to objects, with linear probing and backward shift
+ * deletion. Avoids the boxed keys and entry objects of a {@link java.util.HashMap}.
+ * <p>
+ * The key {@code 0} marks a free slot and cannot be stored. Not thread safe.
+ */
+final class LongObjectHashMap<V> {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int resizeAt;
+    private int size;
+
+    LongObjectHashMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    V get(long key) {
+        int slot = find(key);
+        return slot < 0 ? null : value(slot);
+    }
+
+    /**
+     * @return the value previously mapped to {@code key}, or {@code null}
+     */
+    V put(long key, V value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                V previous = value(slot);
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash();
+        }
+        return null;
+    }
+
+    /**
+     * @return the value removed, or {@code null} if {@code key} was not mapped
+     */
+    V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V removed = value(slot);
+        // move later entries of the probe sequence into the gap, so lookups never stop at it
+        int gap = slot;
+        for (int i = (slot + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    void forEach(Visitor<? super V> visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                visitor.visit(keys[slot], value(slot));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Visitor<V> {
+        void visit(long key, V value);
+    }
+
+    private int find(long key) {
+        if (key == 0) {
+            return -1;
+        }
+        for (int slot = slot(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int slot) {
+        return (V) values[slot];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only journal of the committed device changes of the in-memory storage.
+ * <p>
+ * Changes are appended to memory-mapped segment files {@code wal-<generation>.log}, one record per transaction
+ * framed as {@code [length][crc32][body]}, so a transaction is replayed completely or not at all. A record torn by a
+ * crash fails its checksum and ends the replay of its segment. Mapped pages reach the file even if the process dies;
+ * with {@code syncOnWrite} every append is also forced to the disk, which survives a power loss.
+ * <p>
+ * A snapshot {@code snapshot-<generation>.dat} holds all devices as of the start of segment {@code generation}.
+ * Startup loads the newest readable snapshot and replays the segments from its generation on; older files are
+ * deleted once a newer snapshot is complete.
+ */
+@Slf4j
+final class WriteAheadLog implements Closeable {
+
+    private static final Pattern SEGMENT = Pattern.compile("wal-(\\d{16})\\.log");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d{16})\\.dat");
+    private static final int SNAPSHOT_MAGIC = 0x44455631;
+    private static final int FRAME_HEADER = 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * A committed change of one device; {@code device} is {@code null} if the device was deleted.
+     */
+    record Change(long id, Device device) {
+
+        static Change put(Device device) {
+            return new Change(device.getId(), device);
+        }
+
+        static Change delete(long id) {
+            return new Change(id, null);
+        }
+    }
+
+    WriteAheadLog(Path directory, int segmentSize, boolean syncOnWrite) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnWrite = syncOnWrite;
+    }
+
+    /**
+     * Feeds the newest snapshot and all later changes to {@code changes} in commit order, then starts a new segment
+     * for appends.
+     *
+     * @return the largest device id the journal ever held, including deleted devices
+     */
+    long replay(Consumer<Change> changes) throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> snapshots = list(SNAPSHOT);
+        TreeMap<Long, Path> segments = list(SEGMENT);
+        long maxId = 0;
+        long from = 0;
+        for (Long snapshotGeneration : snapshots.descendingKeySet()) {
+            List<Device> devices = new ArrayList<>();
+            try {
+                maxId = readSnapshot(snapshots.get(snapshotGeneration), devices);
+            } catch (IOException e) {
+                LOG.warn("Skipping unreadable snapshot {}", snapshots.get(snapshotGeneration), e);
+                continue;
+            }
+            devices.forEach(device -> changes.accept(Change.put(device)));
+            from = snapshotGeneration;
+            LOG.info("Loaded {} devices from snapshot {}", devices.size(), snapshots.get(snapshotGeneration));
+            break;
+        }
+        long records = 0;
+        for (Path segment : segments.tailMap(from, true).values()) {
+            try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer readBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                byte[] body;
+                while ((body = readFrame(readBuffer, segment)) != null) {
+                    for (Change change : decode(body)) {
+                        maxId = Math.max(maxId, change.id());
+                        changes.accept(change);
+                    }
+                    records++;
+                }
+            }
+        }
+        LOG.info("Replayed {} journal records from {} segments", records, segments.tailMap(from, true).size());
+        generation = Math.max(from, segments.isEmpty() ? 0 : segments.lastKey());
+        roll(segmentSize);
+        return maxId;
+    }
+
+    /**
+     * Appends the changes of one transaction as a single record.
+     */
+    synchronized void append(Collection<Change> changes) {
+        byte[] body = encode(changes);
+        if (buffer.remaining() < FRAME_HEADER + body.length) {
+            roll(Math.max(segmentSize, FRAME_HEADER + body.length + Integer.BYTES));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        buffer.putInt(body.length).putInt((int) crc.getValue()).put(body);
+        if (syncOnWrite) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Switches appends to a new segment.
+     *
+     * @return the generation of the new segment, which a snapshot of the current state must be written for
+     */
+    synchronized long roll() {
+        roll(segmentSize);
+        return generation;
+    }
+
+    /**
+     * Writes the snapshot of {@code generation}, then deletes the segments and snapshots it supersedes.
+     */
+    void writeSnapshot(long generation, long maxId, Collection<Device> devices) throws IOException {
+        Path target = directory.resolve("snapshot-%016d.dat".formatted(generation));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(maxId);
+            out.writeInt(devices.size());
+            for (Device device : devices) {
+                writeDevice(out, device);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        for (Path obsolete : list(SEGMENT).headMap(generation).values()) {
+            Files.deleteIfExists(obsolete);
+        }
+        for (Path obsolete : list(SNAPSHOT).headMap(generation).values()) {
+            Files.deleteIfExists(obsolete);
+        }
+        LOG.info("Wrote snapshot {} of {} devices", target, devices.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    private void roll(int capacity) {
+        try {
+            if (channel != null) {
+                buffer.force();
+                channel.close();
+            }
+            generation++;
+            channel = FileChannel.open(directory.resolve("wal-%016d.log".formatted(generation)),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start journal segment " + generation, e);
+        }
+    }
+
+    private TreeMap<Long, Path> list(Pattern pattern) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                Matcher matcher = pattern.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Long.parseLong(matcher.group(1)), path);
+                }
+            });
+        }
+        return files;
+    }
+
+    /**
+     * @return the body of the next intact record, or {@code null} at the end of the written part of the segment
+     */
+    private static byte[] readFrame(MappedByteBuffer buffer, Path segment) {
+        if (buffer.remaining() < FRAME_HEADER) {
+            return null;
+        }
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        buffer.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != checksum) {
+            LOG.warn("Discarding torn record at offset {} of {}", buffer.position() - length - FRAME_HEADER, segment);
+            return null;
+        }
+        return body;
+    }
+
+    private static long readSnapshot(Path snapshot, List<Device> devices) throws IOException {
+        try (InputStream file = Files.newInputStream(snapshot)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a device snapshot");
+            }
+            long maxId = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                devices.add(readDevice(in));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            return maxId;
+        }
+    }
+
+    private static byte[] encode(Collection<Change> changes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * changes.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(changes.size());
+            for (Change change : changes) {
+                if (change.device() == null) {
+                    out.writeByte(DELETE);
+                    out.writeLong(change.id());
+                } else {
+                    out.writeByte(PUT);
+                    writeDevice(out, change.device());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Change> decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int count = in.readInt();
+        List<Change> changes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            changes.add(in.readByte() == DELETE ? Change.delete(in.readLong()) : Change.put(readDevice(in)));
+        }
+        return changes;
+    }
+
+    private static void writeDevice(DataOutput out, Device device) throws IOException {
+        out.writeLong(device.getId());
+        out.writeUTF(device.getName());
+        out.writeUTF(device.getBrand());
+        out.writeUTF(device.getState().name());
+        out.writeLong(micros(device.getCreatedOn()));
+        out.writeLong(micros(device.getModifiedOn()));
+        out.writeBoolean(device.getLastSeen() != null);
+        if (device.getLastSeen() != null) {
+            out.writeLong(micros(device.getLastSeen()));
+        }
+        out.writeLong(device.getVersion());
+    }
+
+    private static Device readDevice(DataInput in) throws IOException {
+        Device device = Device.builder()
+                .id(in.readLong())
+                .name(in.readUTF())
+                .brand(in.readUTF())
+                .state(DeviceState.valueOf(in.readUTF()))
+                .createdOn(dateTime(in.readLong()))
+                .modifiedOn(dateTime(in.readLong()))
+                .build();
+        if (in.readBoolean()) {
+            device.setLastSeen(dateTime(in.readLong()));
+        }
+        device.setVersion(in.readLong());
+        return device;
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
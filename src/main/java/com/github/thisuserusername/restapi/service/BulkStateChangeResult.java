@@ -0,0 +1,16 @@
+package com.github.thisuserusername.restapi.service;
+
+/**
+ * Outcome of a bulk state change.
+ *
+ * @param affected number of devices moved to the target state
+ * @param skipped  number of matching devices left unchanged because they are in use
+ */
+public record BulkStateChangeResult(long affected, long skipped) {
+
+    public static final BulkStateChangeResult NONE = new BulkStateChangeResult(0, 0);
+
+    BulkStateChangeResult plus(BulkStateChangeResult other) {
+        return new BulkStateChangeResult(affected + other.affected, skipped + other.skipped);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.thisuserusername.restapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link DeviceArchiver}.
+ *
+ * @param inactiveFor minimum time since the last modification of an {@code INACTIVE} device before it is archived
+ * @param chunkSize   number of devices moved per transaction
+ * @param cron        schedule of the archival job, {@code -} disables it
+ */
+@ConfigurationProperties("restapi.archive")
+public record DeviceArchiveProperties(
+        @DefaultValue("180d") Duration inactiveFor,
+        @DefaultValue("1000") int chunkSize,
+        @DefaultValue("-") String cron) {
+}
@@ -0,0 +1,19 @@
+package com.github.thisuserusername.restapi.service;
+
+/**
+ * Thrown when a device to be changed or deleted has been moved to the archive, where it can still be read but no
+ * longer be written.
+ */
+public class DeviceArchivedException extends RuntimeException {
+
+    private final long id;
+
+    public DeviceArchivedException(long id) {
+        super("Device with ID " + id + " is archived and can no longer be changed");
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.github.thisuserusername.restapi.jdbc.UsePool;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves devices which have been {@code INACTIVE} for a long time from {@code devices} to {@code devices_archive},
+ * keeping the hot table and its indexes small. Every chunk is moved in its own short transaction.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class DeviceArchiver {
+
+    private static final String SELECT_SQL = "SELECT id, name, brand_id, state, version, modified_on FROM %s.devices"
+            + " WHERE state = :state AND modified_on < :threshold ORDER BY id FETCH FIRST :limit ROWS ONLY FOR UPDATE";
+    private static final String COPY_SQL = "INSERT INTO %1$s.devices_archive"
+            + " (id, name, brand_id, state, created_on, modified_on, last_seen, version, archived_on)"
+            + " SELECT id, name, brand_id, state, created_on, modified_on, last_seen, version, :archivedOn"
+            + " FROM %1$s.devices WHERE id IN (:ids)";
+    private static final String DELETE_SQL = "DELETE FROM %s.devices WHERE id IN (:ids)";
+
+    private final DeviceArchiveProperties properties;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String schema;
+    private final RowMapper<DeviceSnapshot> rowMapper;
+
+    public DeviceArchiver(DeviceArchiveProperties properties,
+                          NamedParameterJdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher,
+                          BrandDictionary brandDictionary,
+                          @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.schema = schema;
+        this.rowMapper = (rs, rowNum) -> new DeviceSnapshot(rs.getLong("id"), rs.getString("name"),
+                brandDictionary.nameOf(rs.getInt("brand_id")), DeviceState.valueOf(rs.getString("state")),
+                rs.getLong("version"), rs.getTimestamp("modified_on").toLocalDateTime());
+    }
+
+    @Scheduled(cron = "${restapi.archive.cron:-}")
+    @UsePool(ConnectionPool.BACKGROUND)
+    public void archiveStaleDevices() {
+        LocalDateTime threshold = LocalDateTime.now().minus(properties.inactiveFor());
+        long archived = 0;
+        int moved;
+        do {
+            moved = archiveChunk(threshold);
+            archived += moved;
+        } while (moved == properties.chunkSize());
+        LOG.info("Archived {} devices inactive since {}", archived, threshold);
+    }
+
+    /**
+     * Moves at most one chunk of devices which are {@code INACTIVE} and unmodified since {@code threshold}.
+     *
+     * @return the number of moved devices
+     */
+    public int archiveChunk(LocalDateTime threshold) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<DeviceSnapshot> devices = jdbcTemplate.query(SELECT_SQL.formatted(schema), new MapSqlParameterSource()
+                    .addValue("state", DeviceState.INACTIVE.name())
+                    .addValue("threshold", Timestamp.valueOf(threshold))
+                    .addValue("limit", properties.chunkSize()), rowMapper);
+            if (devices.isEmpty()) {
+                return 0;
+            }
+            List<Long> ids = devices.stream().map(DeviceSnapshot::id).toList();
+            jdbcTemplate.update(COPY_SQL.formatted(schema), new MapSqlParameterSource()
+                    .addValue("archivedOn", Timestamp.valueOf(LocalDateTime.now()))
+                    .addValue("ids", ids));
+            jdbcTemplate.update(DELETE_SQL.formatted(schema), new MapSqlParameterSource("ids", ids));
+            devices.forEach(device -> eventPublisher.publishEvent(DeviceChangedEvent.archived(device)));
+            return devices.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+}
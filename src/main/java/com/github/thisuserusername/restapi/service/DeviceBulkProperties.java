@@ -0,0 +1,14 @@
+package com.github.thisuserusername.restapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the {@link DeviceBulkStateChanger}.
+ *
+ * @param chunkSize width of the id range updated per transaction
+ */
+@ConfigurationProperties("restapi.bulk")
+public record DeviceBulkProperties(
+        @DefaultValue("10000") int chunkSize) {
+}
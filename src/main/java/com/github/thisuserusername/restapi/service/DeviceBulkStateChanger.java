@@ -0,0 +1,187 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.cache.CacheInvalidationLog;
+import com.github.thisuserusername.restapi.cache.DevicePageCache;
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.github.thisuserusername.restapi.jdbc.UsePool;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Moves all devices matching a {@link DeviceFilter} to another state with set-based UPDATEs.
+ * <p>
+ * The id range of the matching devices is walked in windows of {@code chunkSize} ids, each updated and committed
+ * in its own transaction, so row locks are only held for one window. Devices in use are never changed by a bulk
+ * operation; they are counted as skipped. Every changed device gets its version bumped, a history entry and a state
+ * transition, written by INSERT ... SELECTs of the rows stamped with the modification time of the window. Other
+ * nodes evict their cached listings from the {@link CacheInvalidationLog} entries of each window.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class DeviceBulkStateChanger {
+
+    private static final String BOUNDS_SQL = "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM %s.devices WHERE 1 = 1";
+    private static final String UPDATE_SQL = "UPDATE %s.devices"
+            + " SET state = :target, version = COALESCE(version, 0) + 1, modified_on = :now"
+            + " WHERE id BETWEEN :lo AND :hi AND state <> :target AND state <> 'IN_USE'";
+    private static final String HISTORY_SQL = "INSERT INTO %1$s.device_history"
+            + " (device_id, change_type, name, brand, state, device_version, changed_on)"
+            + " SELECT d.id, 'UPDATED', d.name, b.name, d.state, d.version, d.modified_on"
+            + " FROM %1$s.devices d JOIN %1$s.brands b ON b.id = d.brand_id"
+            + " WHERE d.id BETWEEN :lo AND :hi AND d.state = :target AND d.modified_on = :now";
+    private static final String TRANSITIONS_SQL = "INSERT INTO %1$s.device_state_transitions"
+            + " (device_id, brand_id, state, changed_on)"
+            + " SELECT id, brand_id, state, modified_on FROM %1$s.devices"
+            + " WHERE id BETWEEN :lo AND :hi AND state = :target AND modified_on = :now";
+    private static final String SKIPPED_SQL = "SELECT COUNT(*) FROM %s.devices"
+            + " WHERE id BETWEEN :lo AND :hi AND state = 'IN_USE'";
+    private static final String BRAND_FILTER = " AND brand_id = :brandId";
+    private static final String STATE_FILTER = " AND state = :state";
+
+    private final DeviceBulkProperties properties;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BrandDictionary brandDictionary;
+    private final DevicePageCache devicePageCache;
+    private final CacheInvalidationLog cacheInvalidationLog;
+    private final String schema;
+
+    public DeviceBulkStateChanger(DeviceBulkProperties properties,
+                                  NamedParameterJdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  BrandDictionary brandDictionary,
+                                  DevicePageCache devicePageCache,
+                                  CacheInvalidationLog cacheInvalidationLog,
+                                  @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.brandDictionary = brandDictionary;
+        this.devicePageCache = devicePageCache;
+        this.cacheInvalidationLog = cacheInvalidationLog;
+        this.schema = schema;
+    }
+
+    @UsePool(ConnectionPool.BULK)
+    public BulkStateChangeResult changeState(DeviceFilter filter, DeviceState target) {
+        BulkStateChangeResult result = BulkStateChangeResult.NONE;
+        Optional<DeviceIdRange> range = matchingIds(filter);
+        if (range.isPresent()) {
+            long maxId = range.get().max();
+            for (long lo = range.get().min(); lo <= maxId; lo += properties.chunkSize()) {
+                result = result.plus(changeChunk(filter, target, lo, Math.min(lo + properties.chunkSize() - 1, maxId)));
+            }
+        }
+        LOG.info("Changed state of {} devices matching {} to {}, skipped {} devices in use", result.affected(),
+                filter, target, result.skipped());
+        return result;
+    }
+
+    /**
+     * @return the smallest and largest id of the devices matching {@code filter}, empty if none match
+     */
+    public Optional<DeviceIdRange> matchingIds(DeviceFilter filter) {
+        Optional<MapSqlParameterSource> parameters = parameters(filter);
+        if (parameters.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(BOUNDS_SQL.formatted(schema) + condition(filter),
+                parameters.get());
+        if (bounds.get("min_id") == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new DeviceIdRange(((Number) bounds.get("min_id")).longValue(),
+                ((Number) bounds.get("max_id")).longValue()));
+    }
+
+    /**
+     * Changes the state of the devices matching {@code filter} with ids between {@code lo} and {@code hi}
+     * (inclusive). Joins the current transaction, if any.
+     */
+    public BulkStateChangeResult changeChunk(DeviceFilter filter, DeviceState target, long lo, long hi) {
+        Optional<MapSqlParameterSource> parameters = parameters(filter);
+        if (parameters.isEmpty()) {
+            return BulkStateChangeResult.NONE;
+        }
+        String condition = condition(filter);
+        MapSqlParameterSource chunk = parameters.get()
+                .addValue("target", target.name())
+                .addValue("lo", lo)
+                .addValue("hi", hi)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)));
+        BulkStateChangeResult result = transactionTemplate.execute(status -> {
+            int affected = jdbcTemplate.update(UPDATE_SQL.formatted(schema) + condition, chunk);
+            if (affected > 0) {
+                // the rows just updated are the ones of the window stamped with this chunk's modification time
+                jdbcTemplate.update(HISTORY_SQL.formatted(schema), chunk);
+                jdbcTemplate.update(TRANSITIONS_SQL.formatted(schema), chunk);
+                cacheInvalidationLog.onStateChanged(filter.brand(), sourceStates(filter), target);
+                evictPagesAfterCommit(filter, target);
+            }
+            long skipped = target == DeviceState.IN_USE ? 0
+                    : jdbcTemplate.queryForObject(SKIPPED_SQL.formatted(schema) + condition, chunk, Long.class);
+            return new BulkStateChangeResult(affected, skipped);
+        });
+        return result == null ? BulkStateChangeResult.NONE : result;
+    }
+
+    /**
+     * @return the bind parameters of {@code filter}, empty if its brand is unknown and no device can match
+     */
+    private Optional<MapSqlParameterSource> parameters(DeviceFilter filter) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (filter.brand() != null) {
+            Optional<Integer> brandId = brandDictionary.idOf(filter.brand());
+            if (brandId.isEmpty()) {
+                return Optional.empty();
+            }
+            parameters.addValue("brandId", brandId.get());
+        }
+        if (filter.state() != null) {
+            parameters.addValue("state", filter.state().name());
+        }
+        return Optional.of(parameters);
+    }
+
+    private static String condition(DeviceFilter filter) {
+        return (filter.brand() != null ? BRAND_FILTER : "") + (filter.state() != null ? STATE_FILTER : "");
+    }
+
+    private static List<DeviceState> sourceStates(DeviceFilter filter) {
+        return filter.state() != null ? List.of(filter.state()) : List.of(DeviceState.values());
+    }
+
+    /**
+     * Evicts the affected pages once the outermost transaction commits, which is the job's transaction when the
+     * chunk joins one, so that no listing read in between is cached with the old ids.
+     */
+    private void evictPagesAfterCommit(DeviceFilter filter, DeviceState target) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                devicePageCache.evict(filter.brand(), target);
+                for (DeviceState state : sourceStates(filter)) {
+                    devicePageCache.evict(filter.brand(), state);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.DeviceChangeType;
+
+import java.util.Objects;
+
+/**
+ * Application event published by {@link DeviceService} implementations for every device write.
+ * <p>
+ * {@code before} is {@code null} for created devices, {@code after} is {@code null} for deleted and archived ones.
+ */
+public record DeviceChangedEvent(DeviceChangeType type, DeviceSnapshot before, DeviceSnapshot after) {
+
+    public static DeviceChangedEvent created(DeviceSnapshot after) {
+        return new DeviceChangedEvent(DeviceChangeType.CREATED, null, after);
+    }
+
+    public static DeviceChangedEvent updated(DeviceSnapshot before, DeviceSnapshot after) {
+        return new DeviceChangedEvent(DeviceChangeType.UPDATED, before, after);
+    }
+
+    public static DeviceChangedEvent deleted(DeviceSnapshot before) {
+        return new DeviceChangedEvent(DeviceChangeType.DELETED, before, null);
+    }
+
+    public static DeviceChangedEvent archived(DeviceSnapshot before) {
+        return new DeviceChangedEvent(DeviceChangeType.ARCHIVED, before, null);
+    }
+
+    public long deviceId() {
+        return Objects.requireNonNullElse(after, before).id();
+    }
+
+    /**
+     * @return {@code true} if the change may have moved the device in or out of a brand/state filtered listing
+     */
+    public boolean affectsListings() {
+        return type != DeviceChangeType.UPDATED
+                || !Objects.equals(before.brand(), after.brand())
+                || before.state() != after.state();
+    }
+
+    /**
+     * @return {@code true} if the change may have moved the device to or from a {@code (brand, name)} natural key
+     */
+    public boolean affectsNaturalKey() {
+        return type != DeviceChangeType.UPDATED
+                || !Objects.equals(before.brand(), after.brand())
+                || !Objects.equals(before.name(), after.name());
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.Device;
+
+import java.util.List;
+
+/**
+ * One page of device changes after a {@link SyncWatermark}.
+ *
+ * @param devices    created or modified devices in their current state
+ * @param deletedIds ids of removed devices
+ * @param watermark  position to request the next changes from
+ * @param hasMore    whether further changes are available right away
+ */
+public record DeviceChanges(List<Device> devices, List<Long> deletedIds, SyncWatermark watermark, boolean hasMore) {
+}
@@ -3,5 +3,10 @@ package com.github.thisuserusername.restapi.service;
 import com.github.thisuserusername.restapi.model.DeviceState;
 import lombok.Builder;
 
+/**
+ * Criteria of a device listing.
+ *
+ * @param includeArchived whether devices moved to the archive are listed as well
+ */
 @Builder
-public record DeviceFilter(String brand, DeviceState state) {}
+public record DeviceFilter(String brand, DeviceState state, boolean includeArchived) {}
@@ -0,0 +1,134 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Write-behind buffer for device heartbeats.
+ * <p>
+ * Heartbeats only update an in-memory map, so repeated check-ins of a device coalesce into its latest
+ * timestamp. A scheduled task writes these timestamps with batched plain UPDATEs of {@code last_seen} which
+ * neither bump the optimistic lock version nor the modification date of the device. At most one flush interval
+ * of heartbeats is lost on a crash.
+ * <p>
+ * Heartbeats are accepted without looking the device up. Those of devices which do not exist update no row and
+ * are dropped by the flush, counted by {@code device.heartbeats.dropped}.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class DeviceHeartbeatBuffer {
+
+    // matches every existing device, so an update count of zero means the device does not exist
+    private static final String UPDATE_SQL = "UPDATE %s.devices "
+            + "SET last_seen = CASE WHEN last_seen IS NULL OR last_seen < ? THEN ? ELSE last_seen END WHERE id = ?";
+
+    private final DeviceHeartbeatProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskScheduler taskScheduler;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final String updateSql;
+    private final Counter flushedHeartbeats;
+    private final Counter droppedHeartbeats;
+    private ScheduledFuture<?> flushTask;
+
+    public DeviceHeartbeatBuffer(DeviceHeartbeatProperties properties,
+                                 JdbcTemplate jdbcTemplate,
+                                 TaskScheduler taskScheduler,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.updateSql = UPDATE_SQL.formatted(schema);
+        this.flushedHeartbeats = meterRegistry.counter("device.heartbeats.flushed");
+        this.droppedHeartbeats = meterRegistry.counter("device.heartbeats.dropped");
+        Gauge.builder("device.heartbeats.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        flushTask = taskScheduler.scheduleWithFixedDelay(() -> ConnectionPool.BACKGROUND.run(this::flush),
+                properties.flushInterval());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        flush();
+    }
+
+    public void record(long deviceId, LocalDateTime seenOn) {
+        pending.merge(deviceId, seenOn, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * @return the heartbeat of the device which has been received but not yet written, if any
+     */
+    public Optional<LocalDateTime> pending(long deviceId) {
+        return Optional.ofNullable(pending.get(deviceId));
+    }
+
+    /**
+     * Writes the latest heartbeat of every device. Entries are only removed from the buffer if no newer
+     * heartbeat arrived while they were written. Heartbeats of devices which do not exist are dropped.
+     */
+    public synchronized void flush() {
+        List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>(Math.min(pending.size(), properties.batchSize()));
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            if (batch.size() == properties.batchSize()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Map.Entry<Long, LocalDateTime>> batch) {
+        try {
+            int[] updated = jdbcTemplate.batchUpdate(updateSql, batch.stream()
+                    .map(entry -> {
+                        Timestamp seenOn = Timestamp.valueOf(entry.getValue());
+                        return new Object[]{seenOn, seenOn, entry.getKey()};
+                    })
+                    .toList());
+            int dropped = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                Map.Entry<Long, LocalDateTime> entry = batch.get(i);
+                pending.remove(entry.getKey(), entry.getValue());
+                if (i < updated.length && updated[i] == 0) {
+                    LOG.debug("Dropping heartbeat of unknown device {}", entry.getKey());
+                    dropped++;
+                }
+            }
+            flushedHeartbeats.increment(batch.size() - dropped);
+            droppedHeartbeats.increment(dropped);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to write {} device heartbeats, keeping them for the next flush", batch.size(), e);
+        }
+    }
+}
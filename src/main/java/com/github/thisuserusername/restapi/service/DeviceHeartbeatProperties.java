@@ -0,0 +1,18 @@
+package com.github.thisuserusername.restapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link DeviceHeartbeatBuffer}.
+ *
+ * @param batchSize     maximum number of rows written by one batch update
+ * @param flushInterval delay between two background flushes, i.e. the most heartbeat data lost on a crash
+ */
+@ConfigurationProperties("restapi.heartbeat")
+public record DeviceHeartbeatProperties(
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("5s") Duration flushInterval) {
+}
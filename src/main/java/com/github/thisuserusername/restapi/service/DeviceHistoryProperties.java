@@ -0,0 +1,22 @@
+package com.github.thisuserusername.restapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link DeviceHistoryRecorder}.
+ *
+ * @param queueCapacity maximum number of history entries waiting for the background flush
+ * @param batchSize     maximum number of rows written by one batch insert
+ * @param flushInterval delay between two background flushes
+ * @param offerTimeout  how long a writer waits for queue space before writing its entry synchronously
+ */
+@ConfigurationProperties("restapi.history")
+public record DeviceHistoryProperties(
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("200ms") Duration flushInterval,
+        @DefaultValue("50ms") Duration offerTimeout) {
+}
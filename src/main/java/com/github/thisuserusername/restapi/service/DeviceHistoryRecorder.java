@@ -0,0 +1,145 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the device change history off the request path.
+ * <p>
+ * Committed {@link DeviceChangedEvent}s are put on a bounded in-memory queue which a scheduled task drains
+ * into multi-row batch inserts. When the queue stays full for longer than the configured offer timeout the
+ * writer inserts its own entry synchronously, so back-pressure slows writers down instead of losing history.
+ * That insert runs in a transaction of its own, as the transaction of the change has already been committed.
+ * A batch that fails to be written is put back on the queue for the next flush; entries that no longer fit are
+ * counted as dropped.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class DeviceHistoryRecorder {
+
+    private static final String INSERT_SQL = "INSERT INTO %s.device_history "
+            + "(device_id, change_type, name, brand, state, device_version, changed_on) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final DeviceHistoryProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate fallbackTransaction;
+    private final TaskScheduler taskScheduler;
+    private final BlockingQueue<Object[]> queue;
+    private final String insertSql;
+    private final Counter writtenRows;
+    private final Counter fallbackRows;
+    private final Counter droppedRows;
+    private ScheduledFuture<?> flushTask;
+
+    public DeviceHistoryRecorder(DeviceHistoryProperties properties,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 TaskScheduler taskScheduler,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.fallbackTransaction = new TransactionTemplate(transactionManager);
+        this.fallbackTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.taskScheduler = taskScheduler;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.insertSql = INSERT_SQL.formatted(schema);
+        this.writtenRows = meterRegistry.counter("device.history.rows", "path", "batch");
+        this.fallbackRows = meterRegistry.counter("device.history.rows", "path", "fallback");
+        this.droppedRows = meterRegistry.counter("device.history.rows", "path", "dropped");
+        Gauge.builder("device.history.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        flushTask = taskScheduler.scheduleWithFixedDelay(() -> ConnectionPool.BACKGROUND.run(this::flush),
+                properties.flushInterval());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        flush();
+        if (!queue.isEmpty()) {
+            LOG.error("Dropping {} device history rows that could not be written before shutdown", queue.size());
+            droppedRows.increment(queue.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        DeviceSnapshot device = Optional.ofNullable(event.after()).orElse(event.before());
+        LocalDateTime changedOn = event.after() == null || device.modifiedOn() == null
+                ? LocalDateTime.now()
+                : device.modifiedOn();
+        Object[] row = {device.id(), event.type().name(), device.name(), device.brand(), device.state().name(),
+                device.version(), Timestamp.valueOf(changedOn)};
+        try {
+            if (queue.offer(row, properties.offerTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOG.warn("History queue is full, writing history of device {} synchronously", device.id());
+        fallbackTransaction.executeWithoutResult(status -> jdbcTemplate.update(insertSql, row));
+        fallbackRows.increment();
+    }
+
+    /**
+     * Drains the queue in batches of at most {@code batchSize} rows. A failed batch is put back on the queue and
+     * ends the flush, so it is retried by the next one.
+     */
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>(properties.batchSize());
+        while (queue.drainTo(batch, properties.batchSize()) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(insertSql, batch);
+                writtenRows.increment(batch.size());
+            } catch (RuntimeException e) {
+                requeue(batch, e);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void requeue(List<Object[]> batch, RuntimeException cause) {
+        int dropped = 0;
+        for (Object[] row : batch) {
+            if (!queue.offer(row)) {
+                dropped++;
+            }
+        }
+        droppedRows.increment(dropped);
+        LOG.error("Failed to write {} device history rows, requeued {} and dropped {}", batch.size(),
+                batch.size() - dropped, dropped, cause);
+    }
+}
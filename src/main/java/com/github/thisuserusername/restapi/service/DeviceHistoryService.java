@@ -0,0 +1,15 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.DeviceHistory;
+
+import java.util.List;
+
+public interface DeviceHistoryService {
+
+    /**
+     * Returns the most recent history entries of a device, newest first.
+     *
+     * @param before if not {@code null}, only entries with a smaller id than this keyset cursor are returned
+     */
+    List<DeviceHistory> getDeviceHistory(long deviceId, Long before, int size);
+}
@@ -0,0 +1,28 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.model.DeviceHistory;
+import com.github.thisuserusername.restapi.repository.DeviceHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@ConditionalOnJdbcStorage
+@RequiredArgsConstructor
+@Transactional(transactionManager = "transactionManager", readOnly = true)
+public class DeviceHistoryServiceImpl implements DeviceHistoryService {
+
+    private final DeviceHistoryRepository deviceHistoryRepository;
+
+    @Override
+    public List<DeviceHistory> getDeviceHistory(long deviceId, Long before, int size) {
+        if (before == null) {
+            return deviceHistoryRepository.findByDeviceIdOrderByIdDesc(deviceId, Limit.of(size));
+        }
+        return deviceHistoryRepository.findByDeviceIdAndIdLessThanOrderByIdDesc(deviceId, before, Limit.of(size));
+    }
+}
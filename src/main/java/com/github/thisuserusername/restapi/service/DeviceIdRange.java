@@ -0,0 +1,7 @@
+package com.github.thisuserusername.restapi.service;
+
+/**
+ * Inclusive range of device ids.
+ */
+public record DeviceIdRange(long min, long max) {
+}
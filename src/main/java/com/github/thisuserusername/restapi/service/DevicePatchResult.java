@@ -0,0 +1,36 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.Device;
+
+/**
+ * Outcome of one item of a batch patch.
+ *
+ * @param device  the patched device, only set for {@link Outcome#UPDATED}
+ * @param message why the patch was not applied, only set for {@link Outcome#REJECTED} and {@link Outcome#CONFLICT}
+ */
+public record DevicePatchResult(long id, Outcome outcome, Device device, String message) {
+
+    public enum Outcome {
+        UPDATED, NOT_FOUND, ARCHIVED, REJECTED, CONFLICT
+    }
+
+    public static DevicePatchResult updated(Device device) {
+        return new DevicePatchResult(device.getId(), Outcome.UPDATED, device, null);
+    }
+
+    public static DevicePatchResult notFound(long id) {
+        return new DevicePatchResult(id, Outcome.NOT_FOUND, null, "Device with ID " + id + " does not exist");
+    }
+
+    public static DevicePatchResult archived(long id) {
+        return new DevicePatchResult(id, Outcome.ARCHIVED, null, new DeviceArchivedException(id).getMessage());
+    }
+
+    public static DevicePatchResult rejected(long id, String message) {
+        return new DevicePatchResult(id, Outcome.REJECTED, null, message);
+    }
+
+    public static DevicePatchResult conflict(long id, String message) {
+        return new DevicePatchResult(id, Outcome.CONFLICT, null, message);
+    }
+}
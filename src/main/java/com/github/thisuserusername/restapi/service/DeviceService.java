@@ -4,6 +4,8 @@ import com.github.thisuserusername.restapi.dto.DeviceDTO;
 import com.github.thisuserusername.restapi.model.Device;
 import org.springframework.data.domain.Page;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface DeviceService {
@@ -12,9 +14,31 @@ public interface DeviceService {
 
     Optional<Device> getDeviceById(long id);
 
+    /**
+     * Finds the device with the given brand and name, the one with the lowest id if several share them. Archived
+     * devices are not found.
+     */
+    Optional<Device> getDeviceByNaturalKey(String brand, String name);
+
     Page<Device> getFilteredDevicesAsPage(DeviceFilter filter, int page, int size);
 
+    /**
+     * @throws DeviceArchivedException if the device has been archived
+     */
     Device updateDevice(long id, DeviceDTO updatedDevice);
 
+    /**
+     * Applies merge-patches to many devices in one transaction. Patches violating a business rule or targeting
+     * a missing or archived device are reported in their result and do not prevent the other patches from being applied,
+     * nor do patches of devices modified concurrently, which are left out of the transaction.
+     *
+     * @param patches patches by device id
+     * @return one result per patch, in the iteration order of {@code patches}
+     */
+    List<DevicePatchResult> patchDevices(Map<Long, DeviceDTO> patches);
+
+    /**
+     * @throws DeviceArchivedException if the device has been archived
+     */
     void deleteDevice(long id);
 }
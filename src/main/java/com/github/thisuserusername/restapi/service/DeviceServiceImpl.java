@@ -1,21 +1,43 @@
 package com.github.thisuserusername.restapi.service;
 
+import com.github.thisuserusername.restapi.cache.DeviceNaturalIdCache;
+import com.github.thisuserusername.restapi.cache.DevicePageCache;
 import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.github.thisuserusername.restapi.jdbc.UsePool;
 import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.ArchivedDevice;
 import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.ArchivedDeviceRepository;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
 import com.github.thisuserusername.restapi.repository.DeviceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,64 +46,264 @@ import java.util.Optional;
 public class DeviceServiceImpl implements DeviceService {
 
     private final DeviceRepository deviceRepository;
+    private final ArchivedDeviceRepository archivedDeviceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DevicePageCache devicePageCache;
+    private final BrandDictionary brandDictionary;
+    private final DeviceNaturalIdCache deviceNaturalIdCache;
+    private final PlatformTransactionManager transactionManager;
 
     @Override
     public Device createDevice(DeviceDTO device) {
         Device entry = new Device();
         BeanUtils.copyProperties(device, entry);
         entry.setState(DeviceState.valueOf(device.getState().toUpperCase()));
-        return deviceRepository.save(entry);
+        Device created = deviceRepository.save(entry);
+        eventPublisher.publishEvent(DeviceChangedEvent.created(DeviceSnapshot.of(created)));
+        return created;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Device> getDeviceById(long id) {
-        return deviceRepository.findById(id);
+        return deviceRepository.findById(id)
+                .or(() -> archivedDeviceRepository.findById(id).map(ArchivedDevice::toDevice));
     }
 
+    /**
+     * Resolves the natural key to an id through the {@link DeviceNaturalIdCache} and loads the device by that id
+     * through {@link #getDeviceById(long)}, so a device archived since its id was cached is still found.
+     */
     @Override
     @Transactional(readOnly = true)
+    public Optional<Device> getDeviceByNaturalKey(String brand, String name) {
+        Optional<Integer> brandId = brandDictionary.idOf(brand);
+        if (brandId.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Long> cachedId = deviceNaturalIdCache.get(brand, name);
+        if (cachedId.isPresent()) {
+            Optional<Device> device = getDeviceById(cachedId.get())
+                    .filter(found -> brand.equals(found.getBrand()) && name.equals(found.getName()));
+            if (device.isPresent()) {
+                return device;
+            }
+            deviceNaturalIdCache.evict(brand, name);
+        }
+
+        long generation = deviceNaturalIdCache.generation();
+        Optional<Long> id = deviceRepository.findIdByBrandIdAndName(brandId.get(), name);
+        id.ifPresent(found -> deviceNaturalIdCache.put(brand, name, found, generation));
+        return id.flatMap(this::getDeviceById);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @UsePool(ConnectionPool.BULK)
     public Page<Device> getFilteredDevicesAsPage(DeviceFilter filter, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        Integer brandId = null;
+        if (filter.brand() != null) {
+            Optional<Integer> knownBrand = brandDictionary.idOf(filter.brand());
+            if (knownBrand.isEmpty()) {
+                return Page.empty(pageRequest);
+            }
+            brandId = knownBrand.get();
+        }
+        if (filter.includeArchived()) {
+            return deviceRepository.findAllIncludingArchived(brandId,
+                    Optional.ofNullable(filter.state()).map(DeviceState::name).orElse(null), pageRequest);
+        }
+
+        Optional<Page<Device>> cached = devicePageCache.get(filter, page, size)
+                .flatMap(ids -> rehydrate(ids, filter, pageRequest));
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
         Device.DeviceBuilder deviceBuilder = Device.builder();
         Optional.ofNullable(filter.brand()).ifPresent(deviceBuilder::brand);
         Optional.ofNullable(filter.state()).ifPresent(deviceBuilder::state);
 
-        return deviceRepository.findAll(Example.of(deviceBuilder.build()), PageRequest.of(page, size));
+        long generation = devicePageCache.generation();
+        Page<Device> result = deviceRepository.findAll(Example.of(deviceBuilder.build()), pageRequest);
+        devicePageCache.put(filter, page, size, result.map(Device::getId).getContent(), result.getTotalElements(),
+                generation);
+        return result;
+    }
+
+    /**
+     * Rebuilds a cached page from the current entities, or returns empty if any of its devices is gone or no longer
+     * matches the filter.
+     */
+    private Optional<Page<Device>> rehydrate(DevicePageCache.CachedPage cached, DeviceFilter filter,
+                                             PageRequest pageRequest) {
+        List<Long> ids = new ArrayList<>(cached.ids().length);
+        for (long id : cached.ids()) {
+            ids.add(id);
+        }
+        Map<Long, Device> devices = deviceRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Device::getId, Function.identity()));
+        if (devices.size() != ids.size() || !devices.values().stream().allMatch(device -> matches(device, filter))) {
+            return Optional.empty();
+        }
+        return Optional.of(new PageImpl<>(ids.stream().map(devices::get).toList(), pageRequest,
+                cached.totalElements()));
+    }
+
+    private static boolean matches(Device device, DeviceFilter filter) {
+        return (filter.brand() == null || filter.brand().equals(device.getBrand()))
+                && (filter.state() == null || filter.state() == device.getState());
     }
 
     @Override
     public Device updateDevice(long id, DeviceDTO updatedDevice) {
         Optional<Device> ex = deviceRepository.findById(id);
         if (ex.isEmpty()) {
+            checkNotArchived(id);
             throw new IllegalArgumentException("Device with ID " + id + " does not exist");
         }
 
         Device device = ex.get();
+        DeviceSnapshot before = DeviceSnapshot.of(device);
+        applyPatch(device, updatedDevice);
+        deviceRepository.flush();
+        eventPublisher.publishEvent(DeviceChangedEvent.updated(before, DeviceSnapshot.of(device)));
+
+        return device;
+    }
+
+    /**
+     * Applies the patches in one transaction. An item whose update fails at the flush, because the device was
+     * modified concurrently or the update violates a constraint, is reported as a conflict and the other items are
+     * applied again in a new transaction. When the failure does not name the device, the retry flushes after every
+     * item to find it.
+     */
+    @Override
+    @UsePool(ConnectionPool.BULK)
+    @Transactional(transactionManager = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
+    public List<DevicePatchResult> patchDevices(Map<Long, DeviceDTO> patches) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Map<Long, DevicePatchResult> conflicts = new HashMap<>();
+        boolean flushEach = false;
+        while (true) {
+            Map<Long, DeviceDTO> remaining = new LinkedHashMap<>(patches);
+            remaining.keySet().removeAll(conflicts.keySet());
+            boolean flushEachItem = flushEach;
+            try {
+                Map<Long, DevicePatchResult> results =
+                        transactionTemplate.execute(status -> applyPatches(remaining, flushEachItem));
+                results.putAll(conflicts);
+                return patches.keySet().stream().map(results::get).toList();
+            } catch (PatchFlushException e) {
+                conflicts.put(e.id, DevicePatchResult.conflict(e.id, e.getMessage()));
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (e.getIdentifier() instanceof Long id && remaining.containsKey(id)) {
+                    conflicts.put(id, DevicePatchResult.conflict(id, modifiedConcurrently(id)));
+                } else if (!flushEach) {
+                    flushEach = true;
+                } else {
+                    throw e;
+                }
+            } catch (DataIntegrityViolationException e) {
+                if (flushEach) {
+                    throw e;
+                }
+                flushEach = true;
+            }
+            LOG.debug("Retrying batch patch, {} conflicting devices left out", conflicts.size());
+        }
+    }
+
+    private Map<Long, DevicePatchResult> applyPatches(Map<Long, DeviceDTO> patches, boolean flushEach) {
+        Map<Long, Device> devices = deviceRepository.findAllById(patches.keySet()).stream()
+                .collect(Collectors.toMap(Device::getId, Function.identity()));
+        List<Long> missing = patches.keySet().stream().filter(id -> !devices.containsKey(id)).toList();
+        Set<Long> archived = missing.isEmpty() ? Set.of() : archivedDeviceRepository.findAllById(missing).stream()
+                .map(ArchivedDevice::getId)
+                .collect(Collectors.toSet());
+        Map<Long, DevicePatchResult> results = new HashMap<>();
+        Map<Device, DeviceSnapshot> patched = new LinkedHashMap<>();
+        patches.forEach((id, patch) -> {
+            Device device = devices.get(id);
+            if (device == null) {
+                results.put(id, archived.contains(id)
+                        ? DevicePatchResult.archived(id) : DevicePatchResult.notFound(id));
+                return;
+            }
+            DeviceSnapshot before = DeviceSnapshot.of(device);
+            try {
+                applyPatch(device, patch);
+            } catch (IllegalArgumentException e) {
+                results.put(id, DevicePatchResult.rejected(id, e.getMessage()));
+                return;
+            }
+            if (flushEach) {
+                flushItem(id);
+            }
+            patched.putIfAbsent(device, before);
+            results.put(id, DevicePatchResult.updated(device));
+        });
+
+        // a single flush lets Hibernate send all versioned updates as one JDBC batch
+        deviceRepository.flush();
+        patched.forEach((device, before) ->
+                eventPublisher.publishEvent(DeviceChangedEvent.updated(before, DeviceSnapshot.of(device))));
+        return results;
+    }
+
+    /**
+     * Archived devices are read like live ones, so a write to one must not look like the device never existed.
+     */
+    private void checkNotArchived(long id) {
+        if (archivedDeviceRepository.existsById(id)) {
+            throw new DeviceArchivedException(id);
+        }
+    }
+
+    private void flushItem(long id) {
+        try {
+            deviceRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new PatchFlushException(id, modifiedConcurrently(id), e);
+        } catch (DataIntegrityViolationException e) {
+            throw new PatchFlushException(id, "Patch of device with ID " + id + " violates a constraint", e);
+        }
+    }
+
+    private static String modifiedConcurrently(long id) {
+        return "Device with ID " + id + " was modified concurrently";
+    }
+
+    /**
+     * Merges the non-null fields of the patch into the device, enforcing the rules for devices in use. The device
+     * is left untouched if the patch is rejected.
+     */
+    private void applyPatch(Device device, DeviceDTO patch) {
         if (device.getState() == DeviceState.IN_USE) {
-            if (ObjectUtils.notEqual(device.getBrand(), ObjectUtils.firstNonNull(updatedDevice.getBrand(), device.getBrand()))) {
+            if (ObjectUtils.notEqual(device.getBrand(), ObjectUtils.firstNonNull(patch.getBrand(), device.getBrand()))) {
                 throw new IllegalArgumentException("Cannot update brand of device that is in use");
             }
-            if (ObjectUtils.notEqual(device.getName(), ObjectUtils.firstNonNull(updatedDevice.getName(), updatedDevice.getName()))) {
+            if (ObjectUtils.notEqual(device.getName(), ObjectUtils.firstNonNull(patch.getName(), patch.getName()))) {
                 throw new IllegalArgumentException("Cannot update name of device that is in use");
             }
         }
 
-        device.setName(ObjectUtils.firstNonNull(updatedDevice.getName(), device.getName()));
-        device.setBrand(ObjectUtils.firstNonNull(updatedDevice.getBrand(), device.getBrand()));
-        device.setState(Optional.ofNullable(updatedDevice.getState())
+        DeviceState state = Optional.ofNullable(patch.getState())
                 .filter(Objects::nonNull)
                 .map(String::toUpperCase)
                 .map(DeviceState::valueOf)
-                .orElseGet(device::getState));
-        deviceRepository.flush();
-
-        return device;
+                .orElseGet(device::getState);
+        device.setName(ObjectUtils.firstNonNull(patch.getName(), device.getName()));
+        device.setBrand(ObjectUtils.firstNonNull(patch.getBrand(), device.getBrand()));
+        device.setState(state);
     }
 
     @Override
     public void deleteDevice(long id) {
         Optional<Device> ex = deviceRepository.findById(id);
         if (ex.isEmpty()) {
+            checkNotArchived(id);
             throw new IllegalArgumentException("Device with ID " + id + " does not exist");
         }
 
@@ -90,6 +312,21 @@ public class DeviceServiceImpl implements DeviceService {
             throw new IllegalArgumentException("Cannot delete device that is in use");
         }
 
-        deviceRepository.deleteById(id);
+        // deleteById would look the device up again
+        deviceRepository.delete(device);
+        eventPublisher.publishEvent(DeviceChangedEvent.deleted(DeviceSnapshot.of(device)));
+    }
+
+    /**
+     * Names the device whose update failed when the patches are flushed one by one.
+     */
+    private static class PatchFlushException extends RuntimeException {
+
+        private final long id;
+
+        PatchFlushException(long id, String message, Throwable cause) {
+            super(message, cause);
+            this.id = id;
+        }
     }
 }
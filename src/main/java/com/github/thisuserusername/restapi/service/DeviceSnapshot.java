@@ -0,0 +1,18 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of the persistent state of a {@link Device} at a given point of a change.
+ */
+public record DeviceSnapshot(Long id, String name, String brand, DeviceState state, Long version,
+                             LocalDateTime modifiedOn) {
+
+    public static DeviceSnapshot of(Device device) {
+        return new DeviceSnapshot(device.getId(), device.getName(), device.getBrand(), device.getState(),
+                device.getVersion(), device.getModifiedOn());
+    }
+}
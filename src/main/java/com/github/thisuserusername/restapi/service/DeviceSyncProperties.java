@@ -0,0 +1,21 @@
+package com.github.thisuserusername.restapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link DeviceSyncService}.
+ *
+ * @param safetyLag          changes younger than this are held back, so that transactions which stamped an earlier
+ *                           modification time but commit later are not skipped by a watermark
+ * @param tombstoneRetention how long removed devices are reported; older watermarks require a full resync
+ * @param purgeCron          schedule of the tombstone purge, {@code -} disables it
+ */
+@ConfigurationProperties("restapi.sync")
+public record DeviceSyncProperties(
+        @DefaultValue("5s") Duration safetyLag,
+        @DefaultValue("30d") Duration tombstoneRetention,
+        @DefaultValue("-") String purgeCron) {
+}
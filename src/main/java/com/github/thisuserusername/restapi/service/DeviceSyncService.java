@@ -0,0 +1,133 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.github.thisuserusername.restapi.jdbc.UsePool;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceChangeType;
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Serves the device changes after a {@link SyncWatermark} to clients keeping a local copy of the inventory.
+ * <p>
+ * Created and modified devices are read by keyset over {@code (modified_on, id)}; removed devices leave a tombstone
+ * in {@code device_tombstones}, written in the transaction of the removal and kept for the configured retention.
+ * Both are merged into one stream ordered by time and id, so a watermark is a single position in it.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class DeviceSyncService {
+
+    private static final String INSERT_TOMBSTONE_SQL = "INSERT INTO %s.device_tombstones (device_id, deleted_on) "
+            + "VALUES (?, ?)";
+    private static final String SELECT_TOMBSTONES_SQL = "SELECT device_id, deleted_on FROM %s.device_tombstones "
+            + "WHERE deleted_on < ? AND (deleted_on > ? OR (deleted_on = ? AND device_id > ?)) "
+            + "ORDER BY deleted_on, device_id FETCH FIRST ? ROWS ONLY";
+    private static final String PURGE_TOMBSTONES_SQL = "DELETE FROM %s.device_tombstones WHERE deleted_on < ?";
+
+    private final DeviceSyncProperties properties;
+    private final DeviceRepository deviceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final String schema;
+
+    public DeviceSyncService(DeviceSyncProperties properties,
+                             DeviceRepository deviceRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.properties = properties;
+        this.deviceRepository = deviceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.schema = schema;
+    }
+
+    /**
+     * @return at most {@code limit} changes after {@code since}, in time and id order
+     */
+    public DeviceChanges getChangesSince(SyncWatermark since, int limit) {
+        LocalDateTime until = LocalDateTime.now().minus(properties.safetyLag()).truncatedTo(ChronoUnit.MICROS);
+        List<Change> changes = readOnlyTransactionTemplate.execute(status -> {
+            List<Change> merged = new ArrayList<>(2 * limit + 2);
+            deviceRepository.findModifiedAfter(since.modifiedOn(), since.id(), until, Limit.of(limit + 1))
+                    .forEach(device -> merged.add(
+                            new Change(new SyncWatermark(device.getModifiedOn(), device.getId()), device)));
+            Timestamp after = Timestamp.valueOf(since.modifiedOn());
+            jdbcTemplate.query(SELECT_TOMBSTONES_SQL.formatted(schema), rs -> {
+                merged.add(new Change(new SyncWatermark(rs.getTimestamp("deleted_on").toLocalDateTime(),
+                        rs.getLong("device_id")), null));
+            }, Timestamp.valueOf(until), after, after, since.id(), limit + 1);
+            merged.sort(Comparator.comparing(Change::position));
+            return merged;
+        });
+
+        // every source was read one row beyond the limit, so fewer rows mean both are exhausted
+        boolean hasMore = changes.size() > limit;
+        List<Change> page = hasMore ? changes.subList(0, limit) : changes;
+        SyncWatermark watermark = hasMore
+                ? page.get(page.size() - 1).position()
+                : ObjectUtils.max(since, new SyncWatermark(until, 0));
+        List<Device> devices = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        for (Change change : page) {
+            if (change.device() != null) {
+                devices.add(change.device());
+            } else {
+                deletedIds.add(change.position().id());
+            }
+        }
+        return new DeviceChanges(devices, deletedIds, watermark, hasMore);
+    }
+
+    /**
+     * @return whether tombstones after {@code since} may have been purged already, so that a client syncing from it
+     * could miss removed devices and has to resync from scratch
+     */
+    public boolean isExpired(SyncWatermark since) {
+        return !since.equals(SyncWatermark.ORIGIN)
+                && since.modifiedOn().isBefore(LocalDateTime.now().minus(properties.tombstoneRetention()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (event.type() == DeviceChangeType.DELETED || event.type() == DeviceChangeType.ARCHIVED) {
+            jdbcTemplate.update(INSERT_TOMBSTONE_SQL.formatted(schema), event.deviceId(),
+                    Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)));
+        }
+    }
+
+    @Scheduled(cron = "${restapi.sync.purge-cron:-}")
+    @UsePool(ConnectionPool.BACKGROUND)
+    public void purgeTombstones() {
+        int purged = jdbcTemplate.update(PURGE_TOMBSTONES_SQL.formatted(schema),
+                Timestamp.valueOf(LocalDateTime.now().minus(properties.tombstoneRetention())));
+        LOG.info("Purged {} device tombstones", purged);
+    }
+
+    /**
+     * @param device the changed device, {@code null} for a tombstone
+     */
+    private record Change(SyncWatermark position, Device device) {
+    }
+}
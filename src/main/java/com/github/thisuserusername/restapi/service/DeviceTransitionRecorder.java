@@ -0,0 +1,53 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Appends a row to {@code device_state_transitions} whenever a device is created, removed, or changes its state or
+ * brand. Rows are written before the commit of the change itself, so the transitions are exactly the committed
+ * history of states the {@link DeviceUtilizationService} aggregates.
+ */
+@Component
+@ConditionalOnJdbcStorage
+public class DeviceTransitionRecorder {
+
+    private static final String INSERT_SQL = "INSERT INTO %s.device_state_transitions "
+            + "(device_id, brand_id, state, changed_on) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BrandDictionary brandDictionary;
+    private final String insertSql;
+
+    public DeviceTransitionRecorder(JdbcTemplate jdbcTemplate,
+                                    BrandDictionary brandDictionary,
+                                    @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.brandDictionary = brandDictionary;
+        this.insertSql = INSERT_SQL.formatted(schema);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        DeviceSnapshot before = event.before();
+        DeviceSnapshot after = event.after();
+        if (before != null && after != null
+                && before.state() == after.state() && Objects.equals(before.brand(), after.brand())) {
+            return;
+        }
+        DeviceSnapshot device = Objects.requireNonNullElse(after, before);
+        LocalDateTime changedOn = after == null || after.modifiedOn() == null ? LocalDateTime.now() : after.modifiedOn();
+        int brandId = brandDictionary.idOf(device.brand()).orElseGet(() -> brandDictionary.register(device.brand()));
+        jdbcTemplate.update(insertSql, device.id(), brandId, after == null ? null : after.state().name(),
+                Timestamp.valueOf(changedOn));
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.thisuserusername.restapi.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the {@link DeviceUtilizationService}.
+ *
+ * @param fetchSize  rows fetched per round trip while streaming transitions
+ * @param rollupCron schedule of the daily summary rollup, {@code -} disables it
+ */
+@ConfigurationProperties("restapi.utilization")
+public record DeviceUtilizationProperties(
+        @DefaultValue("1000") int fetchSize,
+        @DefaultValue("-") String rollupCron) {
+}
@@ -0,0 +1,243 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.config.ConditionalOnJdbcStorage;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.github.thisuserusername.restapi.jdbc.UsePool;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Computes how long devices and brands spend in each state from the append-only {@code device_state_transitions}.
+ * <p>
+ * Transitions are streamed in device and time order through an {@link UtilizationAggregator}, so a window of any
+ * length is computed in constant memory. Completed days are rolled up per brand into {@code device_utilization_daily}
+ * once, by a scheduled job continuing after the last rolled up day, so dashboards read daily totals without
+ * rescanning the transitions. The job reads all pending days in one pass, carrying the state each device ends a day
+ * with into the next, instead of looking up the opening states again for every day.
+ */
+@Component
+@ConditionalOnJdbcStorage
+@Slf4j
+public class DeviceUtilizationService {
+
+    // the state each device was in at :from, found by one pass over the (device_id, changed_on) index
+    private static final String OPENING_SQL = "SELECT o.id, o.device_id, o.brand_id, o.state, o.changed_on"
+            + " FROM %1$s.device_state_transitions o JOIN (SELECT p.device_id, MAX(p.changed_on) AS changed_on"
+            + " FROM %1$s.device_state_transitions p WHERE p.changed_on < :from GROUP BY p.device_id) l"
+            + " ON l.device_id = o.device_id AND l.changed_on = o.changed_on";
+    private static final String RANGE_SQL = "SELECT r.id, r.device_id, r.brand_id, r.state, r.changed_on"
+            + " FROM %1$s.device_state_transitions r WHERE r.changed_on >= :from AND r.changed_on < :to";
+    private static final String TRANSITIONS_SQL = "SELECT t.device_id, t.brand_id, t.state, t.changed_on"
+            + " FROM (" + OPENING_SQL + " UNION ALL " + RANGE_SQL + ") t";
+    private static final String BRAND_FILTER = " WHERE t.device_id IN (SELECT b.device_id"
+            + " FROM %1$s.device_state_transitions b WHERE b.brand_id = :brandId AND b.changed_on < :to)";
+    private static final String TRANSITIONS_ORDER = " ORDER BY t.device_id, t.changed_on, t.id";
+    private static final String LAST_DAY_SQL = "SELECT MAX(day) FROM %s.device_utilization_daily";
+    private static final String FIRST_TRANSITION_SQL = "SELECT MIN(changed_on) FROM %s.device_state_transitions";
+    private static final String DELETE_DAY_SQL = "DELETE FROM %s.device_utilization_daily WHERE day = :day";
+    private static final String INSERT_DAY_SQL = "INSERT INTO %s.device_utilization_daily"
+            + " (day, brand_id, state, duration_ms) VALUES (:day, :brandId, :state, :durationMs)";
+    private static final String DAILY_SQL = "SELECT day, brand_id, state, duration_ms FROM %s.device_utilization_daily"
+            + " WHERE day BETWEEN :from AND :to";
+    private static final String DAILY_BRAND_FILTER = " AND brand_id = :brandId";
+    private static final String DAILY_ORDER = " ORDER BY day, brand_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final BrandDictionary brandDictionary;
+    private final String schema;
+
+    public DeviceUtilizationService(DeviceUtilizationProperties properties,
+                                    DataSource dataSource,
+                                    NamedParameterJdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    BrandDictionary brandDictionary,
+                                    @Value("${spring.liquibase.liquibase-schema}") String schema) {
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(properties.fetchSize());
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // cursors only stream inside a transaction on PostgreSQL
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.brandDictionary = brandDictionary;
+        this.schema = schema;
+    }
+
+    /**
+     * Passes the utilization of every device with time in {@code [from, to)} to {@code sink}, as soon as the
+     * device is complete.
+     *
+     * @param brand only count the time devices belonged to this brand, all brands if {@code null}
+     */
+    public void streamDeviceUtilization(LocalDateTime from, LocalDateTime to, String brand, Consumer<Utilization> sink) {
+        aggregate(from, to, brand, false,
+                (deviceId, millis) -> sink.accept(Utilization.of(String.valueOf(deviceId), null, millis)));
+    }
+
+    /**
+     * @param brand only this brand, all brands if {@code null}
+     * @return the utilization of every brand with time in {@code [from, to)}
+     */
+    public List<Utilization> getBrandUtilization(LocalDateTime from, LocalDateTime to, String brand) {
+        return aggregate(from, to, brand, false, null)
+                .map(aggregator -> toUtilizations(aggregator.millisByBrand(), null))
+                .orElse(List.of());
+    }
+
+    /**
+     * @param brand only this brand, all brands if {@code null}
+     * @return the rolled up daily utilization per brand for the days from {@code from} to {@code to} inclusive
+     */
+    public List<Utilization> getDailyUtilization(LocalDate from, LocalDate to, String brand) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("from", Date.valueOf(from))
+                .addValue("to", Date.valueOf(to));
+        String sql = DAILY_SQL.formatted(schema);
+        if (brand != null) {
+            Optional<Integer> brandId = brandDictionary.idOf(brand);
+            if (brandId.isEmpty()) {
+                return List.of();
+            }
+            parameters.addValue("brandId", brandId.get());
+            sql += DAILY_BRAND_FILTER;
+        }
+        Map<LocalDate, Map<Integer, long[]>> days = new LinkedHashMap<>();
+        jdbcTemplate.query(sql + DAILY_ORDER, parameters, rs -> {
+            days.computeIfAbsent(rs.getDate("day").toLocalDate(), day -> new LinkedHashMap<>())
+                    .computeIfAbsent(rs.getInt("brand_id"), id -> new long[DeviceState.values().length])
+                    [DeviceState.valueOf(rs.getString("state")).ordinal()] = rs.getLong("duration_ms");
+        });
+        List<Utilization> result = new ArrayList<>();
+        days.forEach((day, millisByBrand) -> result.addAll(toUtilizations(millisByBrand, day)));
+        return result;
+    }
+
+    /**
+     * Rolls up every completed day after the last rolled up one.
+     */
+    @Scheduled(cron = "${restapi.utilization.rollup-cron:-}")
+    @UsePool(ConnectionPool.BACKGROUND)
+    public void rollUp() {
+        LocalDate today = LocalDate.now();
+        LocalDate day = Optional.ofNullable(jdbcTemplate.getJdbcTemplate()
+                        .queryForObject(LAST_DAY_SQL.formatted(schema), Date.class))
+                .map(last -> last.toLocalDate().plusDays(1))
+                .or(() -> Optional.ofNullable(jdbcTemplate.getJdbcTemplate()
+                                .queryForObject(FIRST_TRANSITION_SQL.formatted(schema), Timestamp.class))
+                        .map(first -> first.toLocalDateTime().toLocalDate()))
+                .orElse(today);
+        if (day.isBefore(today)) {
+            rollUpDays(day, today);
+            LOG.info("Rolled up device utilization from {} until {}", day, today);
+        }
+    }
+
+    /**
+     * Replaces the daily summaries of the days from {@code from} until before {@code until}, reading the transitions
+     * of all of them in one pass.
+     */
+    public void rollUpDays(LocalDate from, LocalDate until) {
+        Map<LocalDate, Map<Integer, long[]>> millisByDay =
+                aggregate(from.atStartOfDay(), until.atStartOfDay(), null, true, null)
+                        .map(UtilizationAggregator::millisByDay)
+                        .orElse(Map.of());
+        for (LocalDate day = from; day.isBefore(until); day = day.plusDays(1)) {
+            writeDay(day, millisByDay.getOrDefault(day, Map.of()));
+        }
+    }
+
+    /**
+     * Replaces the daily summary of {@code day}.
+     */
+    public void rollUpDay(LocalDate day) {
+        writeDay(day, aggregate(day.atStartOfDay(), day.plusDays(1).atStartOfDay(), null, false, null)
+                .map(UtilizationAggregator::millisByBrand)
+                .orElse(Map.of()));
+    }
+
+    private void writeDay(LocalDate day, Map<Integer, long[]> millisByBrand) {
+        List<SqlParameterSource> rows = new ArrayList<>();
+        millisByBrand.forEach((brandId, millis) -> {
+            for (DeviceState state : DeviceState.values()) {
+                rows.add(new MapSqlParameterSource()
+                        .addValue("day", Date.valueOf(day))
+                        .addValue("brandId", brandId)
+                        .addValue("state", state.name())
+                        .addValue("durationMs", millis[state.ordinal()]));
+            }
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_DAY_SQL.formatted(schema), new MapSqlParameterSource("day", Date.valueOf(day)));
+            jdbcTemplate.batchUpdate(INSERT_DAY_SQL.formatted(schema), rows.toArray(SqlParameterSource[]::new));
+        });
+    }
+
+    /**
+     * @param byDay whether the aggregator splits the time per day as well
+     * @return the completed aggregator, empty if the brand is unknown
+     */
+    private Optional<UtilizationAggregator> aggregate(LocalDateTime from, LocalDateTime to, String brand,
+                                                      boolean byDay, UtilizationAggregator.DeviceSink deviceSink) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime end = to.isAfter(now) ? now : to;
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(end));
+        String sql = TRANSITIONS_SQL;
+        UtilizationAggregator aggregator;
+        if (brand != null) {
+            Optional<Integer> brandId = brandDictionary.idOf(brand);
+            if (brandId.isEmpty()) {
+                return Optional.empty();
+            }
+            int id = brandId.get();
+            parameters.addValue("brandId", id);
+            sql += BRAND_FILTER;
+            aggregator = new UtilizationAggregator(from, end, candidate -> candidate == id, byDay, deviceSink);
+        } else {
+            aggregator = new UtilizationAggregator(from, end, candidate -> true, byDay, deviceSink);
+        }
+        String query = (sql + TRANSITIONS_ORDER).formatted(schema);
+        readOnlyTransactionTemplate.executeWithoutResult(status ->
+                streamingJdbcTemplate.query(query, parameters, rs -> {
+                    String state = rs.getString("state");
+                    aggregator.accept(rs.getLong("device_id"), rs.getInt("brand_id"),
+                            state == null ? null : DeviceState.valueOf(state),
+                            rs.getTimestamp("changed_on").toLocalDateTime());
+                }));
+        aggregator.finish();
+        return Optional.of(aggregator);
+    }
+
+    private List<Utilization> toUtilizations(Map<Integer, long[]> millisByBrand, LocalDate day) {
+        return millisByBrand.entrySet().stream()
+                .map(entry -> Utilization.of(brandDictionary.nameOf(entry.getKey()), day, entry.getValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.thisuserusername.restapi.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in the stream of device changes ordered by modification time and device id, exchanged with clients as
+ * an opaque token.
+ */
+public record SyncWatermark(LocalDateTime modifiedOn, long id) implements Comparable<SyncWatermark> {
+
+    /**
+     * Position before every change.
+     */
+    public static final SyncWatermark ORIGIN = new SyncWatermark(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+
+    private static final String VERSION = "v1";
+
+    public SyncWatermark {
+        // timestamps are stored with microsecond precision
+        modifiedOn = modifiedOn.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public String encode() {
+        long micros = ChronoUnit.MICROS.between(ORIGIN.modifiedOn(), modifiedOn);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((VERSION + ":" + micros + ":" + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a watermark
+     */
+    public static SyncWatermark decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+            if (parts.length == 3 && VERSION.equals(parts[0])) {
+                return new SyncWatermark(ORIGIN.modifiedOn().plus(Long.parseLong(parts[1]), ChronoUnit.MICROS),
+                        Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid watermark: " + token, e);
+        }
+        throw new IllegalArgumentException("Invalid watermark: " + token);
+    }
+
+    @Override
+    public int compareTo(SyncWatermark other) {
+        int byTime = modifiedOn.compareTo(other.modifiedOn);
+        return byTime != 0 ? byTime : Long.compare(id, other.id);
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.DeviceState;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Time a device or brand spent in each state within a time window.
+ *
+ * @param key device id or brand name
+ * @param day day of a daily summary, {@code null} for an arbitrary window
+ */
+public record Utilization(String key, LocalDate day, Duration available, Duration inUse, Duration inactive) {
+
+    static Utilization of(String key, LocalDate day, long[] millisByState) {
+        return new Utilization(key, day,
+                Duration.ofMillis(millisByState[DeviceState.AVAILABLE.ordinal()]),
+                Duration.ofMillis(millisByState[DeviceState.IN_USE.ordinal()]),
+                Duration.ofMillis(millisByState[DeviceState.INACTIVE.ordinal()]));
+    }
+
+    /**
+     * @return the share of the time in use out of the time in use or available, 0 if neither
+     */
+    public double ratio() {
+        long busy = inUse.toMillis();
+        long total = busy + available.toMillis();
+        return total == 0 ? 0 : (double) busy / total;
+    }
+}
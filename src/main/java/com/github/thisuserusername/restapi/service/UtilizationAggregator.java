@@ -0,0 +1,131 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.DeviceState;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Folds device state transitions into the time spent per state within {@code [from, to)}.
+ * <p>
+ * Transitions must arrive ordered by device and then time, starting with the last transition of each device before
+ * {@code from}. Only the open interval of the current device is kept, so memory does not grow with the number of
+ * transitions or devices. Totals per brand are kept as well, bounded by the number of brands. Intervals are
+ * counted only while the device belongs to a brand accepted by the brand filter, and devices without any time
+ * in the window are not reported. Split by day, the totals per brand are also kept for every day of the window, so
+ * a window of several days yields the daily totals in one pass.
+ */
+class UtilizationAggregator {
+
+    interface DeviceSink {
+        void accept(long deviceId, long[] millisByState);
+    }
+
+    private static final int STATES = DeviceState.values().length;
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final IntPredicate brandFilter;
+    private final DeviceSink deviceSink;
+    private final Map<Integer, long[]> millisByBrand = new HashMap<>();
+    private final Map<LocalDate, Map<Integer, long[]>> millisByDay;
+
+    private long deviceId = -1;
+    private int brandId;
+    private DeviceState state;
+    private LocalDateTime since;
+    private long[] deviceMillis = new long[STATES];
+
+    /**
+     * @param byDay whether the totals per brand are split by day as well
+     */
+    UtilizationAggregator(LocalDateTime from, LocalDateTime to, IntPredicate brandFilter, boolean byDay,
+                          DeviceSink deviceSink) {
+        this.from = from;
+        this.to = to;
+        this.brandFilter = brandFilter;
+        this.millisByDay = byDay ? new HashMap<>() : null;
+        this.deviceSink = deviceSink;
+    }
+
+    /**
+     * @param state the state entered, {@code null} if the device was removed
+     */
+    void accept(long deviceId, int brandId, DeviceState state, LocalDateTime changedOn) {
+        if (deviceId != this.deviceId) {
+            finishDevice();
+            this.deviceId = deviceId;
+        } else {
+            close(changedOn);
+        }
+        this.brandId = brandId;
+        this.state = state;
+        this.since = changedOn;
+    }
+
+    /**
+     * Closes the interval of the last device at the end of the window.
+     */
+    void finish() {
+        finishDevice();
+    }
+
+    /**
+     * @return the time per state by brand id, indexed by {@link DeviceState#ordinal()}
+     */
+    Map<Integer, long[]> millisByBrand() {
+        return millisByBrand;
+    }
+
+    /**
+     * @return the time per state by brand id of every day with any time, only if split by day
+     */
+    Map<LocalDate, Map<Integer, long[]>> millisByDay() {
+        return millisByDay;
+    }
+
+    private void close(LocalDateTime until) {
+        if (state == null || !brandFilter.test(brandId)) {
+            return;
+        }
+        LocalDateTime start = since.isAfter(from) ? since : from;
+        LocalDateTime end = until.isBefore(to) ? until : to;
+        if (end.isAfter(start)) {
+            long millis = Duration.between(start, end).toMillis();
+            deviceMillis[state.ordinal()] += millis;
+            millisByBrand.computeIfAbsent(brandId, id -> new long[STATES])[state.ordinal()] += millis;
+            if (millisByDay != null) {
+                splitByDay(start, end);
+            }
+        }
+    }
+
+    private void splitByDay(LocalDateTime start, LocalDateTime end) {
+        for (LocalDateTime dayStart = start; dayStart.isBefore(end); ) {
+            LocalDate day = dayStart.toLocalDate();
+            LocalDateTime nextDay = day.plusDays(1).atStartOfDay();
+            LocalDateTime dayEnd = nextDay.isBefore(end) ? nextDay : end;
+            millisByDay.computeIfAbsent(day, ignored -> new HashMap<>())
+                    .computeIfAbsent(brandId, id -> new long[STATES])[state.ordinal()] +=
+                    Duration.between(dayStart, dayEnd).toMillis();
+            dayStart = dayEnd;
+        }
+    }
+
+    private void finishDevice() {
+        if (deviceId < 0) {
+            return;
+        }
+        close(to);
+        if (deviceSink != null && Arrays.stream(deviceMillis).anyMatch(millis -> millis > 0)) {
+            deviceSink.accept(deviceId, deviceMillis);
+        }
+        deviceMillis = new long[STATES];
+        state = null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.thisuserusername.restapi.shard;
+
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import com.github.thisuserusername.restapi.service.DeviceService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * One shard of the device store: its repository, a {@link DeviceService} working on that repository and the
+ * transaction manager of its datasource. The service is not transactional itself, every call but a batch patch,
+ * which manages its own transactions, has to be wrapped in {@link #inTransaction} or {@link #readOnly}.
+ */
+public class DeviceShard {
+
+    private final int index;
+    private final DeviceRepository deviceRepository;
+    private final DeviceService deviceService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public DeviceShard(int index, DeviceRepository deviceRepository, DeviceService deviceService,
+                       PlatformTransactionManager transactionManager) {
+        this.index = index;
+        this.deviceRepository = deviceRepository;
+        this.deviceService = deviceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public DeviceRepository deviceRepository() {
+        return deviceRepository;
+    }
+
+    public DeviceService deviceService() {
+        return deviceService;
+    }
+
+    public <T> T inTransaction(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    public <T> T readOnly(Supplier<T> action) {
+        return readOnlyTransactionTemplate.execute(status -> action.get());
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.thisuserusername.restapi.shard;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The shards of the device store and the id allocation scheme across them.
+ * <p>
+ * The identity column of shard {@code k} out of {@code n} starts at {@code k + 1} and increments by {@code n},
+ * so every shard allocates ids from its own residue class and the owning shard of an id follows from the id
+ * alone. New devices are spread over the shards round-robin.
+ */
+@Slf4j
+public class DeviceShards implements AutoCloseable {
+
+    private final List<DeviceShard> shards;
+    private final List<AutoCloseable> resources;
+    private final ExecutorService gatherExecutor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public DeviceShards(List<DeviceShard> shards, List<AutoCloseable> resources) {
+        this.shards = List.copyOf(shards);
+        this.resources = List.copyOf(resources);
+        AtomicInteger threads = new AtomicInteger();
+        this.gatherExecutor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-gather-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<DeviceShard> all() {
+        return shards;
+    }
+
+    /**
+     * @return the shard owning the device with the given id
+     */
+    public DeviceShard forId(long id) {
+        return shards.get((int) Math.floorMod(id - 1, (long) shards.size()));
+    }
+
+    /**
+     * @return the shard a new device is written to
+     */
+    public DeviceShard forInsert() {
+        return shards.get(Math.floorMod(nextShard.getAndIncrement(), shards.size()));
+    }
+
+    ExecutorService gatherExecutor() {
+        return gatherExecutor;
+    }
+
+    @Override
+    public void close() {
+        gatherExecutor.shutdownNow();
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                LOG.warn("Failed to close shard resource {}", resource, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.thisuserusername.restapi.shard;
+
+import com.github.thisuserusername.restapi.cache.DeviceNaturalIdCache;
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import com.github.thisuserusername.restapi.service.DevicePatchResult;
+import com.github.thisuserusername.restapi.service.DeviceService;
+import com.google.common.collect.Iterators;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link DeviceService} of the sharded device store. Operations on a single device are routed to the shard
+ * owning its id, new devices are spread over all shards. Listings query every shard for its first
+ * {@code (page + 1) * size} matches ordered by id and merge them, so deep pages get more expensive with the
+ * number of shards.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "restapi.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedDeviceService implements DeviceService {
+
+    private static final Sort BY_ID = Sort.by("id");
+
+    private final DeviceShards deviceShards;
+    private final BrandDictionary brandDictionary;
+    private final ShardingProperties properties;
+    private final DeviceNaturalIdCache deviceNaturalIdCache;
+
+    @Override
+    public Device createDevice(DeviceDTO device) {
+        DeviceShard shard = deviceShards.forInsert();
+        return shard.inTransaction(() -> shard.deviceService().createDevice(device));
+    }
+
+    @Override
+    public Optional<Device> getDeviceById(long id) {
+        DeviceShard shard = deviceShards.forId(id);
+        return shard.readOnly(() -> shard.deviceService().getDeviceById(id));
+    }
+
+    /**
+     * Resolves the natural key through the shared {@link DeviceNaturalIdCache}; on a miss every shard is asked for
+     * its lowest id with the key.
+     */
+    @Override
+    public Optional<Device> getDeviceByNaturalKey(String brand, String name) {
+        Optional<Integer> brandId = brandDictionary.idOf(brand);
+        if (brandId.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Long> cachedId = deviceNaturalIdCache.get(brand, name);
+        if (cachedId.isPresent()) {
+            Optional<Device> device = getDeviceById(cachedId.get())
+                    .filter(found -> brand.equals(found.getBrand()) && name.equals(found.getName()));
+            if (device.isPresent()) {
+                return device;
+            }
+            deviceNaturalIdCache.evict(brand, name);
+        }
+
+        long generation = deviceNaturalIdCache.generation();
+        List<CompletableFuture<Optional<Long>>> gathered = deviceShards.all().stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> shard.readOnly(() ->
+                                shard.deviceRepository().findIdByBrandIdAndName(brandId.get(), name)),
+                        deviceShards.gatherExecutor()))
+                .toList();
+        long deadline = System.nanoTime() + properties.gatherTimeout().toNanos();
+        Optional<Long> id = Optional.empty();
+        for (CompletableFuture<Optional<Long>> future : gathered) {
+            Optional<Long> shardId = await(future, deadline);
+            if (shardId.isPresent() && (id.isEmpty() || shardId.get() < id.get())) {
+                id = shardId;
+            }
+        }
+        id.ifPresent(found -> deviceNaturalIdCache.put(brand, name, found, generation));
+        return id.flatMap(this::getDeviceById);
+    }
+
+    @Override
+    public Page<Device> getFilteredDevicesAsPage(DeviceFilter filter, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        Integer brandId = null;
+        if (filter.brand() != null) {
+            Optional<Integer> knownBrand = brandDictionary.idOf(filter.brand());
+            if (knownBrand.isEmpty()) {
+                return Page.empty(pageRequest);
+            }
+            brandId = knownBrand.get();
+        }
+
+        PageRequest shardRequest = PageRequest.of(0, Math.multiplyExact(page + 1, size), BY_ID);
+        Device probe = Device.builder().brand(filter.brand()).state(filter.state()).build();
+        String state = Optional.ofNullable(filter.state()).map(DeviceState::name).orElse(null);
+        Integer shardBrandId = brandId;
+        List<CompletableFuture<Page<Device>>> gathered = deviceShards.all().stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> shard.readOnly(() -> filter.includeArchived()
+                        ? shard.deviceRepository().findAllIncludingArchived(shardBrandId, state, shardRequest)
+                        : shard.deviceRepository().findAll(Example.of(probe), shardRequest)),
+                        deviceShards.gatherExecutor()))
+                .toList();
+
+        long deadline = System.nanoTime() + properties.gatherTimeout().toNanos();
+        long totalElements = 0;
+        List<Iterator<Device>> slices = new ArrayList<>(gathered.size());
+        for (CompletableFuture<Page<Device>> future : gathered) {
+            Page<Device> slice = await(future, deadline);
+            totalElements += slice.getTotalElements();
+            slices.add(slice.iterator());
+        }
+
+        Iterator<Device> merged = Iterators.mergeSorted(slices, Comparator.comparing(Device::getId));
+        Iterators.advance(merged, (int) pageRequest.getOffset());
+        List<Device> content = new ArrayList<>(size);
+        Iterators.addAll(content, Iterators.limit(merged, size));
+        return new PageImpl<>(content, pageRequest, totalElements);
+    }
+
+    @Override
+    public Device updateDevice(long id, DeviceDTO updatedDevice) {
+        DeviceShard shard = deviceShards.forId(id);
+        return shard.inTransaction(() -> shard.deviceService().updateDevice(id, updatedDevice));
+    }
+
+    /**
+     * Patches the devices of every shard in a transaction of that shard, so the batch is only atomic per shard.
+     */
+    @Override
+    public List<DevicePatchResult> patchDevices(Map<Long, DeviceDTO> patches) {
+        Map<DeviceShard, Map<Long, DeviceDTO>> patchesByShard = new LinkedHashMap<>();
+        patches.forEach((id, patch) ->
+                patchesByShard.computeIfAbsent(deviceShards.forId(id), shard -> new LinkedHashMap<>()).put(id, patch));
+        Map<Long, DevicePatchResult> results = new HashMap<>();
+        // the service runs a batch patch in transactions of its own, to retry it without the conflicting devices
+        patchesByShard.forEach((shard, shardPatches) -> shard.deviceService().patchDevices(shardPatches)
+                .forEach(result -> results.put(result.id(), result)));
+        return patches.keySet().stream().map(results::get).toList();
+    }
+
+    @Override
+    public void deleteDevice(long id) {
+        DeviceShard shard = deviceShards.forId(id);
+        shard.inTransaction(() -> {
+            shard.deviceService().deleteDevice(id);
+            return null;
+        });
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long deadline) {
+        try {
+            return future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the device shards", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IllegalStateException("Device shard did not answer in time", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.thisuserusername.restapi.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the sharded device store.
+ *
+ * @param enabled       whether devices are stored on the shard datasources instead of the primary datasource
+ * @param shards        connection settings of the shards; their order defines the shard index and must never change
+ *                      once devices have been written
+ * @param gatherTimeout how long a listing waits for the slowest shard
+ * @param poolSize      maximum connection pool size per shard
+ */
+@ConfigurationProperties("restapi.sharding")
+public record ShardingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<Shard> shards,
+        @DefaultValue("5s") Duration gatherTimeout,
+        @DefaultValue("10") int poolSize) {
+
+    public record Shard(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.thisuserusername.restapi.shard;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Answers the endpoints that read or write devices on the primary datasource with {@code 501 Not Implemented} while
+ * the devices live on the shards: heartbeats, bulk state changes, the delta sync, utilization analytics and jobs.
+ * Without it they would report success for devices they never see.
+ */
+public class UnshardedEndpointFilter extends OncePerRequestFilter {
+
+    private static final Pattern UNSHARDED = Pattern.compile(
+            "/api/v1/devices/(\\d+/heartbeat|state-changes|changes)|/api/v1/analytics(/.*)?|/api/v1/jobs(/.*)?");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // the request URI starts with the context path, the pattern does not
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (UNSHARDED.matcher(path).matches()) {
+            response.sendError(HttpStatus.NOT_IMPLEMENTED.value(), "Not available with the sharded device store");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
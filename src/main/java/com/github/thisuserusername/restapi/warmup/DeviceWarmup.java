@@ -0,0 +1,235 @@
+package com.github.thisuserusername.restapi.warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.thisuserusername.restapi.jdbc.ConnectionPools;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up a new instance before it takes traffic: fills the connection pools, then replays read-only requests against
+ * the device API over HTTP until its throughput stabilizes, which compiles the hot paths of the controllers, the
+ * HAL serialization, the service and Hibernate's query plans.
+ * <p>
+ * Runs as an {@link ApplicationRunner}, after the web server has started but before Spring Boot publishes the
+ * readiness state {@code ACCEPTING_TRAFFIC}, so the readiness probe refuses traffic until the warm-up is over.
+ * A failing warm-up is logged and does not prevent the startup.
+ */
+@Component
+@ConditionalOnProperty(prefix = "restapi.warmup", name = "enabled", havingValue = "true")
+@Slf4j
+public class DeviceWarmup implements ApplicationRunner {
+
+    private final WarmupProperties properties;
+    private final ObjectProvider<ConnectionPools> connectionPools;
+    private final ObjectProvider<DataSource> dataSource;
+    private final ApplicationContext applicationContext;
+    private final MeterRegistry meterRegistry;
+    private final String contextPath;
+    private volatile double firstRoundLatency;
+    private volatile double lastRoundLatency;
+
+    public DeviceWarmup(WarmupProperties properties,
+                        ObjectProvider<ConnectionPools> connectionPools,
+                        ObjectProvider<DataSource> dataSource,
+                        ApplicationContext applicationContext,
+                        MeterRegistry meterRegistry,
+                        @Value("${server.servlet.context-path:}") String contextPath) {
+        this.properties = properties;
+        this.connectionPools = connectionPools;
+        this.dataSource = dataSource;
+        this.applicationContext = applicationContext;
+        this.meterRegistry = meterRegistry;
+        this.contextPath = contextPath;
+        TimeGauge.builder("warmup.latency", this, TimeUnit.NANOSECONDS, warmup -> warmup.firstRoundLatency)
+                .tag("round", "first")
+                .description("Mean request latency of the first warm-up round")
+                .register(meterRegistry);
+        TimeGauge.builder("warmup.latency", this, TimeUnit.NANOSECONDS, warmup -> warmup.lastRoundLatency)
+                .tag("round", "last")
+                .description("Mean request latency of the last warm-up round")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        try {
+            fillConnectionPools();
+            if (applicationContext instanceof WebServerApplicationContext webContext
+                    && webContext.getWebServer().getPort() > 0) {
+                replay(webContext.getWebServer().getPort(), started);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Warm-up failed, accepting traffic anyway", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Duration duration = Duration.ofNanos(System.nanoTime() - started);
+        meterRegistry.timer("warmup.duration").record(duration);
+        LOG.info("Warm-up finished after {} ms, mean latency went from {} us to {} us", duration.toMillis(),
+                Math.round(firstRoundLatency / 1_000), Math.round(lastRoundLatency / 1_000));
+    }
+
+    /**
+     * Opens as many connections as every pool may hold at the same time, so no request waits for a new connection.
+     * Without {@link ConnectionPools}, the single data source is filled instead.
+     */
+    private void fillConnectionPools() {
+        ConnectionPools pools = connectionPools.getIfAvailable();
+        if (pools != null) {
+            pools.asMap().forEach((pool, dataSource) ->
+                    fillConnectionPool(pool.name().toLowerCase(Locale.ROOT), dataSource));
+            return;
+        }
+        DataSource pool = dataSource.getIfAvailable();
+        if (pool != null) {
+            fillConnectionPool("default", pool);
+        }
+    }
+
+    private void fillConnectionPool(String name, DataSource pool) {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            int size = pool.isWrapperFor(HikariDataSource.class)
+                    ? pool.unwrap(HikariDataSource.class).getMaximumPoolSize() : 1;
+            for (int i = 0; i < size; i++) {
+                connections.add(pool.getConnection());
+            }
+            LOG.info("Opened {} pooled connections of the {} pool", connections.size(), name);
+        } catch (SQLException e) {
+            LOG.warn("Could not fill the {} connection pool", name, e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    LOG.debug("Could not return a connection to the pool", e);
+                }
+            }
+        }
+    }
+
+    private void replay(int port, long started) throws InterruptedException {
+        RestClient client = RestClient.builder().baseUrl("http://localhost:" + port + contextPath).build();
+        Workload workload = Workload.sample(client, properties.pageSize());
+        long deadline = started + properties.maxDuration().toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(properties.concurrency(),
+                new CustomizableThreadFactory("warmup-"));
+        try {
+            double previousThroughput = 0;
+            int stableRounds = 0;
+            int round = 0;
+            while (stableRounds < properties.stableRounds() && System.nanoTime() < deadline) {
+                long roundStarted = System.nanoTime();
+                long latency = runRound(executor, workload);
+                long elapsed = System.nanoTime() - roundStarted;
+                double throughput = properties.roundSize() * 1e9 / elapsed;
+                double meanLatency = (double) latency / properties.roundSize();
+                if (round++ == 0) {
+                    firstRoundLatency = meanLatency;
+                }
+                lastRoundLatency = meanLatency;
+                boolean stable = previousThroughput > 0
+                        && Math.abs(throughput - previousThroughput) <= properties.tolerance() * previousThroughput;
+                stableRounds = stable ? stableRounds + 1 : 0;
+                previousThroughput = throughput;
+                LOG.debug("Warm-up round {}: {} requests/s", round, Math.round(throughput));
+            }
+            if (stableRounds < properties.stableRounds()) {
+                LOG.warn("Throughput did not stabilize within {} of warm-up", properties.maxDuration());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the summed latency of all requests of the round in nanoseconds
+     */
+    private long runRound(ExecutorService executor, Workload workload) throws InterruptedException {
+        List<Future<Long>> requests = new ArrayList<>(properties.roundSize());
+        for (int i = 0; i < properties.roundSize(); i++) {
+            requests.add(executor.submit(workload::next));
+        }
+        long latency = 0;
+        for (Future<Long> request : requests) {
+            try {
+                latency += request.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Warm-up request failed", e.getCause());
+            }
+        }
+        return latency;
+    }
+
+    /**
+     * The read-only requests of the warm-up: device pages, pages filtered by brand and single devices, chosen at
+     * random from the devices of the first page.
+     */
+    private record Workload(RestClient client, int pageSize, int totalPages, List<Long> ids, List<String> brands) {
+
+        static Workload sample(RestClient client, int pageSize) {
+            JsonNode page = client.get().uri("/api/v1/devices?page=0&size={size}", pageSize)
+                    .retrieve()
+                    .body(JsonNode.class);
+            List<Long> ids = new ArrayList<>();
+            List<String> brands = new ArrayList<>();
+            if (page != null) {
+                page.path("_embedded").forEach(devices -> devices.forEach(device -> {
+                    ids.add(device.path("id").asLong());
+                    brands.add(device.path("brand").asText());
+                }));
+            }
+            int totalPages = page == null ? 1 : Math.max(1, page.path("page").path("totalPages").asInt(1));
+            return new Workload(client, pageSize, totalPages, ids, brands);
+        }
+
+        /**
+         * @return the latency of one random request in nanoseconds
+         */
+        long next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long started = System.nanoTime();
+            try {
+                switch (ids.isEmpty() ? 0 : random.nextInt(3)) {
+                    case 0 -> client.get().uri("/api/v1/devices?page={page}&size={size}",
+                            random.nextInt(totalPages), pageSize).retrieve().toBodilessEntity();
+                    case 1 -> client.get().uri("/api/v1/devices?brand={brand}&size={size}",
+                            brands.get(random.nextInt(brands.size())), pageSize).retrieve().toBodilessEntity();
+                    default -> client.get().uri("/api/v1/devices/{id}",
+                            ids.get(random.nextInt(ids.size()))).retrieve().toBodilessEntity();
+                }
+            } catch (RestClientException e) {
+                LOG.debug("Warm-up request failed", e);
+            }
+            return System.nanoTime() - started;
+        }
+    }
+}
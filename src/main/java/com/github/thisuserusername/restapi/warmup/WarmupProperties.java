@@ -0,0 +1,28 @@
+package com.github.thisuserusername.restapi.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link DeviceWarmup}.
+ *
+ * @param enabled      whether read-only traffic is replayed against the device API before the instance reports ready
+ * @param maxDuration  upper bound of the warm-up, after which the instance reports ready even if still unstable
+ * @param roundSize    requests per measured round
+ * @param concurrency  requests sent in parallel
+ * @param stableRounds consecutive rounds whose throughput must stay within {@code tolerance} of the previous one
+ * @param tolerance    relative throughput change between two rounds still considered stable
+ * @param pageSize     size of the device pages requested
+ */
+@ConfigurationProperties("restapi.warmup")
+public record WarmupProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("2m") Duration maxDuration,
+        @DefaultValue("200") int roundSize,
+        @DefaultValue("4") int concurrency,
+        @DefaultValue("3") int stableRounds,
+        @DefaultValue("0.1") double tolerance,
+        @DefaultValue("20") int pageSize) {
+}
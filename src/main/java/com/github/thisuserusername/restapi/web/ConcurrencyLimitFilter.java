@@ -0,0 +1,91 @@
+package com.github.thisuserusername.restapi.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Sheds device requests above the limit of a {@link ConcurrencyLimiter} with {@code 503 Service Unavailable} and
+ * a {@code Retry-After} header before they wait for a thread or connection. Reads of single devices, by id or by
+ * natural key, have high priority, listings and writes low priority.
+ * <p>
+ * Bulk state changes, the delta sync and device histories are not limited: their latency grows with the amount of
+ * data rather than with the load, and as samples of the shared limit it would shed the cheap reads of single devices.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Pattern SINGLE_DEVICE = Pattern.compile("/api/v1/devices/(\\d+|lookup)");
+    private static final Pattern LONG_RUNNING = Pattern.compile("/api/v1/devices/(state-changes|changes|\\d+/history)");
+
+    private final ConcurrencyLimiter limiter;
+    private final String retryAfter;
+    private final Map<ConcurrencyLimiter.Priority, Counter> rejected =
+            new EnumMap<>(ConcurrencyLimiter.Priority.class);
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter, ConcurrencyLimitProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.retryAfter = String.valueOf(Math.max(1, properties.retryAfter().toSeconds()));
+        for (ConcurrencyLimiter.Priority priority : ConcurrencyLimiter.Priority.values()) {
+            rejected.put(priority, Counter.builder("http.server.concurrency.rejected")
+                    .description("Requests rejected by the concurrency limit")
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("http.server.concurrency.limit", limiter, ConcurrencyLimiter::limit)
+                .description("Current concurrency limit of device requests")
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.in-flight", limiter, ConcurrencyLimiter::inFlight)
+                .description("Device requests being processed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return LONG_RUNNING.matcher(pathOf(request)).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConcurrencyLimiter.Priority priority = priorityOf(request);
+        if (!limiter.tryAcquire(priority)) {
+            rejected.get(priority).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= 500;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    private static ConcurrencyLimiter.Priority priorityOf(HttpServletRequest request) {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        return read && SINGLE_DEVICE.matcher(pathOf(request)).matches()
+                ? ConcurrencyLimiter.Priority.HIGH : ConcurrencyLimiter.Priority.LOW;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        // the request URI starts with the context path, the patterns do not
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
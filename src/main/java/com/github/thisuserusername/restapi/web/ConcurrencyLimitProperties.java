@@ -0,0 +1,36 @@
+package com.github.thisuserusername.restapi.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@link ConcurrencyLimiter}.
+ *
+ * @param enabled          whether device requests above the concurrency limit are rejected
+ * @param initialLimit     concurrency limit at startup
+ * @param minLimit         lowest concurrency limit
+ * @param maxLimit         highest concurrency limit
+ * @param tolerance        ratio of the latency of a request to the long-term latency which is still considered
+ *                         normal; above it the limit shrinks
+ * @param smoothing        weight of a new sample in the limit, between 0 and 1
+ * @param longWindow       number of samples the long-term latency is averaged over
+ * @param backoffRatio     factor the limit is multiplied with when a request fails with a server error
+ * @param lowPriorityShare share of the limit available to list and write requests; the rest is kept for reads of
+ *                         single devices
+ * @param retryAfter       value of the {@code Retry-After} header of rejected requests
+ */
+@ConfigurationProperties("restapi.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("1.5") double tolerance,
+        @DefaultValue("0.2") double smoothing,
+        @DefaultValue("600") int longWindow,
+        @DefaultValue("0.9") double backoffRatio,
+        @DefaultValue("0.8") double lowPriorityShare,
+        @DefaultValue("1s") Duration retryAfter) {
+}
@@ -0,0 +1,100 @@
+package com.github.thisuserusername.restapi.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit of the number of requests processed concurrently.
+ * <p>
+ * The limit follows the latency of completed requests: every sample compares the latency of the request with the
+ * long-term average. While requests are as fast as usual the limit grows by its square root, so more concurrency is
+ * probed for; once they get slower than {@code tolerance} times the average, the limit shrinks in proportion, down
+ * to half of it per sample. A request failing with a server error cuts the limit by the backoff ratio. Samples taken
+ * while less than half of the limit is in use do not raise it, since they say nothing about the capacity.
+ * <p>
+ * Low priority requests may only use a share of the limit, so under overload they are rejected first and reads of
+ * single devices keep being served.
+ */
+public class ConcurrencyLimiter {
+
+    public enum Priority {
+        HIGH,
+        LOW
+    }
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+    private int samples;
+
+    public ConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.estimatedLimit = properties.initialLimit();
+        this.limit = properties.initialLimit();
+    }
+
+    /**
+     * Admits a request if the limit of its priority is not reached. An admitted request must be
+     * {@link #release released}.
+     *
+     * @return whether the request was admitted
+     */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = priority == Priority.HIGH ? limit : Math.max(1, (int) (limit * properties.lowPriorityShare()));
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Completes an admitted request and adapts the limit to its latency.
+     *
+     * @param rttNanos latency of the request
+     * @param dropped  whether the request failed with a server error
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        update(Math.max(rttNanos, 1), current, dropped);
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(double shortRtt, int inFlight, boolean dropped) {
+        if (samples < properties.longWindow()) {
+            samples++;
+            longRtt += (shortRtt - longRtt) / samples;
+        } else {
+            longRtt += (shortRtt - longRtt) * 2 / (properties.longWindow() + 1);
+        }
+
+        double newLimit;
+        if (dropped) {
+            newLimit = estimatedLimit * properties.backoffRatio();
+        } else {
+            if (longRtt / shortRtt > 2) {
+                // recovering from a slow period, let the long-term latency catch up faster
+                longRtt *= 0.95;
+            }
+            if (inFlight < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, properties.tolerance() * longRtt / shortRtt));
+            newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * (1 - properties.smoothing()) + newLimit * properties.smoothing();
+        }
+        estimatedLimit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
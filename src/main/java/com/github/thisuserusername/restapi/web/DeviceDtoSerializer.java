@@ -0,0 +1,56 @@
+package com.github.thisuserusername.restapi.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link DeviceDTO} in its HAL representation straight to the generator, in the property order of the
+ * bean serializer.
+ */
+class DeviceDtoSerializer extends FastPathSerializer<DeviceDTO> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString BRAND = new SerializedString("brand");
+    private static final SerializedString STATE = new SerializedString("state");
+    private static final SerializedString CREATION_TIME = new SerializedString("creationTime");
+
+    DeviceDtoSerializer(JsonSerializer<?> delegate) {
+        super(DeviceDTO.class, delegate);
+    }
+
+    @Override
+    protected FastPathSerializer<DeviceDTO> withDelegate(JsonSerializer<?> delegate) {
+        return new DeviceDtoSerializer(delegate);
+    }
+
+    @Override
+    public void serialize(DeviceDTO device, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (device.getClass() != DeviceDTO.class || !isPlain(device.getLinks())) {
+            delegate.serialize(device, gen, provider);
+            return;
+        }
+        gen.writeStartObject(device);
+        gen.writeFieldName(ID);
+        if (device.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(device.getId());
+        }
+        gen.writeFieldName(NAME);
+        gen.writeString(device.getName());
+        gen.writeFieldName(BRAND);
+        gen.writeString(device.getBrand());
+        gen.writeFieldName(STATE);
+        gen.writeString(device.getState());
+        gen.writeFieldName(CREATION_TIME);
+        gen.writeString(device.getCreationTime());
+        writeLinks(device.getLinks(), gen);
+        gen.writeEndObject();
+    }
+}
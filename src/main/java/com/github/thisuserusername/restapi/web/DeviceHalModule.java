@@ -0,0 +1,51 @@
+package com.github.thisuserusername.restapi.web;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.server.LinkRelationProvider;
+
+/**
+ * Jackson module replacing the reflective HAL serialization of {@link DeviceDTO}s and pages of them with
+ * {@link DeviceDtoSerializer} and {@link DevicePageSerializer}. It must only be registered on the HAL
+ * {@code ObjectMapper}, as the serializers write the HAL representation.
+ * <p>
+ * The serializers write every property, so they are only installed while the mapper neither renames nor
+ * omits properties.
+ */
+public class DeviceHalModule extends SimpleModule {
+
+    public DeviceHalModule(LinkRelationProvider linkRelationProvider) {
+        super(DeviceHalModule.class.getSimpleName());
+        SerializedString embeddedRel =
+                new SerializedString(linkRelationProvider.getCollectionResourceRelFor(DeviceDTO.class).value());
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                                                      JsonSerializer<?> serializer) {
+                if (!writesAllPropertiesAsDeclared(config)) {
+                    return serializer;
+                }
+                if (beanDesc.getBeanClass() == DeviceDTO.class) {
+                    return new DeviceDtoSerializer(serializer);
+                }
+                if (beanDesc.getBeanClass() == PagedModel.class) {
+                    return new DevicePageSerializer(serializer, embeddedRel);
+                }
+                return serializer;
+            }
+        });
+    }
+
+    private static boolean writesAllPropertiesAsDeclared(SerializationConfig config) {
+        JsonInclude.Include inclusion = config.getDefaultPropertyInclusion(DeviceDTO.class).getValueInclusion();
+        return config.getPropertyNamingStrategy() == null
+                && (inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS);
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.thisuserusername.restapi.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import org.springframework.hateoas.PagedModel;
+
+import java.io.IOException;
+
+/**
+ * Writes the HAL envelope of a {@link PagedModel} of {@link DeviceDTO}s straight to the generator. The embedded
+ * relation name is resolved once; pages of any other content are left to the regular HAL serializer.
+ */
+@SuppressWarnings("rawtypes")
+class DevicePageSerializer extends FastPathSerializer<PagedModel> {
+
+    private static final SerializedString EMBEDDED = new SerializedString("_embedded");
+    private static final SerializedString PAGE = new SerializedString("page");
+
+    private final SerializedString embeddedRel;
+
+    DevicePageSerializer(JsonSerializer<?> delegate, SerializedString embeddedRel) {
+        super(PagedModel.class, delegate);
+        this.embeddedRel = embeddedRel;
+    }
+
+    @Override
+    protected FastPathSerializer<PagedModel> withDelegate(JsonSerializer<?> delegate) {
+        return new DevicePageSerializer(delegate, embeddedRel);
+    }
+
+    @Override
+    public void serialize(PagedModel page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (!isDevicePage(page)) {
+            delegate.serialize(page, gen, provider);
+            return;
+        }
+        gen.writeStartObject(page);
+        if (!page.getContent().isEmpty()) {
+            JsonSerializer<Object> deviceSerializer = provider.findValueSerializer(DeviceDTO.class);
+            gen.writeFieldName(EMBEDDED);
+            gen.writeStartObject();
+            gen.writeFieldName(embeddedRel);
+            gen.writeStartArray();
+            for (Object device : page.getContent()) {
+                deviceSerializer.serialize(device, gen, provider);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        writeLinks(page.getLinks(), gen);
+        gen.writeFieldName(PAGE);
+        provider.defaultSerializeValue(page.getMetadata(), gen);
+        gen.writeEndObject();
+    }
+
+    private boolean isDevicePage(PagedModel page) {
+        if (page.getClass() != PagedModel.class || page.getMetadata() == null || !isPlain(page.getLinks())) {
+            return false;
+        }
+        for (Object content : page.getContent()) {
+            if (content == null || content.getClass() != DeviceDTO.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.thisuserusername.restapi.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Links;
+
+import java.io.IOException;
+
+/**
+ * Base of the hand-written HAL serializers. Values the fast path cannot render exactly like the regular
+ * HAL serializer, e.g. links with more attributes than {@code href} and {@code templated}, are handed to the
+ * bean serializer Jackson built for the type, which is kept as delegate.
+ */
+abstract class FastPathSerializer<T> extends StdSerializer<T> implements ContextualSerializer, ResolvableSerializer {
+
+    static final SerializedString LINKS = new SerializedString("_links");
+    private static final SerializedString HREF = new SerializedString("href");
+    private static final SerializedString TEMPLATED = new SerializedString("templated");
+
+    protected final JsonSerializer<Object> delegate;
+
+    @SuppressWarnings("unchecked")
+    FastPathSerializer(Class<T> type, JsonSerializer<?> delegate) {
+        super(type);
+        this.delegate = (JsonSerializer<Object>) delegate;
+    }
+
+    /**
+     * @return a copy of this serializer falling back to the given serializer
+     */
+    protected abstract FastPathSerializer<T> withDelegate(JsonSerializer<?> delegate);
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (delegate instanceof ResolvableSerializer resolvable) {
+            resolvable.resolve(provider);
+        }
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+            throws JsonMappingException {
+        if (delegate instanceof ContextualSerializer contextual) {
+            JsonSerializer<?> contextualDelegate = contextual.createContextual(provider, property);
+            if (contextualDelegate != delegate) {
+                return withDelegate(contextualDelegate);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void serializeWithType(T value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+            throws IOException {
+        delegate.serializeWithType(value, gen, provider, typeSer);
+    }
+
+    /**
+     * @return whether every link only has an href, possibly templated, and a relation which no other link uses, so
+     * that HAL renders each of them as a plain {@code {"href": ...}} object, with {@code "templated": true} added
+     * for templated ones
+     */
+    static boolean isPlain(Links links) {
+        int index = 0;
+        for (Link link : links) {
+            if (link.getHreflang() != null || link.getMedia() != null
+                    || link.getTitle() != null || link.getType() != null || link.getDeprecation() != null
+                    || link.getProfile() != null || link.getName() != null) {
+                return false;
+            }
+            int other = 0;
+            for (Link previous : links) {
+                if (other++ == index) {
+                    break;
+                }
+                if (previous.hasRel(link.getRel())) {
+                    return false;
+                }
+            }
+            index++;
+        }
+        return true;
+    }
+
+    /**
+     * Writes plain links as the HAL {@code _links} object, omitting it if there are none.
+     */
+    static void writeLinks(Links links, JsonGenerator gen) throws IOException {
+        if (links.isEmpty()) {
+            return;
+        }
+        gen.writeFieldName(LINKS);
+        gen.writeStartObject();
+        for (Link link : links) {
+            gen.writeFieldName(link.getRel().value());
+            gen.writeStartObject();
+            gen.writeFieldName(HREF);
+            gen.writeString(link.getHref());
+            if (link.isTemplated()) {
+                gen.writeFieldName(TEMPLATED);
+                gen.writeBoolean(true);
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+}
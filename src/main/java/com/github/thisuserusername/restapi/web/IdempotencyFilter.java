@@ -0,0 +1,283 @@
+package com.github.thisuserusername.restapi.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deduplicates retried mutations carrying an {@code Idempotency-Key} header.
+ * <p>
+ * The first execution for a key runs the request and stores its response; later requests with the same key
+ * get the stored response replayed without reaching the controller. Duplicates arriving while the first
+ * execution is still running wait for it: on this node through an in-flight future, across nodes by polling
+ * the {@link IdempotencyStore}. Server errors are not stored, so a retry after one executes again. Responses too
+ * large to be stored are recorded without their body, and their retries are rejected rather than executed again. A
+ * reservation whose execution died is taken over by a retry once its lease expires.
+ * <p>
+ * A key is bound to the method, path and a SHA-256 hash of the body of the request that used it first. The body
+ * is read up front for that, up to the configured limit, and handed to the controller from memory.
+ */
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final ConcurrentMap<String, Execution> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties) {
+        this.store = store;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        byte[] body = readBody(request);
+        if (body == null) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                    "Request body exceeds " + properties.maxRequestSize().toBytes() + " bytes");
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request, body);
+        String fingerprint = request.getMethod() + " " + request.getRequestURI() + " " + sha256(cachedRequest.body);
+        long deadline = System.nanoTime() + properties.waitTimeout().toNanos();
+
+        Execution execution = new Execution(fingerprint, new CompletableFuture<>());
+        Execution first;
+        while ((first = inFlight.putIfAbsent(key, execution)) != null) {
+            if (!first.fingerprint().equals(fingerprint)) {
+                mismatch(response, key);
+                return;
+            }
+            Optional<IdempotentResponse> replay = await(first, deadline);
+            if (replay.isPresent()) {
+                replay(response, replay.get());
+                return;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                inProgress(response, key);
+                return;
+            }
+            // the first execution failed, compete for the key again
+        }
+
+        IdempotentResponse result = null;
+        try {
+            result = reserveAndExecute(key, fingerprint, deadline, cachedRequest, response, filterChain);
+        } finally {
+            inFlight.remove(key, execution);
+            execution.response().complete(result);
+        }
+    }
+
+    private IdempotentResponse reserveAndExecute(String key, String fingerprint, long deadline,
+                                                 HttpServletRequest request, HttpServletResponse response,
+                                                 FilterChain filterChain) throws ServletException, IOException {
+        while (true) {
+            Optional<IdempotencyRecord> existing = store.reserve(key, fingerprint);
+            if (existing.isEmpty()) {
+                return execute(key, fingerprint, request, response, filterChain);
+            }
+            IdempotencyRecord record = existing.get();
+            if (!record.fingerprint().equals(fingerprint)) {
+                mismatch(response, key);
+                return null;
+            }
+            if (record.completed()) {
+                replay(response, record.response());
+                return record.response();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                inProgress(response, key);
+                return null;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                inProgress(response, key);
+                return null;
+            }
+        }
+    }
+
+    private IdempotentResponse execute(String key, String fingerprint, HttpServletRequest request,
+                                       HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                return null;
+            }
+            IdempotentResponse stored = wrapper.getContentSize() <= properties.maxBodySize().toBytes()
+                    ? new IdempotentResponse(wrapper.getStatus(), wrapper.getContentType(),
+                            wrapper.getHeader(HttpHeaders.LOCATION), wrapper.getContentAsByteArray(), true)
+                    : IdempotentResponse.notReplayable(wrapper.getStatus());
+            store.complete(key, fingerprint, stored);
+            completed = true;
+            return stored;
+        } finally {
+            if (!completed) {
+                store.release(key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * @return the body, or {@code null} if it exceeds the configured limit
+     */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        long limit = properties.maxRequestSize().toBytes();
+        if (request.getContentLengthLong() > limit) {
+            return null;
+        }
+        // one byte more than allowed tells a body of exactly the limit from a longer one without a content length
+        byte[] body = request.getInputStream().readNBytes(Math.toIntExact(limit + 1));
+        return body.length > limit ? null : body;
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Optional<IdempotentResponse> await(Execution execution, long deadline) {
+        try {
+            return Optional.ofNullable(execution.response().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotentResponse stored) throws IOException {
+        if (!stored.replayable()) {
+            response.sendError(HttpStatus.CONFLICT.value(), "Request with this idempotency key was already "
+                    + "processed with status " + stored.status() + ", its response was too large to be replayed");
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Replaying stored response with status {}", stored.status());
+        }
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, Boolean.TRUE.toString());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void mismatch(HttpServletResponse response, String key) throws IOException {
+        response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                "Idempotency key " + key + " was already used for a different request");
+    }
+
+    private void inProgress(HttpServletResponse response, String key) throws IOException {
+        response.sendError(HttpStatus.CONFLICT.value(),
+                "Request with idempotency key " + key + " is still being processed");
+    }
+
+    private record Execution(String fingerprint, CompletableFuture<IdempotentResponse> response) {
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Cached request bodies are read blocking");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null
+                    ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.thisuserusername.restapi.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings of the {@code Idempotency-Key} support.
+ *
+ * @param enabled        whether mutating requests carrying an {@code Idempotency-Key} header are deduplicated
+ * @param store          where first responses are kept; {@code jdbc} shares them between several nodes
+ * @param ttl            how long a first response is replayed
+ * @param maxEntries     upper bound of responses kept by the in-memory store
+ * @param maxBodySize    larger responses are not stored; retries of their requests are rejected with {@code 409}
+ * @param waitTimeout    how long a duplicate waits for the in-flight first execution of the same key
+ * @param leaseTimeout   how long a key stays reserved for an execution that neither completes nor releases it,
+ *                       for example because its node died; must exceed the slowest request
+ * @param maxRequestSize larger request bodies are rejected with {@code 413} instead of being buffered for hashing
+ */
+@ConfigurationProperties("restapi.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("memory") StoreType store,
+        @DefaultValue("24h") Duration ttl,
+        @DefaultValue("100000") long maxEntries,
+        @DefaultValue("64KB") DataSize maxBodySize,
+        @DefaultValue("10s") Duration waitTimeout,
+        @DefaultValue("5m") Duration leaseTimeout,
+        @DefaultValue("1MB") DataSize maxRequestSize) {
+
+    public enum StoreType {
+        MEMORY,
+        JDBC
+    }
+}
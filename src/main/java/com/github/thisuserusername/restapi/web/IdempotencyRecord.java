@@ -0,0 +1,22 @@
+package com.github.thisuserusername.restapi.web;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of an {@code Idempotency-Key}: reserved by an in-flight execution while {@code response} is
+ * {@code null}, completed otherwise.
+ *
+ * @param fingerprint    method, path and body hash of the request that reserved the key
+ * @param leaseExpiresOn until when the reservation belongs to its execution; a retry of the same request may take
+ *                       over a reservation whose execution died without completing or releasing it
+ */
+public record IdempotencyRecord(String fingerprint, IdempotentResponse response, LocalDateTime leaseExpiresOn) {
+
+    public boolean completed() {
+        return response != null;
+    }
+
+    public boolean leaseExpired(LocalDateTime now) {
+        return !completed() && (leaseExpiresOn == null || !leaseExpiresOn.isAfter(now));
+    }
+}
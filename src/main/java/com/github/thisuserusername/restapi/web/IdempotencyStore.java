@@ -0,0 +1,29 @@
+package com.github.thisuserusername.restapi.web;
+
+import java.util.Optional;
+
+/**
+ * Storage of the first responses of idempotent requests.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Atomically reserves a key for the caller, or takes over the reservation of the same request once its lease has
+     * expired.
+     *
+     * @return empty if the caller now owns the key, otherwise the existing (in-flight or completed) record
+     */
+    Optional<IdempotencyRecord> reserve(String key, String fingerprint);
+
+    Optional<IdempotencyRecord> find(String key);
+
+    /**
+     * Stores the response of the execution that reserved the key.
+     */
+    void complete(String key, String fingerprint, IdempotentResponse response);
+
+    /**
+     * Frees a reserved key whose execution failed, so that a retry executes the request again.
+     */
+    void release(String key);
+}
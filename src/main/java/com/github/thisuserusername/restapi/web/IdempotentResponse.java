@@ -0,0 +1,14 @@
+package com.github.thisuserusername.restapi.web;
+
+/**
+ * First response of a request with a given {@code Idempotency-Key}, as replayed to its retries.
+ *
+ * @param replayable {@code false} if the response was too large to be stored; only its status is kept, and retries
+ *                   are rejected instead of executing the request again
+ */
+public record IdempotentResponse(int status, String contentType, String location, byte[] body, boolean replayable) {
+
+    public static IdempotentResponse notReplayable(int status) {
+        return new IdempotentResponse(status, null, null, null, false);
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.thisuserusername.restapi.web;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-local {@link IdempotencyStore} bounded by entry count and expiring entries after the configured TTL.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, IdempotencyRecord> records;
+    private final Duration leaseTimeout;
+
+    public InMemoryIdempotencyStore(IdempotencyProperties properties) {
+        this.records = CacheBuilder.newBuilder()
+                .maximumSize(properties.maxEntries())
+                .expireAfterWrite(properties.ttl().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.leaseTimeout = properties.leaseTimeout();
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> reserve(String key, String fingerprint) {
+        ConcurrentMap<String, IdempotencyRecord> map = records.asMap();
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord reservation = new IdempotencyRecord(fingerprint, null, now.plus(leaseTimeout));
+        while (true) {
+            IdempotencyRecord existing = map.putIfAbsent(key, reservation);
+            if (existing == null) {
+                return Optional.empty();
+            }
+            if (!existing.fingerprint().equals(fingerprint) || !existing.leaseExpired(now)) {
+                return Optional.of(existing);
+            }
+            if (map.replace(key, existing, reservation)) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        return Optional.ofNullable(records.getIfPresent(key));
+    }
+
+    @Override
+    public void complete(String key, String fingerprint, IdempotentResponse response) {
+        records.put(key, new IdempotencyRecord(fingerprint, response, null));
+    }
+
+    @Override
+    public void release(String key) {
+        records.invalidate(key);
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.thisuserusername.restapi.web;
+
+import com.github.thisuserusername.restapi.jdbc.ConnectionPool;
+import com.github.thisuserusername.restapi.jdbc.UsePool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * {@link IdempotencyStore} backed by the {@code idempotency_keys} table, shared by all nodes using the same database.
+ * The primary key on the idempotency key makes {@link #reserve} atomic across nodes.
+ */
+@Slf4j
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final String INSERT_SQL = "INSERT INTO %s.idempotency_keys "
+            + "(idempotency_key, fingerprint, expires_on, lease_expires_on) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT fingerprint, status, content_type, location, body, replayable, "
+            + "lease_expires_on FROM %s.idempotency_keys WHERE idempotency_key = ? AND expires_on > ?";
+    private static final String UPDATE_SQL = "UPDATE %s.idempotency_keys SET status = ?, content_type = ?, "
+            + "location = ?, body = ?, replayable = ? WHERE idempotency_key = ? AND fingerprint = ?";
+    // a reservation left behind by a dead execution, the lease check makes the take-over atomic across nodes
+    private static final String TAKE_OVER_SQL = "UPDATE %s.idempotency_keys SET expires_on = ?, lease_expires_on = ? "
+            + "WHERE idempotency_key = ? AND fingerprint = ? AND status IS NULL "
+            + "AND (lease_expires_on IS NULL OR lease_expires_on <= ?)";
+    private static final String DELETE_SQL = "DELETE FROM %s.idempotency_keys WHERE idempotency_key = ?";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM %s.idempotency_keys WHERE expires_on <= ?";
+    private static final String DELETE_EXPIRED_KEY_SQL = DELETE_EXPIRED_SQL + " AND idempotency_key = ?";
+
+    private static final RowMapper<IdempotencyRecord> ROW_MAPPER = (rs, rowNum) -> {
+        int status = rs.getInt("status");
+        IdempotentResponse response = rs.wasNull() ? null : new IdempotentResponse(status, rs.getString("content_type"),
+                rs.getString("location"), rs.getBytes("body"), rs.getBoolean("replayable"));
+        Timestamp leaseExpiresOn = rs.getTimestamp("lease_expires_on");
+        return new IdempotencyRecord(rs.getString("fingerprint"), response,
+                leaseExpiresOn == null ? null : leaseExpiresOn.toLocalDateTime());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration leaseTimeout;
+    private final String schema;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, IdempotencyProperties properties, String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = properties.ttl();
+        this.leaseTimeout = properties.leaseTimeout();
+        this.schema = schema;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> reserve(String key, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(INSERT_SQL.formatted(schema), key, fingerprint, Timestamp.valueOf(now.plus(ttl)),
+                    Timestamp.valueOf(now.plus(leaseTimeout)));
+            return Optional.empty();
+        } catch (DuplicateKeyException e) {
+            Optional<IdempotencyRecord> existing = find(key);
+            if (existing.isPresent()) {
+                IdempotencyRecord record = existing.get();
+                if (record.fingerprint().equals(fingerprint) && record.leaseExpired(now)
+                        && takeOver(key, fingerprint, now)) {
+                    LOG.info("Took over the reservation of idempotency key {} whose lease expired", key);
+                    return Optional.empty();
+                }
+                return existing;
+            }
+            // the existing row has expired in the meantime
+            jdbcTemplate.update(DELETE_EXPIRED_KEY_SQL.formatted(schema), Timestamp.valueOf(now), key);
+            return reserve(key, fingerprint);
+        }
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        return jdbcTemplate.query(SELECT_SQL.formatted(schema), ROW_MAPPER, key, Timestamp.valueOf(LocalDateTime.now()))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public void complete(String key, String fingerprint, IdempotentResponse response) {
+        jdbcTemplate.update(UPDATE_SQL.formatted(schema), response.status(), response.contentType(),
+                response.location(), response.body(), response.replayable(), key, fingerprint);
+    }
+
+    private boolean takeOver(String key, String fingerprint, LocalDateTime now) {
+        return jdbcTemplate.update(TAKE_OVER_SQL.formatted(schema), Timestamp.valueOf(now.plus(ttl)),
+                Timestamp.valueOf(now.plus(leaseTimeout)), key, fingerprint, Timestamp.valueOf(now)) == 1;
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update(DELETE_SQL.formatted(schema), key);
+    }
+
+    @Scheduled(fixedDelayString = "PT1M")
+    @UsePool(ConnectionPool.BACKGROUND)
+    public void deleteExpired() {
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED_SQL.formatted(schema), Timestamp.valueOf(LocalDateTime.now()));
+        LOG.debug("Deleted {} expired idempotency keys", deleted);
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.thisuserusername.restapi.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs one line per sampled API request: method, URI, status and duration, plus the exception if the request
+ * failed with one. Server errors are logged whenever the rate allows; other requests with probability
+ * {@code sampleRate}. At most {@code maxPerSecond} lines are written per second, so a traffic spike cannot flood
+ * the log. Requests not sampled cost one random number and allocate nothing.
+ */
+@Slf4j(topic = "com.github.thisuserusername.restapi.web.RequestLog")
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    private final RequestLogProperties properties;
+    private final AtomicLong window = new AtomicLong();
+
+    public RequestLogFilter(RequestLogProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !LOG.isInfoEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } catch (Throwable e) {
+            // the status is only set once the exception reaches the container, log what the client will receive
+            log(request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, started, e);
+            throw e;
+        }
+        log(request, response.getStatus(), started, null);
+    }
+
+    private void log(HttpServletRequest request, int status, long started, Throwable error) {
+        if ((status >= 500 || ThreadLocalRandom.current().nextDouble() < properties.sampleRate()) && tryAcquire()) {
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            if (error == null) {
+                LOG.info("{} {} {} {} ms", request.getMethod(), request.getRequestURI(), status, millis);
+            } else {
+                LOG.info("{} {} {} {} ms {}", request.getMethod(), request.getRequestURI(), status, millis,
+                        error.toString());
+            }
+        }
+    }
+
+    /**
+     * Takes one of the lines allowed in the current second. The window packs the second in the high bits and
+     * the lines taken in it in the low 20 bits.
+     */
+    boolean tryAcquire() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        while (true) {
+            long current = window.get();
+            long taken = current >>> 44 == (second & 0xFFFFF) ? current & 0xFFFFF : 0;
+            if (taken >= properties.maxPerSecond()) {
+                return false;
+            }
+            if (window.compareAndSet(current, ((second & 0xFFFFF) << 44) | (taken + 1))) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.thisuserusername.restapi.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the {@link RequestLogFilter}.
+ *
+ * @param enabled      whether a sample of API requests is logged to the {@code RequestLog} logger
+ * @param sampleRate   share of requests logged, between 0 and 1; failed requests are always candidates
+ * @param maxPerSecond upper bound of lines logged per second, whatever the traffic
+ */
+@ConfigurationProperties("restapi.request-log")
+public record RequestLogProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0.01") double sampleRate,
+        @DefaultValue("20") int maxPerSecond) {
+}
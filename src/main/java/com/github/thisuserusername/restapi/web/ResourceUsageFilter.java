@@ -0,0 +1,128 @@
+package com.github.thisuserusername.restapi.web;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU time and the heap allocated by the request thread for a sample of device requests, read from
+ * {@link com.sun.management.ThreadMXBean} before and after the request.
+ * <p>
+ * Published as the timer {@code http.server.requests.cpu} and the summary {@code http.server.requests.allocated},
+ * tagged with the method, the URI template and the filter shape of device listings, that is which of the filter
+ * parameters are set. Work done on other threads, such as streamed response bodies, is not accounted. A request
+ * sending {@code X-Debug-Resource-Usage} is always measured and gets its own figures in a response header, which
+ * requires buffering its response.
+ */
+@Slf4j
+public class ResourceUsageFilter extends OncePerRequestFilter {
+
+    public static final String DEBUG_HEADER = "X-Debug-Resource-Usage";
+    public static final String USAGE_HEADER = "X-Resource-Usage";
+
+    private static final List<String> FILTER_PARAMETERS = List.of("brand", "state", "includeArchived");
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final ResourceUsageProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final com.sun.management.ThreadMXBean threads;
+
+    public ResourceUsageFilter(ResourceUsageProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.threads = supportedThreadMXBean();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return threads == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean debug = properties.debugHeader() && request.getHeader(DEBUG_HEADER) != null;
+        if (!debug && ThreadLocalRandom.current().nextDouble() >= properties.sampleRate()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper buffered = debug ? new ContentCachingResponseWrapper(response) : null;
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        try {
+            filterChain.doFilter(request, debug ? buffered : response);
+        } finally {
+            long cpu = threads.getCurrentThreadCpuTime() - cpuBefore;
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            record(request, cpu, allocated);
+            if (debug) {
+                buffered.setHeader(USAGE_HEADER, "cpu-ns=" + cpu + ", allocated-bytes=" + allocated);
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, long cpuNanos, long allocatedBytes) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of(
+                "method", request.getMethod(),
+                "uri", pattern == null ? UNKNOWN_URI : pattern.toString(),
+                "filter", filterShape(request));
+        Timer.builder("http.server.requests.cpu")
+                .description("CPU time of the request thread")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(cpuNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("http.server.requests.allocated")
+                .description("Heap allocated by the request thread")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(allocatedBytes);
+    }
+
+    /**
+     * @return the filter parameters set on a listing, e.g. {@code brand+state}, or {@code none}
+     */
+    static String filterShape(HttpServletRequest request) {
+        StringJoiner shape = new StringJoiner("+");
+        shape.setEmptyValue("none");
+        for (String parameter : FILTER_PARAMETERS) {
+            if (request.getParameter(parameter) != null) {
+                shape.add(parameter);
+            }
+        }
+        return shape.toString();
+    }
+
+    /**
+     * @return the thread MX bean if it can measure CPU time and allocations of the current thread, otherwise null
+     */
+    private static com.sun.management.ThreadMXBean supportedThreadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isCurrentThreadCpuTimeSupported() && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadCpuTimeEnabled(true);
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        LOG.warn("The JVM cannot measure CPU time and allocations per thread, resource usage is not recorded");
+        return null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.thisuserusername.restapi.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings of the {@link ResourceUsageFilter}.
+ *
+ * @param enabled     whether CPU time and heap allocation of device requests are measured
+ * @param sampleRate  share of requests measured, between 0 and 1
+ * @param debugHeader whether a request asking with {@code X-Debug-Resource-Usage} is always measured and gets its
+ *                    figures in the {@code X-Resource-Usage} response header; only meant for the local and test
+ *                    profiles, as it lets any client bypass the sampling
+ */
+@ConfigurationProperties("restapi.resource-usage")
+public record ResourceUsageProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("0.01") double sampleRate,
+        @DefaultValue("false") boolean debugHeader) {
+}
@@ -0,0 +1,309 @@
+package com.github.thisuserusername.restapi.cache;
+
+import com.github.thisuserusername.restapi.RestapiApplication;
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import com.github.thisuserusername.restapi.service.DeviceBulkStateChanger;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import com.github.thisuserusername.restapi.service.DeviceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs two nodes against one H2 database and checks that the writes of one node are evicted from the caches of
+ * the other within the staleness bound. The gap and staleness cases drive a poller of their own against caches of
+ * their own, so that the pollers of the nodes do not interfere.
+ */
+class CacheInvalidationPollerTest {
+
+    private static final Duration MAX_STALENESS = Duration.ofSeconds(2);
+    private static final String INSERT_SQL = "INSERT INTO restapi.cache_invalidations (change_type, after_brand_id, "
+            + "after_state, node_id, created_on) VALUES ('CREATED', ?, 'AVAILABLE', 'other-node', ?)";
+
+    private static ConfigurableApplicationContext writer;
+    private static ConfigurableApplicationContext reader;
+
+    @BeforeAll
+    static void startNodes() {
+        writer = startNode();
+        reader = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        reader.close();
+        writer.close();
+    }
+
+    @Test
+    void rename_on_one_node_should_evict_the_natural_key_on_the_other() throws InterruptedException {
+        // Given
+        String brand = "Coherence Lookup Brand";
+        Device device = service(writer).createDevice(DeviceDTO.builder()
+                .name("Coherence Phone")
+                .brand(brand)
+                .state("available")
+                .build());
+        reader.getBean(CacheInvalidationPoller.class).poll();
+        assertThat(service(reader).getDeviceByNaturalKey(brand, "Coherence Phone")).isPresent();
+        DeviceNaturalIdCache readerCache = reader.getBean(DeviceNaturalIdCache.class);
+        assertThat(readerCache.get(brand, "Coherence Phone")).contains(device.getId());
+
+        // When
+        service(writer).updateDevice(device.getId(), DeviceDTO.builder().name("Coherence Phone 2").build());
+
+        // Then
+        awaitWithinStalenessBound(() -> readerCache.get(brand, "Coherence Phone").isEmpty());
+        assertThat(reader.getBean(MeterRegistry.class).get("cache.invalidation.lag").timer().count()).isPositive();
+    }
+
+    @Test
+    void create_on_one_node_should_evict_listings_on_the_other() throws InterruptedException {
+        // Given
+        String brand = "Coherence Listing Brand";
+        DeviceFilter filter = new DeviceFilter(brand, null, false);
+        service(writer).createDevice(DeviceDTO.builder().name("Listed 1").brand(brand).state("available").build());
+        reader.getBean(CacheInvalidationPoller.class).poll();
+        assertThat(service(reader).getFilteredDevicesAsPage(filter, 0, 10).getTotalElements()).isEqualTo(1);
+
+        // When
+        service(writer).createDevice(DeviceDTO.builder().name("Listed 2").brand(brand).state("available").build());
+
+        // Then
+        awaitWithinStalenessBound(() -> service(reader).getFilteredDevicesAsPage(filter, 0, 10)
+                .getTotalElements() == 2);
+    }
+
+    @Test
+    void bulk_state_change_on_one_node_should_evict_listings_on_the_other() throws InterruptedException {
+        // Given
+        String brand = "Coherence Bulk Brand";
+        DeviceFilter filter = new DeviceFilter(brand, DeviceState.INACTIVE, false);
+        service(writer).createDevice(DeviceDTO.builder().name("Bulk 1").brand(brand).state("available").build());
+        service(writer).createDevice(DeviceDTO.builder().name("Bulk 2").brand(brand).state("available").build());
+        reader.getBean(CacheInvalidationPoller.class).poll();
+        assertThat(service(reader).getFilteredDevicesAsPage(filter, 0, 10).getTotalElements()).isZero();
+
+        // When
+        writer.getBean(DeviceBulkStateChanger.class).changeState(
+                DeviceFilter.builder().brand(brand).state(DeviceState.AVAILABLE).build(), DeviceState.INACTIVE);
+
+        // Then
+        awaitWithinStalenessBound(() -> service(reader).getFilteredDevicesAsPage(filter, 0, 10)
+                .getTotalElements() == 2);
+    }
+
+    @Test
+    void bulk_state_change_without_brand_should_evict_brand_listings_on_the_other() throws InterruptedException {
+        // Given
+        String brand = "Coherence Brandless Brand";
+        DeviceFilter filter = new DeviceFilter(brand, DeviceState.AVAILABLE, false);
+        Device first = service(writer).createDevice(
+                DeviceDTO.builder().name("Brandless 1").brand(brand).state("available").build());
+        Device second = service(writer).createDevice(
+                DeviceDTO.builder().name("Brandless 2").brand(brand).state("available").build());
+        reader.getBean(CacheInvalidationPoller.class).poll();
+        assertThat(service(reader).getFilteredDevicesAsPage(filter, 0, 10).getTotalElements()).isEqualTo(2);
+        assertThat(reader.getBean(DevicePageCache.class).get(filter, 0, 10)).isPresent();
+
+        // When
+        writer.getBean(DeviceBulkStateChanger.class).changeChunk(
+                DeviceFilter.builder().state(DeviceState.AVAILABLE).build(), DeviceState.INACTIVE,
+                first.getId(), second.getId());
+
+        // Then
+        awaitWithinStalenessBound(() -> reader.getBean(DevicePageCache.class).get(filter, 0, 10).isEmpty());
+        assertThat(service(reader).getFilteredDevicesAsPage(filter, 0, 10).getTotalElements()).isZero();
+    }
+
+    @Test
+    void skipped_entry_should_clear_the_caches_once_waited_for_longer_than_staleness_bound()
+            throws InterruptedException {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DevicePageCache pageCache = pageCache();
+        CacheInvalidationPoller poller = poller(pageCache, jdbcTemplate(), meterRegistry);
+        poller.poll();
+        int brandId = reader.getBean(BrandDictionary.class).register("Coherence Gap Brand");
+        new TransactionTemplate(reader.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            jdbcTemplate().update(INSERT_SQL, brandId, Timestamp.valueOf(LocalDateTime.now()));
+            status.setRollbackOnly();
+        });
+        service(writer).createDevice(DeviceDTO.builder()
+                .name("Gap Phone")
+                .brand("Coherence Gap Brand")
+                .state("available")
+                .build());
+        DeviceFilter unrelated = new DeviceFilter("Coherence Unrelated Brand", null, false);
+        pageCache.put(unrelated, 0, 10, List.of(1L), 1, pageCache.generation());
+
+        // When
+        poller.poll();
+
+        // Then
+        assertThat(meterRegistry.get("cache.invalidation.gaps").gauge().value()).isEqualTo(1);
+        assertThat(pageCache.get(unrelated, 0, 10)).isPresent();
+
+        // When
+        long deadline = System.nanoTime() + 2 * MAX_STALENESS.toNanos();
+        while (flushes(meterRegistry, "gap") == 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(50);
+            poller.poll();
+        }
+
+        // Then
+        assertThat(flushes(meterRegistry, "gap")).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.invalidation.gaps").gauge().value()).isZero();
+        assertThat(pageCache.get(unrelated, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void entry_committed_after_start_below_the_end_of_the_log_should_still_be_applied() throws Exception {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DevicePageCache pageCache = pageCache();
+        String brand = "Coherence In-Flight Brand";
+        int brandId = reader.getBean(BrandDictionary.class).register(brand);
+        DeviceFilter filter = new DeviceFilter(brand, null, false);
+        try (Connection connection = reader.getBean(DataSource.class).getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                insert.setInt(1, brandId);
+                insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                insert.executeUpdate();
+            }
+            service(writer).createDevice(DeviceDTO.builder()
+                    .name("After In-Flight")
+                    .brand("Coherence Other Brand")
+                    .state("available")
+                    .build());
+            CacheInvalidationPoller poller = poller(pageCache, jdbcTemplate(), meterRegistry);
+            poller.poll();
+            pageCache.put(filter, 0, 10, List.of(), 0, pageCache.generation());
+            assertThat(pageCache.get(filter, 0, 10)).isPresent();
+
+            // When
+            connection.commit();
+            poller.poll();
+        }
+
+        // Then
+        assertThat(pageCache.get(filter, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void caches_should_be_bypassed_and_cleared_while_the_log_cannot_be_read() throws InterruptedException {
+        // Given
+        AtomicBoolean failing = new AtomicBoolean();
+        JdbcTemplate flakyJdbcTemplate = new JdbcTemplate(reader.getBean(DataSource.class)) {
+            @Override
+            public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+                failIfRequested();
+                return super.queryForList(sql, elementType, args);
+            }
+
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                failIfRequested();
+                return super.query(sql, rowMapper, args);
+            }
+
+            private void failIfRequested() {
+                if (failing.get()) {
+                    throw new DataAccessResourceFailureException("Connection is not available");
+                }
+            }
+        };
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DevicePageCache pageCache = pageCache();
+        CacheInvalidationPoller poller = poller(pageCache, flakyJdbcTemplate, meterRegistry);
+        poller.poll();
+        DeviceFilter filter = new DeviceFilter("Coherence Stale Brand", null, false);
+        pageCache.put(filter, 0, 10, List.of(1L), 1, pageCache.generation());
+        assertThat(pageCache.get(filter, 0, 10)).isPresent();
+
+        // When
+        failing.set(true);
+        Thread.sleep(MAX_STALENESS.toMillis() + 100);
+
+        // Then
+        assertThat(pageCache.get(filter, 0, 10)).as("bypassed before the poll gives up").isEmpty();
+
+        // When
+        poller.poll();
+        failing.set(false);
+        poller.poll();
+
+        // Then
+        assertThat(flushes(meterRegistry, "stale")).isEqualTo(1);
+        assertThat(pageCache.get(filter, 0, 10)).as("cleared, not only bypassed").isEmpty();
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(RestapiApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:cache-coherence;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "restapi.cache.invalidation.poll-interval=50ms",
+                        "restapi.cache.invalidation.max-staleness=" + MAX_STALENESS.toMillis() + "ms")
+                .run();
+    }
+
+    private static DevicePageCache pageCache() {
+        return new DevicePageCache(new DevicePageCacheProperties(true, DataSize.ofMegabytes(1)));
+    }
+
+    private static CacheInvalidationPoller poller(DevicePageCache pageCache, JdbcTemplate jdbcTemplate,
+                                                  MeterRegistry meterRegistry) {
+        return new CacheInvalidationPoller(reader.getBean(CacheInvalidationProperties.class), jdbcTemplate,
+                reader.getBean(TaskScheduler.class), reader.getBean(BrandDictionary.class), pageCache,
+                new DeviceNaturalIdCache(new DeviceNaturalIdCacheProperties(true, 1000)),
+                reader.getBean(CacheInvalidationLog.class), meterRegistry, "restapi");
+    }
+
+    private static JdbcTemplate jdbcTemplate() {
+        return reader.getBean(JdbcTemplate.class);
+    }
+
+    private static double flushes(MeterRegistry meterRegistry, String reason) {
+        return meterRegistry.get("cache.invalidation.flushes").tag("reason", reason).counter().count();
+    }
+
+    private static DeviceService service(ConfigurableApplicationContext node) {
+        return node.getBean(DeviceService.class);
+    }
+
+    private static void awaitWithinStalenessBound(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + MAX_STALENESS.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("evicted within %s", MAX_STALENESS).isNegative();
+            Thread.sleep(20);
+        }
+    }
+}
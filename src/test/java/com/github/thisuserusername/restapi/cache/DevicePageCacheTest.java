@@ -0,0 +1,58 @@
+package com.github.thisuserusername.restapi.cache;
+
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DevicePageCacheTest {
+
+    private final DevicePageCache cache =
+            new DevicePageCache(new DevicePageCacheProperties(true, DataSize.ofMegabytes(1)));
+
+    @Test
+    void evict_should_only_drop_pages_matching_brand_and_state() {
+        // Given
+        DeviceFilter acmeAvailable = put("Acme", DeviceState.AVAILABLE);
+        DeviceFilter acme = put("Acme", null);
+        DeviceFilter otherAvailable = put("Other", DeviceState.AVAILABLE);
+        DeviceFilter acmeInactive = put("Acme", DeviceState.INACTIVE);
+
+        // When
+        cache.evict("Acme", DeviceState.AVAILABLE);
+
+        // Then
+        assertThat(cache.get(acmeAvailable, 0, 10)).isEmpty();
+        assertThat(cache.get(acme, 0, 10)).isEmpty();
+        assertThat(cache.get(otherAvailable, 0, 10)).isPresent();
+        assertThat(cache.get(acmeInactive, 0, 10)).isPresent();
+    }
+
+    @Test
+    void evict_without_brand_should_drop_pages_of_every_brand_in_that_state() {
+        // Given
+        DeviceFilter acmeAvailable = put("Acme", DeviceState.AVAILABLE);
+        DeviceFilter acme = put("Acme", null);
+        DeviceFilter available = put(null, DeviceState.AVAILABLE);
+        DeviceFilter acmeInactive = put("Acme", DeviceState.INACTIVE);
+
+        // When
+        cache.evict(null, DeviceState.AVAILABLE);
+
+        // Then
+        assertThat(cache.get(acmeAvailable, 0, 10)).isEmpty();
+        assertThat(cache.get(acme, 0, 10)).isEmpty();
+        assertThat(cache.get(available, 0, 10)).isEmpty();
+        assertThat(cache.get(acmeInactive, 0, 10)).isPresent();
+    }
+
+    private DeviceFilter put(String brand, DeviceState state) {
+        DeviceFilter filter = DeviceFilter.builder().brand(brand).state(state).build();
+        cache.put(filter, 0, 10, List.of(1L, 2L), 2, cache.generation());
+        return filter;
+    }
+}
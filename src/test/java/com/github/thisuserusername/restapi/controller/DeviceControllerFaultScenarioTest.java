@@ -0,0 +1,221 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.jdbc.FaultInjectionProperties.Fault;
+import com.github.thisuserusername.restapi.jdbc.FaultInjector;
+import com.github.thisuserusername.restapi.service.DeviceService;
+import com.github.thisuserusername.restapi.web.ConcurrencyLimitProperties;
+import com.github.thisuserusername.restapi.web.ConcurrencyLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the device API over HTTP while the {@link FaultInjector} degrades the database, and checks that
+ * throughput, tail latency and error rate stay within the envelope of each scenario. The envelopes are wall-clock
+ * bounds, so the class is tagged {@code load} and runs with {@code ./gradlew loadTest} instead of {@code test}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "faults"})
+class DeviceControllerFaultScenarioTest {
+
+    private static final Duration WARM_UP_DURATION = Duration.ofSeconds(1);
+    private static final Duration SCENARIO_DURATION = Duration.ofSeconds(2);
+    private static final int CLIENTS = 8;
+    private static final int SEEDED_DEVICES = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FaultInjector faultInjector;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private ConcurrencyLimitProperties concurrencyLimitProperties;
+
+    private final List<Long> ownDevices = new ArrayList<>();
+
+    @BeforeEach
+    void createDevicesAndWarmUp() throws Exception {
+        faultInjector.clear();
+        for (int i = 0; i < CLIENTS; i++) {
+            ownDevices.add(deviceService.createDevice(DeviceDTO.builder()
+                    .name("Fault Scenario Device " + i)
+                    .brand("Fault Scenario Brand")
+                    .state("available")
+                    .build()).getId());
+        }
+        // a round on the healthy database, so the scenario measures neither compilation nor opening connections
+        drive(CLIENTS, WARM_UP_DURATION);
+    }
+
+    @AfterEach
+    void deleteDevices() {
+        faultInjector.clear();
+        ownDevices.forEach(deviceService::deleteDevice);
+    }
+
+    @Test
+    void healthy_database_should_serve_the_mix_fast_and_without_errors() throws Exception {
+        // When
+        LoadResult result = drive(CLIENTS, SCENARIO_DURATION);
+
+        // Then
+        assertThat(result.errorRate()).isZero();
+        assertThat(result.p99()).isLessThan(Duration.ofMillis(250));
+        assertThat(result.throughput()).isGreaterThan(100);
+    }
+
+    @Test
+    void degraded_database_should_keep_errors_and_tail_latency_within_envelope() throws Exception {
+        // Given
+        long injectedBefore = faultInjector.injectedErrors();
+        faultInjector.inject(new Fault(Duration.ofMillis(2), Duration.ofMillis(50), 0.002), Map.of(
+                "select", new Fault(Duration.ofMillis(5), Duration.ofMillis(100), 0.01),
+                "update", new Fault(Duration.ofMillis(10), Duration.ofMillis(300), 0.01)));
+
+        // When
+        LoadResult result = drive(CLIENTS, SCENARIO_DURATION);
+
+        // Then
+        assertThat(faultInjector.injectedErrors()).isGreaterThan(injectedBefore);
+        assertThat(result.errorRate()).isLessThan(0.05);
+        assertThat(result.p99()).isLessThan(Duration.ofSeconds(1));
+        assertThat(result.throughput()).isGreaterThan(20);
+    }
+
+    @Test
+    void lock_waits_beyond_pool_capacity_should_be_shed_rather_than_time_out() throws Exception {
+        // Given
+        int healthyLimit = concurrencyLimiter.limit();
+        // no more clients than even low priority requests are admitted, so only a falling limit sheds any
+        int clients = Math.max(1, (int) (healthyLimit * concurrencyLimitProperties.lowPriorityShare()));
+        faultInjector.inject(Fault.NONE, Map.of(
+                "select", new Fault(Duration.ofMillis(100), Duration.ofSeconds(1), 0)));
+
+        // When
+        LoadResult result = drive(clients, SCENARIO_DURATION);
+
+        // Then
+        assertThat(result.lowestLimit()).isLessThan(healthyLimit);
+        assertThat(result.shedRate()).isPositive();
+        assertThat(result.errorRate()).isLessThan(0.1);
+        assertThat(result.p99()).isLessThan(Duration.ofSeconds(3));
+        assertThat(result.successThroughput()).isGreaterThan(20);
+    }
+
+    /**
+     * Runs {@code clients} closed-loop clients for the given duration. Nine of ten requests read a seeded device,
+     * the tenth moves the client's own device to another state.
+     */
+    private LoadResult drive(int clients, Duration duration) throws Exception {
+        RestClient client = RestClient.builder().baseUrl("http://localhost:" + port + "/api/v1/devices").build();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long end = System.nanoTime() + duration.toNanos();
+        AtomicInteger lowestLimit = new AtomicInteger(concurrencyLimiter.limit());
+        List<Future<List<Sample>>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            long ownDevice = ownDevices.get(i % ownDevices.size());
+            futures.add(executor.submit(() -> {
+                List<Sample> samples = new ArrayList<>();
+                for (int n = 0; System.nanoTime() < end; n++) {
+                    long start = System.nanoTime();
+                    int status = n % 10 == 9
+                            ? send(client.patch().uri("/{id}", ownDevice).contentType(MediaType.APPLICATION_JSON)
+                                    .body("{\"state\":\"" + (n % 20 == 9 ? "inactive" : "available") + "\"}"))
+                            : send(client.get().uri("/{id}", 1 + n % SEEDED_DEVICES));
+                    samples.add(new Sample(status, System.nanoTime() - start));
+                    lowestLimit.accumulateAndGet(concurrencyLimiter.limit(), Math::min);
+                }
+                return samples;
+            }));
+        }
+        List<Sample> samples = new ArrayList<>();
+        for (Future<List<Sample>> future : futures) {
+            samples.addAll(future.get());
+        }
+        executor.shutdown();
+        return new LoadResult(samples, duration, lowestLimit.get());
+    }
+
+    /**
+     * @return the response status, {@code 0} if no response was received
+     */
+    private static int send(RestClient.RequestHeadersSpec<?> request) {
+        try {
+            return request.exchange((req, response) -> response.getStatusCode().value());
+        } catch (RestClientException e) {
+            return 0;
+        }
+    }
+
+    private record Sample(int status, long elapsedNanos) {
+    }
+
+    /**
+     * @param lowestLimit the lowest concurrency limit seen by the clients
+     */
+    private record LoadResult(List<Sample> samples, Duration duration, int lowestLimit) {
+
+        double throughput() {
+            return samples.size() * 1000.0 / duration.toMillis();
+        }
+
+        /**
+         * @return the {@code 2xx} responses per second
+         */
+        double successThroughput() {
+            long successes = samples.stream().filter(sample -> sample.status() / 100 == 2).count();
+            return successes * 1000.0 / duration.toMillis();
+        }
+
+        /**
+         * @return the share of requests shed with {@code 503}
+         */
+        double shedRate() {
+            long shed = samples.stream().filter(sample -> sample.status() == 503).count();
+            return (double) shed / samples.size();
+        }
+
+        /**
+         * @return the share of requests failing other than by being shed with {@code 503}
+         */
+        double errorRate() {
+            long errors = samples.stream()
+                    .filter(sample -> sample.status() == 0 || (sample.status() >= 500 && sample.status() != 503))
+                    .count();
+            return (double) errors / samples.size();
+        }
+
+        Duration p99() {
+            long[] sorted = samples.stream().mapToLong(Sample::elapsedNanos).sorted().toArray();
+            return Duration.ofNanos(sorted[(int) Math.ceil(sorted.length * 0.99) - 1]);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.thisuserusername.restapi.dto.DeviceDTO;
 import com.github.thisuserusername.restapi.model.Device;
 import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.service.DeviceArchivedException;
 import com.github.thisuserusername.restapi.service.DeviceFilter;
+import com.github.thisuserusername.restapi.service.DevicePatchResult;
 import com.github.thisuserusername.restapi.service.DeviceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,10 +23,15 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -121,6 +128,52 @@ class DeviceControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void should_look_device_up_by_brand_and_name() throws Exception {
+        // Given
+        when(deviceService.getDeviceByNaturalKey("Test Brand", "Test Device")).thenReturn(Optional.of(testDevice));
+        when(deviceModelAssembler.toModel(testDevice)).thenReturn(testDeviceDTO);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/devices/lookup")
+                        .param("brand", "Test Brand")
+                        .param("name", "Test Device")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.name").value("Test Device"))
+                .andExpect(jsonPath("$.brand").value("Test Brand"));
+    }
+
+    @Test
+    void should_return_not_found_when_no_device_has_brand_and_name() throws Exception {
+        // Given
+        when(deviceService.getDeviceByNaturalKey("Test Brand", "Missing")).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/devices/lookup")
+                        .param("brand", "Test Brand")
+                        .param("name", "Missing")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void should_reject_lookup_with_blank_brand_or_name() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/devices/lookup")
+                        .param("brand", " ")
+                        .param("name", "Test Device")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/devices/lookup")
+                        .param("brand", "Test Brand")
+                        .param("name", "")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(deviceService);
+    }
+
     @Test
     void should_return_all_devices() throws Exception {
         // Given
@@ -142,6 +195,28 @@ class DeviceControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void should_reject_page_or_size_out_of_bounds() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/devices")
+                        .param("page", String.valueOf(Integer.MAX_VALUE))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/devices")
+                        .param("page", "-1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/devices")
+                        .param("size", "0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/devices")
+                        .param("size", String.valueOf(DeviceController.MAX_PAGE_SIZE + 1))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(deviceService);
+    }
+
     @Test
     void should_return_devices_by_brand() throws Exception {
         // Given
@@ -247,10 +322,49 @@ class DeviceControllerTest {
                 .andExpect(jsonPath("$.state").value("available"));
     }
 
+    @Test
+    void should_patch_devices_in_batch_with_per_item_outcomes() throws Exception {
+        // Given
+        Map<Long, DeviceDTO> patches = new LinkedHashMap<>();
+        patches.put(1L, DeviceDTO.builder().name("Patched Name").build());
+        patches.put(9L, DeviceDTO.builder().name("Missing").build());
+
+        when(deviceService.patchDevices(any())).thenReturn(List.of(
+                DevicePatchResult.updated(testDevice), DevicePatchResult.notFound(9L)));
+        when(deviceModelAssembler.toModel(testDevice)).thenReturn(testDeviceDTO);
+
+        // When & Then
+        mockMvc.perform(patch("/api/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patches)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].outcome").value("updated"))
+                .andExpect(jsonPath("$[0].device.name").value("Test Device"))
+                .andExpect(jsonPath("$[1].id").value(9))
+                .andExpect(jsonPath("$[1].outcome").value("not_found"))
+                .andExpect(jsonPath("$[1].message").value("Device with ID 9 does not exist"));
+    }
+
     @Test
     void should_delete_device() throws Exception {
         // When & Then
         mockMvc.perform(delete("/api/v1/devices/1"))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void should_answer_writes_to_archived_device_with_gone() throws Exception {
+        // Given
+        when(deviceService.updateDevice(eq(1L), any(DeviceDTO.class))).thenThrow(new DeviceArchivedException(1L));
+        doThrow(new DeviceArchivedException(1L)).when(deviceService).deleteDevice(1L);
+
+        // When & Then
+        mockMvc.perform(patch("/api/v1/devices/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"state\":\"inactive\"}"))
+                .andExpect(status().isGone());
+        mockMvc.perform(delete("/api/v1/devices/1"))
+                .andExpect(status().isGone());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.github.thisuserusername.restapi.controller;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.reactive.ReactiveDeviceRepository;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ReactiveDeviceController.class, properties = "restapi.reactive.enabled=true")
+class ReactiveDeviceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ReactiveDeviceRepository reactiveDeviceRepository;
+
+    @Test
+    void should_return_page_of_devices() throws Exception {
+        // Given
+        DeviceDTO device = DeviceDTO.builder().id(1L).name("Test Device").brand("Test Brand").state("available").build();
+        when(reactiveDeviceRepository.findAll(any(DeviceFilter.class), eq(2), eq(50))).thenReturn(Flux.just(device));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/v1/reactive/devices")
+                        .param("page", "2")
+                        .param("size", "50")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
+    @Test
+    void should_reject_negative_page_and_out_of_range_size() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/v1/reactive/devices").param("page", "-1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/reactive/devices").param("size", "0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/reactive/devices")
+                        .param("size", String.valueOf(ReactiveDeviceController.MAX_PAGE_SIZE + 1))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(reactiveDeviceRepository);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import com.github.thisuserusername.restapi.service.DeviceService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "restapi.jdbc.pools.bulk.maximum-size=2",
+        "restapi.jdbc.pools.bulk.minimum-idle=0",
+        "restapi.jdbc.pools.bulk.connection-timeout=250ms"})
+@ActiveProfiles("test")
+class ConnectionPoolsTest {
+
+    @Autowired
+    private ConnectionPools connectionPools;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exhausted_bulk_pool_should_not_block_interactive_requests() throws SQLException {
+        // Given
+        HikariDataSource bulk = connectionPools.get(ConnectionPool.BULK);
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < bulk.getMaximumPoolSize(); i++) {
+                held.add(bulk.getConnection());
+            }
+
+            // When & Then
+            assertThat(deviceService.getDeviceById(1L)).isPresent();
+            assertThatThrownBy(() -> deviceService.getFilteredDevicesAsPage(new DeviceFilter(null, null, false), 0, 5))
+                    .isInstanceOf(CannotCreateTransactionException.class);
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        // Then
+        assertThat(deviceService.getFilteredDevicesAsPage(new DeviceFilter(null, null, false), 0, 5)).hasSize(5);
+    }
+
+    @Test
+    void should_take_connections_from_the_selected_pool() {
+        // Given
+        HikariDataSource background = connectionPools.get(ConnectionPool.BACKGROUND);
+
+        // When
+        Integer active = ConnectionPool.BACKGROUND.call(() -> jdbcTemplate.execute(
+                (ConnectionCallback<Integer>) connection -> background.getHikariPoolMXBean().getActiveConnections()));
+
+        // Then
+        assertThat(active).isPositive();
+        assertThat(ConnectionPool.current()).isEqualTo(ConnectionPool.INTERACTIVE);
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlShapesTest {
+
+    @Test
+    void should_replace_literals_and_collapse_in_lists() {
+        // Given
+        String sql = "select d.id from restapi.devices d where d.brand = 'Apple' and d.id in (?, ?, ?)\n"
+                + "  fetch first 20 rows only";
+
+        // When
+        String shape = SqlShapes.shapeOf(sql);
+
+        // Then
+        assertThat(shape).isEqualTo("select d.id from restapi.devices d where d.brand = ? and d.id in (?) "
+                + "fetch first ? rows only");
+    }
+
+    @Test
+    void should_share_shape_for_statements_differing_only_in_values() {
+        // When / Then
+        assertThat(SqlShapes.shapeOf("delete from devices where id in (?, ?)"))
+                .isEqualTo(SqlShapes.shapeOf("delete from devices where id in (?)"));
+        assertThat(SqlShapes.shapeOf("select * from devices where name = 'it''s'"))
+                .isEqualTo(SqlShapes.shapeOf("select * from devices where name = 'other'"));
+    }
+
+    @Test
+    void should_keep_identifiers_containing_digits() {
+        // When / Then
+        assertThat(SqlShapes.shapeOf("select d1_0.id from devices d1_0")).isEqualTo("select d1_0.id from devices d1_0");
+    }
+
+    @Test
+    void should_detect_statement_type() {
+        // When / Then
+        assertThat(SqlShapes.typeOf("  SELECT 1")).isEqualTo("select");
+        assertThat(SqlShapes.typeOf("with x as (select 1) select * from x")).isEqualTo("select");
+        assertThat(SqlShapes.typeOf("update devices set name = ?")).isEqualTo("update");
+        assertThat(SqlShapes.typeOf("call something()")).isEqualTo("other");
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a Spring Boot test if its method executes more JDBC statements of a type than declared, counted on the
+ * test thread from the start to the end of the test method; {@code @BeforeEach} methods are not counted. Statement
+ * types not declared have a budget of 0.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface StatementBudget {
+
+    int select() default 0;
+
+    int insert() default 0;
+
+    int update() default 0;
+
+    int delete() default 0;
+
+    /**
+     * Statements of any other type, such as DDL or {@code CALL}.
+     */
+    int other() default 0;
+}
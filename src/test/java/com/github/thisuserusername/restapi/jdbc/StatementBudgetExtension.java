@@ -0,0 +1,55 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the statements of a test method annotated with {@link StatementBudget} and fails it if a budget is
+ * exceeded, listing the executed statements.
+ */
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        counter(context).start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        List<String> statements = counter(context).stop();
+        StatementBudget budget = context.getRequiredTestMethod().getAnnotation(StatementBudget.class);
+        if (budget == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        Map<String, Integer> budgets = Map.of(
+                "select", budget.select(),
+                "insert", budget.insert(),
+                "update", budget.update(),
+                "delete", budget.delete(),
+                "other", budget.other());
+        // MERGE has no budget of its own
+        Map<String, Long> counts = statements.stream()
+                .map(SqlShapes::typeOf)
+                .collect(Collectors.groupingBy(type -> budgets.containsKey(type) ? type : "other",
+                        Collectors.counting()));
+        List<String> exceeded = budgets.entrySet().stream()
+                .filter(entry -> counts.getOrDefault(entry.getKey(), 0L) > entry.getValue())
+                .map(entry -> entry.getKey() + ": " + counts.get(entry.getKey()) + " > " + entry.getValue())
+                .sorted()
+                .toList();
+        if (!exceeded.isEmpty()) {
+            throw new AssertionError("Statement budget exceeded (" + String.join(", ", exceeded) + ") by:\n  "
+                    + String.join("\n  ", statements));
+        }
+    }
+
+    private static StatementCounter counter(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(StatementCounter.class);
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.thisuserusername.restapi.jdbc;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the statements executed on the current thread while counting, for {@link StatementBudget}. Registered
+ * in every Spring Boot test context by component scanning, so the {@link QueryRecorder} notifies it.
+ */
+@Component
+public class StatementCounter implements StatementListener {
+
+    private final ThreadLocal<List<String>> statements = new ThreadLocal<>();
+
+    public void start() {
+        statements.set(new ArrayList<>());
+    }
+
+    /**
+     * @return the statements executed on this thread since {@link #start()}
+     */
+    public List<String> stop() {
+        List<String> executed = statements.get();
+        statements.remove();
+        return executed == null ? List.of() : executed;
+    }
+
+    @Override
+    public void executed(String sql) {
+        List<String> executed = statements.get();
+        if (executed != null) {
+            executed.add(sql);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.thisuserusername.restapi.job;
+
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "restapi.bulk.chunk-size=2")
+@ActiveProfiles("test")
+class JobRunnerTest {
+
+    private static final String BRAND = "Job Test Brand";
+
+    @Autowired
+    private JobRunner jobRunner;
+
+    @Autowired
+    private JobStore jobStore;
+
+    @Autowired
+    private BulkStateChangeJobHandler bulkStateChangeJobHandler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BrandDictionary brandDictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private int brandId;
+
+    private final List<Long> jobIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        brandId = brandDictionary.register(BRAND);
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("INSERT INTO restapi.devices (name, brand_id, state, created_on, modified_on, version) "
+                    + "VALUES (?, ?, 'AVAILABLE', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)", "Job " + i, brandId);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM restapi.device_history WHERE device_id IN "
+                + "(SELECT id FROM restapi.devices WHERE brand_id = ?)", brandId);
+        jdbcTemplate.update("DELETE FROM restapi.device_state_transitions WHERE brand_id = ?", brandId);
+        jdbcTemplate.update("DELETE FROM restapi.devices WHERE brand_id = ?", brandId);
+        jobIds.forEach(id -> jdbcTemplate.update("DELETE FROM restapi.jobs WHERE id = ?", id));
+    }
+
+    @Test
+    void should_run_job_in_chunks_to_completion() {
+        // Given
+        long id = createBulkStateChangeJob();
+
+        // When
+        jobRunner.run(id);
+
+        // Then
+        Job job = jobStore.find(id).orElseThrow();
+        assertThat(job.status()).isEqualTo(JobStatus.SUCCEEDED);
+        assertThat(job.processed()).isEqualTo(5);
+        assertThat(job.checkpoint()).isEqualTo(ids().get(4));
+        assertThat(job.startedOn()).isNotNull();
+        assertThat(job.finishedOn()).isNotNull();
+        assertThat(states()).containsOnly("INACTIVE");
+    }
+
+    @Test
+    void should_resume_job_after_last_checkpoint() {
+        // Given
+        long id = createBulkStateChangeJob();
+        jobStore.start(id);
+        jobStore.checkpoint(id, ids().get(1), 2);
+
+        // When
+        jobRunner.run(id);
+
+        // Then
+        Job job = jobStore.find(id).orElseThrow();
+        assertThat(job.status()).isEqualTo(JobStatus.SUCCEEDED);
+        assertThat(job.processed()).isEqualTo(5);
+        assertThat(states()).containsExactly("AVAILABLE", "AVAILABLE", "INACTIVE", "INACTIVE", "INACTIVE");
+    }
+
+    @Test
+    void should_not_run_cancelled_job() {
+        // Given
+        long id = createBulkStateChangeJob();
+
+        // When
+        Job cancelled = jobRunner.cancel(id).orElseThrow();
+        jobRunner.run(id);
+
+        // Then
+        assertThat(cancelled.status()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(jobStore.find(id).orElseThrow().processed()).isZero();
+        assertThat(states()).containsOnly("AVAILABLE");
+    }
+
+    @Test
+    void should_stop_running_job_when_cancellation_is_requested() {
+        // Given
+        long id = createBulkStateChangeJob();
+        jobStore.start(id);
+
+        // When
+        jobStore.cancel(id);
+        jobRunner.run(id);
+
+        // Then
+        assertThat(jobStore.find(id).orElseThrow().status()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(states()).containsOnly("AVAILABLE");
+    }
+
+    @Test
+    void should_reject_job_when_queue_is_full() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        JobHandler blocking = new JobHandler() {
+            @Override
+            public String type() {
+                return "blocking";
+            }
+
+            @Override
+            public Map<String, String> prepare(Map<String, String> parameters) {
+                return parameters;
+            }
+
+            @Override
+            public JobStep step(Map<String, String> parameters, long checkpoint) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new JobStep(checkpoint, 0, true);
+            }
+        };
+        JobRunner runner = new JobRunner(new JobProperties(1, 1, false, Duration.ofSeconds(5), Duration.ofSeconds(7)),
+                jobStore, transactionManager, new SimpleMeterRegistry(), dataSource, List.of(blocking));
+        try {
+            jobIds.add(runner.submit("blocking", Map.of()).id());
+            jobIds.add(runner.submit("blocking", Map.of()).id());
+
+            // When & Then
+            assertThatThrownBy(() -> runner.submit("blocking", Map.of()))
+                    .isInstanceOfSatisfying(JobQueueFullException.class, e -> {
+                        jobIds.add(e.getJobId());
+                        assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(7));
+                        assertThat(jobStore.find(e.getJobId()).orElseThrow().status()).isEqualTo(JobStatus.FAILED);
+                    });
+        } finally {
+            release.countDown();
+            runner.destroy();
+        }
+    }
+
+    @Test
+    void should_reject_unknown_job_type() {
+        // When & Then
+        assertThatThrownBy(() -> jobRunner.submit("unknown", Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown job type: unknown");
+    }
+
+    private long createBulkStateChangeJob() {
+        long id = jobStore.create(BulkStateChangeJobHandler.TYPE,
+                bulkStateChangeJobHandler.prepare(Map.of("brand", BRAND, "targetState", "inactive")));
+        jobIds.add(id);
+        return id;
+    }
+
+    private List<Long> ids() {
+        return jdbcTemplate.queryForList("SELECT id FROM restapi.devices WHERE brand_id = ? ORDER BY id",
+                Long.class, brandId);
+    }
+
+    private List<String> states() {
+        return jdbcTemplate.queryForList("SELECT state FROM restapi.devices WHERE brand_id = ? ORDER BY id",
+                String.class, brandId);
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.thisuserusername.restapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DropCountingAsyncAppenderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private LoggerContext loggerContext;
+    private DropCountingAsyncAppender appender;
+
+    @BeforeEach
+    void setUp() {
+        loggerContext = new LoggerContext();
+        AppenderBase<ILoggingEvent> blocked = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        blocked.setContext(loggerContext);
+        blocked.start();
+        appender = new DropCountingAsyncAppender();
+        appender.setContext(loggerContext);
+        appender.setQueueSize(10);
+        appender.setDiscardingThreshold(5);
+        appender.setNeverBlock(true);
+        appender.addAppender(blocked);
+        appender.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    void should_count_dropped_events_without_blocking_when_queue_is_full() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            appender.doAppend(event(Level.WARN));
+        }
+
+        // Then
+        assertThat(appender.getDroppedCount()).isBetween(88L, 90L);
+        assertThat(appender.getRemainingCapacity()).isZero();
+    }
+
+    @Test
+    void should_drop_info_events_beyond_discarding_threshold() {
+        // When
+        for (int i = 0; i < 8; i++) {
+            appender.doAppend(event(Level.INFO));
+        }
+
+        // Then
+        assertThat(appender.getDroppedCount()).isBetween(1L, 2L);
+    }
+
+    private ILoggingEvent event(Level level) {
+        Logger logger = loggerContext.getLogger("test");
+        return new LoggingEvent(Logger.class.getName(), logger, level, "message", null, null);
+    }
+}
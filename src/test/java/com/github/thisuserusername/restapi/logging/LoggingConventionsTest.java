@@ -0,0 +1,83 @@
+package com.github.thisuserusername.restapi.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Disabled debug and trace statements must not allocate: SLF4J only avoids the argument array for up to two
+ * arguments, so calls with more arguments have to be guarded by {@code isDebugEnabled()} or {@code isTraceEnabled()}.
+ */
+class LoggingConventionsTest {
+
+    private static final Path SOURCES = Path.of("src/main/java");
+    private static final Pattern CALL = Pattern.compile("LOG\\.(debug|trace)\\(");
+    private static final Pattern GUARD = Pattern.compile("if \\(LOG\\.is(Debug|Trace)Enabled\\(\\)\\) \\{\\s*$");
+
+    @Test
+    void should_guard_debug_and_trace_statements_with_more_than_two_arguments() throws IOException {
+        // Given
+        List<String> violations = new ArrayList<>();
+
+        // When
+        try (Stream<Path> files = Files.walk(SOURCES)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".java")).toList()) {
+                String source = Files.readString(file);
+                Matcher call = CALL.matcher(source);
+                while (call.find()) {
+                    if (arguments(source, call.end()) > 2 && !guarded(source, call.start())) {
+                        violations.add(file + ":" + source.substring(0, call.start()).lines().count());
+                    }
+                }
+            }
+        }
+
+        // Then
+        assertThat(violations).isEmpty();
+    }
+
+    /**
+     * @return the number of arguments after the message of the call whose argument list starts at {@code from}
+     */
+    private static int arguments(String source, int from) {
+        int depth = 0;
+        int commas = 0;
+        boolean inString = false;
+        for (int i = from; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (depth-- == 0) {
+                    break;
+                }
+            } else if (c == ',' && depth == 0) {
+                commas++;
+            }
+        }
+        return commas;
+    }
+
+    private static boolean guarded(String source, int callStart) {
+        String before = source.substring(0, callStart).stripTrailing();
+        String previousLine = before.substring(before.lastIndexOf('\n') + 1);
+        return GUARD.matcher(previousLine).find();
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.thisuserusername.restapi.reactive;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "restapi.reactive.enabled=true",
+        "restapi.reactive.url=r2dbc:h2:mem:///testdb",
+        "restapi.reactive.username=sa",
+        "restapi.reactive.fetch-size=2"})
+@ActiveProfiles("test")
+class ReactiveDeviceRepositoryTest {
+
+    @Autowired
+    private ReactiveDeviceRepository reactiveDeviceRepository;
+
+    @Test
+    void should_find_device_by_id_with_brand_name() {
+        // When
+        DeviceDTO device = reactiveDeviceRepository.findById(1L).block();
+
+        // Then
+        assertThat(device).isNotNull();
+        assertThat(device.getBrand()).isNotBlank();
+        assertThat(device.getState()).isIn("available", "in_use", "inactive");
+        assertThat(reactiveDeviceRepository.findById(-1L).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void should_page_devices_by_brand() {
+        // Given
+        DeviceFilter filter = DeviceFilter.builder().brand("Apple").build();
+
+        // When
+        List<DeviceDTO> firstPage = reactiveDeviceRepository.findAll(filter, 0, 3).collectList().block();
+        List<DeviceDTO> secondPage = reactiveDeviceRepository.findAll(filter, 1, 3).collectList().block();
+
+        // Then
+        assertThat(firstPage).hasSize(3).extracting(DeviceDTO::getBrand).containsOnly("Apple");
+        assertThat(secondPage).hasSize(1);
+        assertThat(firstPage.get(2).getId()).isLessThan(secondPage.get(0).getId());
+    }
+
+    @Test
+    void should_stream_devices_by_state_on_demand() {
+        // Given
+        DeviceFilter filter = DeviceFilter.builder().state(DeviceState.IN_USE).build();
+
+        // When
+        List<DeviceDTO> all = reactiveDeviceRepository.streamAll(filter).collectList().block();
+        List<DeviceDTO> firstTwo = reactiveDeviceRepository.streamAll(filter).limitRate(1).take(2).collectList().block();
+
+        // Then
+        assertThat(all).hasSize(7).extracting(DeviceDTO::getState).containsOnly("in_use");
+        assertThat(firstTwo).extracting(DeviceDTO::getId).containsExactlyElementsOf(
+                all.subList(0, 2).stream().map(DeviceDTO::getId).toList());
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.thisuserusername.restapi.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BrandDictionaryTest {
+
+    @Autowired
+    private BrandDictionary brandDictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void should_resolve_backfilled_brands_in_both_directions() {
+        // When
+        int appleId = brandDictionary.idOf("Apple").orElseThrow();
+
+        // Then
+        assertThat(brandDictionary.nameOf(appleId)).isEqualTo("Apple");
+        assertThat(brandDictionary.idOf("Brand Nobody Makes")).isEmpty();
+    }
+
+    @Test
+    void should_register_new_brand_once() {
+        // When
+        int first = brandDictionary.register("Dictionary Test Brand");
+        int second = brandDictionary.register("Dictionary Test Brand");
+
+        // Then
+        assertThat(second).isEqualTo(first);
+        assertThat(brandDictionary.nameOf(first)).isEqualTo("Dictionary Test Brand");
+    }
+
+    @Test
+    void should_roll_back_brand_registered_in_rolled_back_transaction() {
+        // Given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            brandDictionary.register("Rolled Back Brand");
+            assertThat(brandDictionary.idOf("Rolled Back Brand")).isPresent();
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(brandDictionary.idOf("Rolled Back Brand")).isEmpty();
+    }
+
+    @Test
+    void should_cache_brand_registered_in_committed_transaction() {
+        // Given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // When
+        int id = transactionTemplate.execute(status -> brandDictionary.register("Committed Brand"));
+
+        // Then
+        assertThat(brandDictionary.idOf("Committed Brand")).contains(id);
+        assertThat(brandDictionary.nameOf(id)).isEqualTo("Committed Brand");
+    }
+}
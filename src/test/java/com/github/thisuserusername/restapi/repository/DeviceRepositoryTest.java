@@ -1,7 +1,9 @@
 package com.github.thisuserusername.restapi.repository;
 
+import com.github.thisuserusername.restapi.jdbc.StatementBudget;
 import com.github.thisuserusername.restapi.model.Device;
 import com.github.thisuserusername.restapi.model.DeviceState;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,6 +12,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -19,7 +24,17 @@ class DeviceRepositoryTest {
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private BrandDictionary brandDictionary;
+
+    @BeforeEach
+    void loadBrands() {
+        // the dictionary is loaded on first use, which is not what the budgets measure
+        brandDictionary.idOf("Apple");
+    }
+
     @Test
+    @StatementBudget(select = 3)
     void should_find_devices_by_brand() {
         // Given
         String brand = "Apple";
@@ -43,6 +58,7 @@ class DeviceRepositoryTest {
     }
 
     @Test
+    @StatementBudget(select = 3)
     void should_find_devices_by_state() {
         // Given
         var state = DeviceState.IN_USE;
@@ -64,4 +80,34 @@ class DeviceRepositoryTest {
                 .isNotNull()
                 .hasSize(3);
     }
-}
\ No newline at end of file
+
+    @Test
+    @StatementBudget(select = 1)
+    void should_load_device_by_id_with_one_select() {
+        // When
+        var device = deviceRepository.findById(1L);
+
+        // Then
+        assertThat(device).isPresent();
+    }
+
+    @Test
+    void should_find_lowest_id_of_devices_with_brand_and_name() {
+        // Given
+        int brandId = brandDictionary.idOf("Apple").orElseThrow();
+        List<Device> duplicates = deviceRepository.saveAll(List.of(
+                Device.builder().name("Lookup Duplicate").brand("Apple").state(DeviceState.AVAILABLE).build(),
+                Device.builder().name("Lookup Duplicate").brand("Apple").state(DeviceState.INACTIVE).build()));
+
+        try {
+            // When
+            Optional<Long> id = deviceRepository.findIdByBrandIdAndName(brandId, "Lookup Duplicate");
+
+            // Then
+            assertThat(id).contains(Math.min(duplicates.get(0).getId(), duplicates.get(1).getId()));
+            assertThat(deviceRepository.findIdByBrandIdAndName(brandId, "Lookup Missing")).isEmpty();
+        } finally {
+            deviceRepository.deleteAll(duplicates);
+        }
+    }
+}
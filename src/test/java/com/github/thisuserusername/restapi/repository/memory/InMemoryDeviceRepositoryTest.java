@@ -0,0 +1,167 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSuspensionNotSupportedException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+class InMemoryDeviceRepositoryTest {
+
+    @TempDir
+    private Path directory;
+
+    private InMemoryDeviceStore store;
+    private InMemoryDeviceRepository repository;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        open();
+        transactionTemplate = new TransactionTemplate(new InMemoryTransactionManager());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.stop();
+    }
+
+    @Test
+    void should_page_devices_by_brand_and_state() {
+        // Given
+        repository.save(device("Phone 1", "Apple", DeviceState.AVAILABLE));
+        repository.save(device("Phone 2", "Apple", DeviceState.IN_USE));
+        repository.save(device("Phone 3", "Samsung", DeviceState.AVAILABLE));
+        repository.save(device("Phone 4", "Apple", DeviceState.AVAILABLE));
+
+        // When
+        Page<Device> page = repository.findAll(Example.of(Device.builder().brand("Apple").state(DeviceState.AVAILABLE)
+                .build()), PageRequest.of(0, 1));
+
+        // Then
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Device::getName).containsExactly("Phone 1");
+        assertThat(page.getContent().get(0).getVersion()).isZero();
+        assertThat(page.getContent().get(0).getCreatedOn()).isNotNull();
+    }
+
+    @Test
+    void should_write_changes_of_tracked_device_on_commit() {
+        // Given
+        long id = repository.save(device("Tablet", "Lenovo", DeviceState.AVAILABLE)).getId();
+
+        // When
+        transactionTemplate.executeWithoutResult(status ->
+                repository.findById(id).orElseThrow().setState(DeviceState.INACTIVE));
+
+        // Then
+        Device updated = repository.findById(id).orElseThrow();
+        assertThat(updated.getState()).isEqualTo(DeviceState.INACTIVE);
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(repository.findAll(Example.of(Device.builder().state(DeviceState.AVAILABLE).build()))).isEmpty();
+    }
+
+    @Test
+    void should_reject_update_of_stale_version() {
+        // Given
+        long id = repository.save(device("Laptop", "Dell", DeviceState.AVAILABLE)).getId();
+        Device first = repository.findById(id).orElseThrow();
+        Device second = repository.findById(id).orElseThrow();
+        first.setName("Laptop 1");
+        repository.save(first);
+
+        // When / Then
+        second.setName("Laptop 2");
+        assertThatThrownBy(() -> repository.save(second)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(repository.findById(id).orElseThrow().getName()).isEqualTo("Laptop 1");
+    }
+
+    @Test
+    void should_discard_writes_of_rolled_back_transaction() {
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.save(device("Watch", "Garmin", DeviceState.AVAILABLE));
+            repository.flush();
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void should_restore_devices_from_snapshot_and_journal() throws IOException {
+        // Given
+        long kept = repository.save(device("Kept", "Apple", DeviceState.AVAILABLE)).getId();
+        long deleted = repository.save(device("Deleted", "Apple", DeviceState.AVAILABLE)).getId();
+        store.snapshot();
+        Device changed = repository.findById(kept).orElseThrow();
+        changed.setState(DeviceState.IN_USE);
+        repository.save(changed);
+        repository.deleteById(deleted);
+
+        // When
+        store.stop();
+        open();
+
+        // Then
+        assertThat(repository.findAll()).extracting(Device::getId, Device::getState, Device::getVersion)
+                .containsExactly(tuple(kept, DeviceState.IN_USE, 1L));
+        assertThat(repository.save(device("New", "Apple", DeviceState.AVAILABLE)).getId()).isGreaterThan(deleted);
+    }
+
+    @Test
+    void should_reject_fluent_queries() {
+        // When / Then
+        assertThatThrownBy(() -> repository.findBy(Example.of(device("Phone", "Apple", DeviceState.AVAILABLE)),
+                query -> query.first()))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("Fluent queries");
+    }
+
+    @Test
+    void should_reject_suspending_a_transaction() {
+        // Given
+        TransactionTemplate requiresNew = new TransactionTemplate(new InMemoryTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // When / Then
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            repository.save(device("Outer", "Apple", DeviceState.AVAILABLE));
+            requiresNew.executeWithoutResult(inner -> repository.save(device("Inner", "Apple", DeviceState.AVAILABLE)));
+        })).isInstanceOf(TransactionSuspensionNotSupportedException.class);
+        assertThat(repository.count()).isZero();
+    }
+
+    private void open() throws IOException {
+        InMemoryBrandDictionary brandDictionary = new InMemoryBrandDictionary();
+        store = new InMemoryDeviceStore(new InMemoryStorageProperties(directory, DataSize.ofKilobytes(4),
+                Duration.ofMinutes(5), false), brandDictionary, mock(TaskScheduler.class));
+        store.start();
+        repository = new InMemoryDeviceRepository(store, brandDictionary);
+    }
+
+    private static Device device(String name, String brand, DeviceState state) {
+        return Device.builder().name(name).brand(brand).state(state).build();
+    }
+}
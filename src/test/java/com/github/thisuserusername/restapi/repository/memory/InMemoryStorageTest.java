@@ -0,0 +1,147 @@
+package com.github.thisuserusername.restapi.repository.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.ArchivedDevice;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.ArchivedDeviceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the device API on the in-memory storage, then replays a copy of its journal, as left behind by a crash, into
+ * a new store.
+ */
+@SpringBootTest(properties = {
+        "restapi.storage.memory.directory=${java.io.tmpdir}/restapi-memory-test-${random.uuid}",
+        "restapi.storage.memory.segment-size=64KB"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("memory")
+class InMemoryStorageTest {
+
+    @TempDir
+    private Path copy;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InMemoryStorageProperties properties;
+
+    @Autowired
+    private ArchivedDeviceRepository archivedDeviceRepository;
+
+    @Test
+    void should_serve_device_api_and_replay_journal_after_restart() throws Exception {
+        // Given
+        long kept = create("Memory Phone");
+        long deleted = create("Memory Tablet");
+
+        // When
+        mockMvc.perform(get("/api/v1/devices/{id}", kept))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Memory Phone"));
+        mockMvc.perform(patch("/api/v1/devices/{id}", kept)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"state\":\"in_use\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("in_use"));
+        mockMvc.perform(delete("/api/v1/devices/{id}", deleted))
+                .andExpect(status().isNoContent());
+
+        // Then
+        mockMvc.perform(get("/api/v1/devices/{id}", deleted))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/devices").param("brand", "Memory Brand"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page.totalElements").value(1))
+                .andExpect(jsonPath("$._embedded.*[*].id", contains((int) kept)));
+
+        // When
+        InMemoryDeviceStore restarted = restartFromCopy();
+
+        // Then
+        try {
+            Device restored = restarted.get(kept);
+            assertThat(restored.getName()).isEqualTo("Memory Phone");
+            assertThat(restored.getState()).isEqualTo(DeviceState.IN_USE);
+            assertThat(restored.getVersion()).isEqualTo(1);
+            assertThat(restarted.get(deleted)).isNull();
+            assertThat(restarted.count()).isEqualTo(1);
+            assertThat(restarted.nextId()).isGreaterThan(deleted);
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void should_reject_writes_to_the_archive() {
+        // When / Then
+        assertThatThrownBy(() -> archivedDeviceRepository.save(new ArchivedDevice()))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasMessageContaining("no device archive");
+        assertThat(archivedDeviceRepository.findAll()).isEmpty();
+    }
+
+    private long create(String name) throws Exception {
+        DeviceDTO device = DeviceDTO.builder().name(name).brand("Memory Brand").state("available").build();
+        String response = mockMvc.perform(post("/api/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(device)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    /**
+     * Copies the journal as it is on the disk while the application keeps running, so that no snapshot is taken,
+     * and opens a new store on the copy.
+     */
+    private InMemoryDeviceStore restartFromCopy() throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(properties.directory())) {
+            files = paths.toList();
+        }
+        assertThat(files).noneMatch(file -> file.getFileName().toString().startsWith("snapshot-"));
+        for (Path file : files) {
+            Files.copy(file, copy.resolve(file.getFileName()));
+        }
+        InMemoryDeviceStore store = new InMemoryDeviceStore(new InMemoryStorageProperties(copy,
+                DataSize.ofKilobytes(64), Duration.ofMinutes(5), false), new InMemoryBrandDictionary(),
+                mock(TaskScheduler.class));
+        store.start();
+        return store;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DeviceArchiverTest {
+
+    private static final String BRAND = "Archiver Test Brand";
+
+    @Autowired
+    private DeviceArchiver deviceArchiver;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BrandDictionary brandDictionary;
+
+    @AfterEach
+    void cleanUp() {
+        brandDictionary.idOf(BRAND).ifPresent(brandId -> {
+            for (String table : List.of("devices", "devices_archive")) {
+                jdbcTemplate.update("DELETE FROM restapi.device_tombstones WHERE device_id IN "
+                        + "(SELECT id FROM restapi." + table + " WHERE brand_id = ?)", brandId);
+                jdbcTemplate.update("DELETE FROM restapi.device_history WHERE device_id IN "
+                        + "(SELECT id FROM restapi." + table + " WHERE brand_id = ?)", brandId);
+            }
+            jdbcTemplate.update("DELETE FROM restapi.device_state_transitions WHERE brand_id = ?", brandId);
+            jdbcTemplate.update("DELETE FROM restapi.devices_archive WHERE brand_id = ?", brandId);
+            jdbcTemplate.update("DELETE FROM restapi.devices WHERE brand_id = ?", brandId);
+        });
+    }
+
+    @Test
+    void should_move_stale_inactive_devices_to_archive() {
+        // Given
+        int brandId = brandDictionary.register(BRAND);
+        jdbcTemplate.update("INSERT INTO restapi.devices (name, brand_id, state, created_on, modified_on, version) "
+                + "VALUES ('Old Device', ?, 'INACTIVE', '2000-01-01 00:00:00', '2000-01-01 00:00:00', 0)", brandId);
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM restapi.devices WHERE brand_id = ?", Long.class, brandId);
+
+        // When
+        int archived = deviceArchiver.archiveChunk(LocalDateTime.of(2001, 1, 1, 0, 0));
+
+        // Then
+        assertThat(archived).isEqualTo(1);
+        assertThat(deviceRepository.findById(id)).isEmpty();
+        assertThat(deviceService.getDeviceById(id))
+                .get()
+                .extracting(Device::getName)
+                .isEqualTo("Old Device");
+
+        // When
+        Page<Device> hot = deviceService.getFilteredDevicesAsPage(DeviceFilter.builder().brand(BRAND).build(), 0, 10);
+        Page<Device> all = deviceService.getFilteredDevicesAsPage(
+                DeviceFilter.builder().brand(BRAND).includeArchived(true).build(), 0, 10);
+
+        // Then
+        assertThat(hot).isEmpty();
+        assertThat(all.getContent()).extracting(Device::getId).containsExactly(id);
+        assertThat(all.getTotalElements()).isEqualTo(1);
+    }
+}
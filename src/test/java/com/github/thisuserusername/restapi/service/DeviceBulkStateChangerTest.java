@@ -0,0 +1,171 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.cache.DevicePageCache;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "restapi.bulk.chunk-size=2")
+@ActiveProfiles("test")
+class DeviceBulkStateChangerTest {
+
+    private static final String BRAND = "Bulk Test Brand";
+
+    @Autowired
+    private DeviceBulkStateChanger deviceBulkStateChanger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BrandDictionary brandDictionary;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DevicePageCache devicePageCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        brandDictionary.idOf(BRAND).ifPresent(brandId -> {
+            jdbcTemplate.update("DELETE FROM restapi.device_history WHERE device_id IN "
+                    + "(SELECT id FROM restapi.devices WHERE brand_id = ?)", brandId);
+            jdbcTemplate.update("DELETE FROM restapi.device_state_transitions WHERE brand_id = ?", brandId);
+            jdbcTemplate.update("DELETE FROM restapi.devices WHERE brand_id = ?", brandId);
+        });
+    }
+
+    @Test
+    void should_change_state_of_matching_devices_except_in_use_ones() {
+        // Given
+        int brandId = brandDictionary.register(BRAND);
+        insert("Bulk 1", brandId, "AVAILABLE");
+        insert("Bulk 2", brandId, "IN_USE");
+        insert("Bulk 3", brandId, "AVAILABLE");
+        insert("Bulk 4", brandId, "INACTIVE");
+        insert("Bulk 5", brandId, "AVAILABLE");
+
+        // When
+        BulkStateChangeResult result = deviceBulkStateChanger.changeState(
+                DeviceFilter.builder().brand(BRAND).build(), DeviceState.INACTIVE);
+
+        // Then
+        assertThat(result).isEqualTo(new BulkStateChangeResult(3, 1));
+        assertThat(states(brandId)).containsExactly("INACTIVE", "IN_USE", "INACTIVE", "INACTIVE", "INACTIVE");
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM restapi.devices WHERE brand_id = ? ORDER BY id",
+                Long.class, brandId)).containsExactly(1L, 0L, 1L, 0L, 1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM restapi.device_history h "
+                + "JOIN restapi.devices d ON d.id = h.device_id WHERE d.brand_id = ? AND h.change_type = 'UPDATED' "
+                + "AND h.state = 'INACTIVE' AND h.brand = ?", Long.class, brandId, BRAND)).isEqualTo(3);
+    }
+
+    @Test
+    void should_only_change_devices_in_filtered_state() {
+        // Given
+        int brandId = brandDictionary.register(BRAND);
+        insert("Bulk 1", brandId, "AVAILABLE");
+        insert("Bulk 2", brandId, "INACTIVE");
+
+        // When
+        BulkStateChangeResult result = deviceBulkStateChanger.changeState(
+                DeviceFilter.builder().brand(BRAND).state(DeviceState.INACTIVE).build(), DeviceState.AVAILABLE);
+
+        // Then
+        assertThat(result).isEqualTo(new BulkStateChangeResult(1, 0));
+        assertThat(states(brandId)).containsExactly("AVAILABLE", "AVAILABLE");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM restapi.device_history h "
+                + "JOIN restapi.devices d ON d.id = h.device_id WHERE d.brand_id = ? AND h.change_type = 'UPDATED' "
+                + "AND h.state = 'AVAILABLE'", Long.class, brandId)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM restapi.device_state_transitions "
+                + "WHERE brand_id = ? AND state = 'AVAILABLE'", Long.class, brandId)).isEqualTo(1);
+    }
+
+    @Test
+    void change_without_brand_should_evict_pages_filtered_by_brand() {
+        // Given
+        int brandId = brandDictionary.register(BRAND);
+        insert("Bulk 1", brandId, "AVAILABLE");
+        insert("Bulk 2", brandId, "AVAILABLE");
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM restapi.devices WHERE brand_id = ? ORDER BY id",
+                Long.class, brandId);
+        DeviceFilter available = DeviceFilter.builder().brand(BRAND).state(DeviceState.AVAILABLE).build();
+        DeviceFilter anyState = DeviceFilter.builder().brand(BRAND).build();
+        assertThat(deviceService.getFilteredDevicesAsPage(available, 0, 10).getTotalElements()).isEqualTo(2);
+        assertThat(deviceService.getFilteredDevicesAsPage(anyState, 0, 10).getTotalElements()).isEqualTo(2);
+        assertThat(devicePageCache.get(available, 0, 10)).isPresent();
+        assertThat(devicePageCache.get(anyState, 0, 10)).isPresent();
+
+        // When
+        // limited to the ids of this test, the filter matches devices of every brand
+        deviceBulkStateChanger.changeChunk(DeviceFilter.builder().state(DeviceState.AVAILABLE).build(),
+                DeviceState.INACTIVE, ids.get(0), ids.get(1));
+
+        // Then
+        assertThat(devicePageCache.get(available, 0, 10)).isEmpty();
+        assertThat(devicePageCache.get(anyState, 0, 10)).isEmpty();
+        assertThat(deviceService.getFilteredDevicesAsPage(available, 0, 10)).isEmpty();
+        assertThat(deviceService.getFilteredDevicesAsPage(anyState, 0, 10))
+                .extracting(Device::getState)
+                .containsOnly(DeviceState.INACTIVE);
+    }
+
+    @Test
+    void chunk_joining_a_transaction_should_evict_pages_when_it_commits() {
+        // Given
+        int brandId = brandDictionary.register(BRAND);
+        insert("Bulk 1", brandId, "AVAILABLE");
+        long id = jdbcTemplate.queryForObject("SELECT id FROM restapi.devices WHERE brand_id = ?", Long.class, brandId);
+        DeviceFilter filter = DeviceFilter.builder().brand(BRAND).build();
+        deviceService.getFilteredDevicesAsPage(filter, 0, 10);
+        long generation = devicePageCache.generation();
+
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            deviceBulkStateChanger.changeChunk(filter, DeviceState.INACTIVE, id, id);
+
+            // Then
+            assertThat(devicePageCache.generation()).as("not evicted before the commit").isEqualTo(generation);
+            assertThat(devicePageCache.get(filter, 0, 10)).isPresent();
+        });
+
+        // Then
+        assertThat(devicePageCache.generation()).isGreaterThan(generation);
+        assertThat(devicePageCache.get(filter, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void should_change_nothing_for_unknown_brand() {
+        // When
+        BulkStateChangeResult result = deviceBulkStateChanger.changeState(
+                DeviceFilter.builder().brand("Unknown Bulk Brand").build(), DeviceState.INACTIVE);
+
+        // Then
+        assertThat(result).isEqualTo(BulkStateChangeResult.NONE);
+    }
+
+    private void insert(String name, int brandId, String state) {
+        jdbcTemplate.update("INSERT INTO restapi.devices (name, brand_id, state, created_on, modified_on, version) "
+                + "VALUES (?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)", name, brandId, state);
+    }
+
+    private List<String> states(int brandId) {
+        return jdbcTemplate.queryForList("SELECT state FROM restapi.devices WHERE brand_id = ? ORDER BY id",
+                String.class, brandId);
+    }
+}
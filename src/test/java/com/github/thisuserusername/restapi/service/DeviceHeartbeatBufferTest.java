@@ -0,0 +1,67 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DeviceHeartbeatBufferTest {
+
+    @Autowired
+    private DeviceHeartbeatBuffer deviceHeartbeatBuffer;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void should_coalesce_heartbeats_and_flush_without_bumping_version() {
+        // Given
+        Device before = deviceRepository.findById(5L).orElseThrow();
+        LocalDateTime seenOn = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        // When
+        deviceHeartbeatBuffer.record(5L, seenOn.minusSeconds(10));
+        deviceHeartbeatBuffer.record(5L, seenOn);
+        deviceHeartbeatBuffer.record(5L, seenOn.minusSeconds(5));
+
+        // Then
+        assertThat(deviceHeartbeatBuffer.pending(5L)).contains(seenOn);
+
+        // When
+        deviceHeartbeatBuffer.flush();
+
+        // Then
+        Device after = deviceRepository.findById(5L).orElseThrow();
+        assertThat(deviceHeartbeatBuffer.pending(5L)).isEmpty();
+        assertThat(after.getLastSeen()).isEqualTo(seenOn);
+        assertThat(after.getVersion()).isEqualTo(before.getVersion());
+        assertThat(after.getModifiedOn()).isEqualTo(before.getModifiedOn());
+    }
+
+    @Test
+    void should_drop_heartbeats_of_unknown_devices_on_flush() {
+        // Given
+        double dropped = meterRegistry.get("device.heartbeats.dropped").counter().count();
+        deviceHeartbeatBuffer.record(987_654L, LocalDateTime.now());
+
+        // When
+        deviceHeartbeatBuffer.flush();
+
+        // Then
+        assertThat(deviceHeartbeatBuffer.pending(987_654L)).isEmpty();
+        assertThat(meterRegistry.get("device.heartbeats.dropped").counter().count()).isEqualTo(dropped + 1);
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.model.DeviceChangeType;
+import com.github.thisuserusername.restapi.model.DeviceHistory;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DeviceHistoryRecorderTest {
+
+    private static final long DEVICE_ID = 900_001L;
+    private static final long FALLBACK_DEVICE_ID = 900_002L;
+    private static final long REQUEUED_DEVICE_ID = 900_003L;
+
+    @Autowired
+    private DeviceHistoryRecorder deviceHistoryRecorder;
+
+    @Autowired
+    private DeviceHistoryService deviceHistoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM restapi.device_history WHERE device_id IN (?, ?, ?)",
+                DEVICE_ID, FALLBACK_DEVICE_ID, REQUEUED_DEVICE_ID);
+    }
+
+    @Test
+    void should_write_queued_changes_and_page_them_newest_first() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        DeviceSnapshot created = new DeviceSnapshot(DEVICE_ID, "Device", "Brand", DeviceState.AVAILABLE, 0L, now);
+        DeviceSnapshot updated = new DeviceSnapshot(DEVICE_ID, "Device", "Brand", DeviceState.IN_USE, 1L, now);
+        DeviceSnapshot renamed = new DeviceSnapshot(DEVICE_ID, "Renamed", "Brand", DeviceState.IN_USE, 2L, now);
+
+        // When
+        deviceHistoryRecorder.onDeviceChanged(DeviceChangedEvent.created(created));
+        deviceHistoryRecorder.onDeviceChanged(DeviceChangedEvent.updated(created, updated));
+        deviceHistoryRecorder.onDeviceChanged(DeviceChangedEvent.updated(updated, renamed));
+        deviceHistoryRecorder.flush();
+
+        // Then
+        List<DeviceHistory> firstPage = deviceHistoryService.getDeviceHistory(DEVICE_ID, null, 2);
+        assertThat(firstPage)
+                .extracting(DeviceHistory::getDeviceVersion)
+                .containsExactly(2L, 1L);
+
+        // When
+        List<DeviceHistory> secondPage = deviceHistoryService.getDeviceHistory(DEVICE_ID, firstPage.get(1).getId(), 2);
+
+        // Then
+        assertThat(secondPage)
+                .singleElement()
+                .satisfies(entry -> {
+                    assertThat(entry.getChangeType()).isEqualTo(DeviceChangeType.CREATED);
+                    assertThat(entry.getState()).isEqualTo(DeviceState.AVAILABLE);
+                });
+    }
+
+    @Test
+    void should_commit_synchronous_fallback_written_after_commit_of_the_change() {
+        // Given
+        DeviceHistoryRecorder recorder = recorder(jdbcTemplate, 1);
+        DeviceSnapshot created = snapshot(FALLBACK_DEVICE_ID, DeviceState.AVAILABLE, 0L);
+        DeviceSnapshot updated = snapshot(FALLBACK_DEVICE_ID, DeviceState.INACTIVE, 1L);
+
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recorder.onDeviceChanged(DeviceChangedEvent.created(created));
+                        recorder.onDeviceChanged(DeviceChangedEvent.updated(created, updated));
+                    }
+                }));
+
+        // Then
+        assertThat(deviceHistoryService.getDeviceHistory(FALLBACK_DEVICE_ID, null, 10))
+                .extracting(DeviceHistory::getDeviceVersion)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void should_requeue_batch_that_failed_to_be_written() {
+        // Given
+        AtomicBoolean failing = new AtomicBoolean(true);
+        JdbcTemplate flakyJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                if (failing.getAndSet(false)) {
+                    throw new DataAccessResourceFailureException("Connection refused");
+                }
+                return super.batchUpdate(sql, batchArgs);
+            }
+        };
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DeviceHistoryRecorder recorder = recorder(flakyJdbcTemplate, 10, meterRegistry);
+        recorder.onDeviceChanged(DeviceChangedEvent.created(snapshot(REQUEUED_DEVICE_ID, DeviceState.AVAILABLE, 0L)));
+
+        // When
+        recorder.flush();
+
+        // Then
+        assertThat(deviceHistoryService.getDeviceHistory(REQUEUED_DEVICE_ID, null, 10)).isEmpty();
+
+        // When
+        recorder.flush();
+
+        // Then
+        assertThat(deviceHistoryService.getDeviceHistory(REQUEUED_DEVICE_ID, null, 10)).hasSize(1);
+        assertThat(meterRegistry.counter("device.history.rows", "path", "dropped").count()).isZero();
+        assertThat(meterRegistry.counter("device.history.rows", "path", "batch").count()).isEqualTo(1);
+    }
+
+    private DeviceHistoryRecorder recorder(JdbcTemplate template, int queueCapacity) {
+        return recorder(template, queueCapacity, new SimpleMeterRegistry());
+    }
+
+    private DeviceHistoryRecorder recorder(JdbcTemplate template, int queueCapacity, MeterRegistry meterRegistry) {
+        DeviceHistoryProperties properties = new DeviceHistoryProperties(queueCapacity, 500, Duration.ofMillis(200),
+                Duration.ZERO);
+        return new DeviceHistoryRecorder(properties, template, transactionManager, taskScheduler, meterRegistry,
+                "restapi");
+    }
+
+    private static DeviceSnapshot snapshot(long id, DeviceState state, long version) {
+        return new DeviceSnapshot(id, "Device", "Brand", state, version, LocalDateTime.now());
+    }
+}
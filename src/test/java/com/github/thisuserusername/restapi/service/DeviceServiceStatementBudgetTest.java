@@ -0,0 +1,91 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.jdbc.StatementBudget;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Pins the number of statements of the main device operations, so an added lazy load or repeated lookup fails
+ * the build instead of showing up as latency.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DeviceServiceStatementBudgetTest {
+
+    private static final String BRAND = "Statement Budget Brand";
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Device device;
+
+    @BeforeEach
+    void createDevice() {
+        device = deviceService.createDevice(DeviceDTO.builder().name("Budget").brand(BRAND).state("available").build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (deviceRepository.existsById(device.getId())) {
+            deviceService.deleteDevice(device.getId());
+        }
+        jdbcTemplate.update("DELETE FROM restapi.device_tombstones WHERE device_id = ?", device.getId());
+    }
+
+    @Test
+    @StatementBudget(select = 1)
+    void get_device_by_id_should_take_one_select() {
+        // When
+        var found = deviceService.getDeviceById(device.getId());
+
+        // Then
+        assertThat(found).isPresent();
+    }
+
+    @Test
+    @StatementBudget(select = 2)
+    void list_page_should_take_one_select_and_one_count() {
+        // When
+        Page<Device> page = deviceService.getFilteredDevicesAsPage(new DeviceFilter(null, DeviceState.IN_USE, false),
+                0, 2);
+
+        // Then
+        assertThat(page.getContent()).hasSize(2);
+    }
+
+    @Test
+    @StatementBudget(select = 1, update = 1, insert = 1)
+    void rename_should_take_one_select_and_one_update_besides_cache_invalidation() {
+        // When
+        Device renamed = deviceService.updateDevice(device.getId(), DeviceDTO.builder().name("Renamed").build());
+
+        // Then
+        assertThat(renamed.getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    @StatementBudget(select = 1, delete = 1, insert = 3)
+    void delete_should_take_one_select_and_one_delete_besides_tombstone_transition_and_cache_invalidation() {
+        // When & Then
+        assertThatCode(() -> deviceService.deleteDevice(device.getId())).doesNotThrowAnyException();
+    }
+}
@@ -1,27 +1,48 @@
 package com.github.thisuserusername.restapi.service;
 
+import com.github.thisuserusername.restapi.cache.DeviceNaturalIdCache;
+import com.github.thisuserusername.restapi.cache.DeviceNaturalIdCacheProperties;
+import com.github.thisuserusername.restapi.cache.DevicePageCache;
+import com.github.thisuserusername.restapi.cache.DevicePageCacheProperties;
 import com.github.thisuserusername.restapi.dto.DeviceDTO;
 import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.ArchivedDevice;
 import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.repository.ArchivedDeviceRepository;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
 import com.github.thisuserusername.restapi.repository.DeviceRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +50,16 @@ class DeviceServiceTest {
 
     @Mock
     private DeviceRepository deviceRepository;
+    @Mock
+    private ArchivedDeviceRepository archivedDeviceRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BrandDictionary brandDictionary;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private DevicePageCache devicePageCache;
+    private DeviceNaturalIdCache deviceNaturalIdCache;
     private DeviceService deviceService;
 
     private Device testDevice;
@@ -37,7 +68,11 @@ class DeviceServiceTest {
 
     @BeforeEach
     void setUp() {
-        deviceService = new DeviceServiceImpl(deviceRepository);
+        devicePageCache = new DevicePageCache(new DevicePageCacheProperties(true, DataSize.ofMegabytes(1)));
+        deviceNaturalIdCache = new DeviceNaturalIdCache(new DeviceNaturalIdCacheProperties(true, 1000));
+        deviceService = new DeviceServiceImpl(deviceRepository, archivedDeviceRepository, eventPublisher, devicePageCache,
+                brandDictionary, deviceNaturalIdCache, transactionManager);
+        lenient().when(brandDictionary.idOf(anyString())).thenReturn(Optional.of(1));
 
         testDevice = Device.builder()
                 .id(1L)
@@ -108,6 +143,28 @@ class DeviceServiceTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void get_device_by_id_when_archived_should_return_archived_device() {
+        // Given
+        ArchivedDevice archivedDevice = ArchivedDevice.builder()
+                .id(1L)
+                .name("Archived Device")
+                .brand("Test Brand")
+                .state(DeviceState.INACTIVE)
+                .createdOn(LocalDateTime.now().minusYears(1))
+                .build();
+        when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+        when(archivedDeviceRepository.findById(1L)).thenReturn(Optional.of(archivedDevice));
+
+        // When
+        Optional<Device> result = deviceService.getDeviceById(1L);
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().getName()).isEqualTo("Archived Device");
+        assertThat(result.get().getState()).isEqualTo(DeviceState.INACTIVE);
+    }
+
     @Test
     void update_device_when_not_in_use_should_update_successfully() {
         // Given
@@ -197,6 +254,128 @@ class DeviceServiceTest {
                 .hasMessageContaining("Device with ID 1 does not exist");
     }
 
+    @Test
+    void update_device_when_device_is_archived_should_report_it_as_archived() {
+        // Given
+        when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+        when(archivedDeviceRepository.existsById(1L)).thenReturn(true);
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.updateDevice(1L, DeviceDTO.builder().state("available").build()))
+                .isInstanceOf(DeviceArchivedException.class)
+                .hasMessageContaining("Device with ID 1 is archived");
+        verify(eventPublisher, never()).publishEvent(any(DeviceChangedEvent.class));
+    }
+
+    @Test
+    void patch_devices_should_report_archived_devices_apart_from_missing_ones() {
+        // Given
+        Map<Long, DeviceDTO> patches = new LinkedHashMap<>();
+        patches.put(1L, DeviceDTO.builder().state("inactive").build());
+        patches.put(4L, DeviceDTO.builder().name("Missing").build());
+        patches.put(5L, DeviceDTO.builder().name("Archived").build());
+        when(deviceRepository.findAllById(patches.keySet())).thenReturn(List.of(testDevice));
+        when(archivedDeviceRepository.findAllById(List.of(4L, 5L)))
+                .thenReturn(List.of(ArchivedDevice.builder().id(5L).build()));
+
+        // When
+        List<DevicePatchResult> results = deviceService.patchDevices(patches);
+
+        // Then
+        assertThat(results).extracting(DevicePatchResult::outcome).containsExactly(
+                DevicePatchResult.Outcome.UPDATED, DevicePatchResult.Outcome.NOT_FOUND,
+                DevicePatchResult.Outcome.ARCHIVED);
+        assertThat(results.get(2).message()).contains("Device with ID 5 is archived");
+    }
+
+    @Test
+    void patch_devices_should_apply_valid_patches_and_report_rejected_ones() {
+        // Given
+        Map<Long, DeviceDTO> patches = new LinkedHashMap<>();
+        patches.put(1L, DeviceDTO.builder().state("inactive").build());
+        patches.put(2L, DeviceDTO.builder().name("In Use Device").brand("Other Brand").build());
+        patches.put(4L, DeviceDTO.builder().name("Missing").build());
+        patches.put(3L, DeviceDTO.builder().name("Renamed Device").build());
+        when(deviceRepository.findAllById(patches.keySet())).thenReturn(List.of(testDevice, inUseDevice, anotherDevice));
+
+        // When
+        List<DevicePatchResult> results = deviceService.patchDevices(patches);
+
+        // Then
+        assertThat(results).extracting(DevicePatchResult::id).containsExactly(1L, 2L, 4L, 3L);
+        assertThat(results).extracting(DevicePatchResult::outcome).containsExactly(
+                DevicePatchResult.Outcome.UPDATED, DevicePatchResult.Outcome.REJECTED,
+                DevicePatchResult.Outcome.NOT_FOUND, DevicePatchResult.Outcome.UPDATED);
+        assertThat(results.get(1).message()).contains("Cannot update brand of device that is in use");
+        assertThat(testDevice.getState()).isEqualTo(DeviceState.INACTIVE);
+        assertThat(inUseDevice.getBrand()).isEqualTo("Test Brand");
+        assertThat(anotherDevice.getName()).isEqualTo("Renamed Device");
+        verify(deviceRepository, times(1)).flush();
+        verify(eventPublisher, times(2)).publishEvent(any(DeviceChangedEvent.class));
+    }
+
+    @Test
+    void patch_devices_should_report_stale_device_and_apply_the_others_in_a_new_transaction() {
+        // Given
+        Map<Long, DeviceDTO> patches = new LinkedHashMap<>();
+        patches.put(1L, DeviceDTO.builder().state("inactive").build());
+        patches.put(3L, DeviceDTO.builder().name("Renamed Device").build());
+        when(deviceRepository.findAllById(any())).thenAnswer(invocation -> findAll(invocation.getArgument(0)));
+        doThrow(new ObjectOptimisticLockingFailureException(Device.class, 1L)).doNothing()
+                .when(deviceRepository).flush();
+
+        // When
+        List<DevicePatchResult> results = deviceService.patchDevices(patches);
+
+        // Then
+        assertThat(results).extracting(DevicePatchResult::id).containsExactly(1L, 3L);
+        assertThat(results).extracting(DevicePatchResult::outcome).containsExactly(
+                DevicePatchResult.Outcome.CONFLICT, DevicePatchResult.Outcome.UPDATED);
+        assertThat(results.get(0).message()).isEqualTo("Device with ID 1 was modified concurrently");
+        verify(deviceRepository).findAllById(Set.of(3L));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(eventPublisher, times(1)).publishEvent(any(DeviceChangedEvent.class));
+    }
+
+    @Test
+    void patch_devices_should_flush_item_by_item_to_find_the_patch_violating_a_constraint() {
+        // Given
+        Map<Long, DeviceDTO> patches = new LinkedHashMap<>();
+        patches.put(1L, DeviceDTO.builder().state("inactive").build());
+        patches.put(3L, DeviceDTO.builder().name("Renamed Device").build());
+        when(deviceRepository.findAllById(any())).thenAnswer(invocation -> findAll(invocation.getArgument(0)));
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("value too long");
+        // batch flush, then item 1 and item 3 of the retry, then item 1 and the batch flush of the last attempt
+        doThrow(violation).doNothing().doThrow(violation).doNothing()
+                .when(deviceRepository).flush();
+
+        // When
+        List<DevicePatchResult> results = deviceService.patchDevices(patches);
+
+        // Then
+        assertThat(results).extracting(DevicePatchResult::outcome).containsExactly(
+                DevicePatchResult.Outcome.UPDATED, DevicePatchResult.Outcome.CONFLICT);
+        assertThat(results.get(1).message()).isEqualTo("Patch of device with ID 3 violates a constraint");
+        verify(transactionManager, times(2)).rollback(any());
+        verify(eventPublisher, times(1)).publishEvent(any(DeviceChangedEvent.class));
+    }
+
+    @Test
+    void patch_devices_should_fail_when_the_conflict_cannot_be_attributed() {
+        // Given
+        Map<Long, DeviceDTO> patches = Map.of(1L, DeviceDTO.builder().state("inactive").build());
+        when(deviceRepository.findAllById(any())).thenAnswer(invocation -> findAll(invocation.getArgument(0)));
+        doThrow(new ObjectOptimisticLockingFailureException(Device.class, 9L))
+                .when(transactionManager).commit(any());
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.patchDevices(patches))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(deviceRepository, times(2)).findAllById(any());
+        verify(eventPublisher, times(2)).publishEvent(any(DeviceChangedEvent.class));
+    }
+
     @Test
     void delete_device_when_not_in_use_should_delete_successfully() {
         // Given
@@ -206,7 +385,8 @@ class DeviceServiceTest {
         deviceService.deleteDevice(1L);
 
         // Then
-        verify(deviceRepository).deleteById(1L);
+        verify(deviceRepository).delete(testDevice);
+        verify(deviceRepository, never()).deleteById(anyLong());
     }
 
     @Test
@@ -219,7 +399,7 @@ class DeviceServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Cannot delete device that is in use");
         
-        verify(deviceRepository, never()).deleteById(2L);
+        verify(deviceRepository, never()).delete(any(Device.class));
     }
 
     @Test
@@ -233,6 +413,19 @@ class DeviceServiceTest {
                 .hasMessageContaining("Device with ID 1 does not exist");
     }
 
+    @Test
+    void delete_device_when_device_is_archived_should_report_it_as_archived() {
+        // Given
+        when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+        when(archivedDeviceRepository.existsById(1L)).thenReturn(true);
+
+        // When & Then
+        assertThatThrownBy(() -> deviceService.deleteDevice(1L))
+                .isInstanceOf(DeviceArchivedException.class)
+                .hasMessageContaining("Device with ID 1 is archived");
+        verify(deviceRepository, never()).delete(any(Device.class));
+    }
+
     @Test
     void get_filtered_devices_as_page_when_no_filters_should_return_all_devices() {
         // Given
@@ -347,4 +540,161 @@ class DeviceServiceTest {
         assertThat(result.getContent()).isEmpty();
         verify(deviceRepository).findAll(any(Example.class), eq(pageRequest));
     }
-}
\ No newline at end of file
+
+    @Test
+    void get_filtered_devices_as_page_when_brand_unknown_should_return_empty_page_without_query() {
+        // Given
+        DeviceFilter filter = DeviceFilter.builder().brand("Unknown Brand").build();
+        when(brandDictionary.idOf("Unknown Brand")).thenReturn(Optional.empty());
+
+        // When
+        Page<Device> result = deviceService.getFilteredDevicesAsPage(filter, 0, 10);
+
+        // Then
+        assertThat(result.getContent()).isEmpty();
+        verifyNoInteractions(deviceRepository);
+    }
+
+    @Test
+    void get_filtered_devices_as_page_when_cached_should_rehydrate_devices_by_id() {
+        // Given
+        DeviceFilter filter = DeviceFilter.builder().brand("Test Brand").build();
+        Page<Device> expectedPage = new PageImpl<>(Arrays.asList(testDevice, inUseDevice));
+
+        when(deviceRepository.findAll(any(Example.class), any(PageRequest.class))).thenReturn(expectedPage);
+        when(deviceRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(inUseDevice, testDevice));
+        deviceService.getFilteredDevicesAsPage(filter, 0, 10);
+
+        // When
+        Page<Device> result = deviceService.getFilteredDevicesAsPage(filter, 0, 10);
+
+        // Then
+        assertThat(result.getContent()).containsExactly(testDevice, inUseDevice);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        verify(deviceRepository, times(1)).findAll(any(Example.class), any(PageRequest.class));
+    }
+
+    @Test
+    void get_filtered_devices_as_page_after_matching_change_should_query_again() {
+        // Given
+        DeviceFilter filter = DeviceFilter.builder().brand("Test Brand").build();
+        DeviceFilter otherFilter = DeviceFilter.builder().brand("Another Brand").build();
+        Page<Device> expectedPage = new PageImpl<>(Arrays.asList(testDevice, inUseDevice));
+
+        when(deviceRepository.findAll(any(Example.class), any(PageRequest.class))).thenReturn(expectedPage);
+        when(deviceRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(testDevice, inUseDevice));
+        deviceService.getFilteredDevicesAsPage(filter, 0, 10);
+        deviceService.getFilteredDevicesAsPage(otherFilter, 0, 10);
+
+        // When
+        devicePageCache.onDeviceChanged(DeviceChangedEvent.created(DeviceSnapshot.of(testDevice)));
+        deviceService.getFilteredDevicesAsPage(filter, 0, 10);
+        deviceService.getFilteredDevicesAsPage(otherFilter, 0, 10);
+
+        // Then
+        verify(deviceRepository, times(3)).findAll(any(Example.class), any(PageRequest.class));
+    }
+
+    @Test
+    void get_device_by_natural_key_twice_should_resolve_the_id_once() {
+        // Given
+        when(deviceRepository.findIdByBrandIdAndName(1, "Test Device")).thenReturn(Optional.of(1L));
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(testDevice));
+        deviceService.getDeviceByNaturalKey("Test Brand", "Test Device");
+
+        // When
+        Optional<Device> result = deviceService.getDeviceByNaturalKey("Test Brand", "Test Device");
+
+        // Then
+        assertThat(result).contains(testDevice);
+        verify(deviceRepository, times(1)).findIdByBrandIdAndName(1, "Test Device");
+        verify(deviceRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void get_device_by_natural_key_when_brand_unknown_should_return_empty_without_query() {
+        // Given
+        when(brandDictionary.idOf("Unknown Brand")).thenReturn(Optional.empty());
+
+        // When
+        Optional<Device> result = deviceService.getDeviceByNaturalKey("Unknown Brand", "Test Device");
+
+        // Then
+        assertThat(result).isEmpty();
+        verifyNoInteractions(deviceRepository);
+    }
+
+    @Test
+    void get_device_by_natural_key_after_rename_should_not_find_the_old_name() {
+        // Given
+        when(deviceRepository.findIdByBrandIdAndName(1, "Test Device"))
+                .thenReturn(Optional.of(1L))
+                .thenReturn(Optional.empty());
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(testDevice));
+        deviceService.getDeviceByNaturalKey("Test Brand", "Test Device");
+        deviceService.updateDevice(1L, DeviceDTO.builder().name("Renamed Device").build());
+        ArgumentCaptor<DeviceChangedEvent> event = ArgumentCaptor.forClass(DeviceChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+
+        // When
+        deviceNaturalIdCache.onDeviceChanged(event.getValue());
+
+        // Then
+        assertThat(deviceNaturalIdCache.get("Test Brand", "Test Device")).isEmpty();
+        assertThat(deviceService.getDeviceByNaturalKey("Test Brand", "Test Device")).isEmpty();
+        verify(deviceRepository, times(2)).findIdByBrandIdAndName(1, "Test Device");
+    }
+
+    @Test
+    void get_device_by_natural_key_when_cached_id_is_stale_should_resolve_again() {
+        // Given
+        Device renamed = Device.builder().id(1L).name("Renamed Device").brand("Test Brand")
+                .state(DeviceState.AVAILABLE).build();
+        Device replacement = Device.builder().id(4L).name("Test Device").brand("Test Brand")
+                .state(DeviceState.AVAILABLE).build();
+        when(deviceRepository.findIdByBrandIdAndName(1, "Test Device"))
+                .thenReturn(Optional.of(1L))
+                .thenReturn(Optional.of(4L));
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(testDevice)).thenReturn(Optional.of(renamed));
+        when(deviceRepository.findById(4L)).thenReturn(Optional.of(replacement));
+        deviceService.getDeviceByNaturalKey("Test Brand", "Test Device");
+
+        // When
+        Optional<Device> result = deviceService.getDeviceByNaturalKey("Test Brand", "Test Device");
+
+        // Then
+        assertThat(result).contains(replacement);
+        assertThat(deviceNaturalIdCache.get("Test Brand", "Test Device")).contains(4L);
+    }
+
+    @Test
+    void get_device_by_natural_key_after_archiving_should_return_the_archived_device() {
+        // Given
+        when(deviceRepository.findIdByBrandIdAndName(1, "Test Device")).thenReturn(Optional.of(1L));
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(testDevice)).thenReturn(Optional.empty());
+        ArchivedDevice archivedDevice = ArchivedDevice.builder()
+                .id(1L)
+                .name("Test Device")
+                .brand("Test Brand")
+                .state(DeviceState.INACTIVE)
+                .createdOn(LocalDateTime.now().minusYears(1))
+                .build();
+        when(archivedDeviceRepository.findById(1L)).thenReturn(Optional.of(archivedDevice));
+        deviceService.getDeviceByNaturalKey("Test Brand", "Test Device");
+
+        // When
+        Optional<Device> result = deviceService.getDeviceByNaturalKey("Test Brand", "Test Device");
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().getState()).isEqualTo(DeviceState.INACTIVE);
+        verify(deviceRepository, times(1)).findIdByBrandIdAndName(1, "Test Device");
+        verify(archivedDeviceRepository).findById(1L);
+    }
+
+    private List<Device> findAll(Collection<Long> ids) {
+        return Stream.of(testDevice, inUseDevice, anotherDevice)
+                .filter(device -> ids.contains(device.getId()))
+                .toList();
+    }
+}
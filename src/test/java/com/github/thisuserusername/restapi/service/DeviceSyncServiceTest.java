@@ -0,0 +1,136 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.repository.DeviceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "restapi.sync.safety-lag=0s")
+@ActiveProfiles("test")
+class DeviceSyncServiceTest {
+
+    private static final String BRAND = "Sync Test Brand";
+
+    @Autowired
+    private DeviceSyncService deviceSyncService;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        createdIds.forEach(id -> {
+            if (deviceRepository.existsById(id)) {
+                deviceService.deleteDevice(id);
+            }
+            jdbcTemplate.update("DELETE FROM restapi.device_tombstones WHERE device_id = ?", id);
+        });
+    }
+
+    @Test
+    void should_page_through_all_devices_from_origin() {
+        // Given
+        List<Long> synced = new ArrayList<>();
+        SyncWatermark watermark = SyncWatermark.ORIGIN;
+        DeviceChanges changes;
+
+        // When
+        do {
+            changes = deviceSyncService.getChangesSince(watermark, 7);
+            assertThat(changes.watermark()).isGreaterThan(watermark);
+            changes.devices().forEach(device -> synced.add(device.getId()));
+            watermark = changes.watermark();
+        } while (changes.hasMore());
+
+        // Then
+        assertThat(synced).doesNotHaveDuplicates().hasSize((int) deviceRepository.count());
+    }
+
+    @Test
+    void should_return_changes_and_tombstones_since_watermark() {
+        // Given
+        SyncWatermark watermark = drain(SyncWatermark.ORIGIN);
+        Device deleted = create("Sync Deleted");
+        Device modified = create("Sync Modified");
+        deviceService.updateDevice(modified.getId(), DeviceDTO.builder().state("inactive").build());
+        deviceService.deleteDevice(deleted.getId());
+        // stamped with the time of the watermark, so they follow it by id alone and precede the next read for sure
+        Timestamp watermarkTime = Timestamp.valueOf(watermark.modifiedOn());
+        jdbcTemplate.update("UPDATE restapi.devices SET modified_on = ? WHERE id = ?", watermarkTime, modified.getId());
+        jdbcTemplate.update("UPDATE restapi.device_tombstones SET deleted_on = ? WHERE device_id = ?", watermarkTime,
+                deleted.getId());
+
+        // When
+        DeviceChanges changes = deviceSyncService.getChangesSince(watermark, 100);
+
+        // Then
+        assertThat(changes.devices()).extracting(Device::getId).containsExactly(modified.getId());
+        assertThat(changes.deletedIds()).containsExactly(deleted.getId());
+        assertThat(changes.hasMore()).isFalse();
+
+        // When
+        DeviceChanges next = deviceSyncService.getChangesSince(changes.watermark(), 100);
+
+        // Then
+        assertThat(next.devices()).isEmpty();
+        assertThat(next.deletedIds()).isEmpty();
+    }
+
+    @Test
+    void should_encode_watermark_as_opaque_token() {
+        // Given
+        SyncWatermark watermark = new SyncWatermark(LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_000), 42);
+
+        // When
+        String token = watermark.encode();
+
+        // Then
+        assertThat(SyncWatermark.decode(token)).isEqualTo(watermark);
+        assertThatThrownBy(() -> SyncWatermark.decode("not a watermark"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_expire_watermarks_older_than_tombstone_retention() {
+        // When & Then
+        assertThat(deviceSyncService.isExpired(SyncWatermark.ORIGIN)).isFalse();
+        assertThat(deviceSyncService.isExpired(new SyncWatermark(LocalDateTime.now().minusYears(1), 1))).isTrue();
+        assertThat(deviceSyncService.isExpired(new SyncWatermark(LocalDateTime.now().minusMinutes(1), 1))).isFalse();
+    }
+
+    private SyncWatermark drain(SyncWatermark watermark) {
+        DeviceChanges changes;
+        do {
+            changes = deviceSyncService.getChangesSince(watermark, 100);
+            watermark = changes.watermark();
+        } while (changes.hasMore());
+        return watermark;
+    }
+
+    private Device create(String name) {
+        Device device = deviceService.createDevice(DeviceDTO.builder().name(name).brand(BRAND).state("available").build());
+        createdIds.add(device.getId());
+        return device;
+    }
+}
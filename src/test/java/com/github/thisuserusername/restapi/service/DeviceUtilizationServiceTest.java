@@ -0,0 +1,151 @@
+package com.github.thisuserusername.restapi.service;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.repository.BrandDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DeviceUtilizationServiceTest {
+
+    private static final String BRAND = "Utilization Test Brand";
+    private static final LocalDateTime T0 = LocalDateTime.of(2001, 1, 1, 0, 0);
+    private static final long DEVICE_A = 900_001;
+    private static final long DEVICE_B = 900_002;
+
+    @Autowired
+    private DeviceUtilizationService deviceUtilizationService;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BrandDictionary brandDictionary;
+
+    private int brandId;
+
+    @BeforeEach
+    void setUp() {
+        brandId = brandDictionary.register(BRAND);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM restapi.device_state_transitions WHERE brand_id = ?", brandId);
+        jdbcTemplate.update("DELETE FROM restapi.device_utilization_daily WHERE brand_id = ?", brandId);
+    }
+
+    @Test
+    void should_aggregate_time_per_state_of_brand_within_window() {
+        // Given
+        givenTransitions();
+
+        // When
+        List<Utilization> result = deviceUtilizationService.getBrandUtilization(T0, T0.plusHours(4), BRAND);
+
+        // Then
+        assertThat(result).containsExactly(
+                new Utilization(BRAND, null, Duration.ofHours(2), Duration.ofHours(3), Duration.ZERO));
+        assertThat(result.get(0).ratio()).isEqualTo(0.6);
+    }
+
+    @Test
+    void should_stream_time_per_state_of_each_device() {
+        // Given
+        givenTransitions();
+        List<Utilization> result = new ArrayList<>();
+
+        // When
+        deviceUtilizationService.streamDeviceUtilization(T0, T0.plusHours(4), BRAND, result::add);
+
+        // Then
+        assertThat(result).containsExactly(
+                new Utilization(String.valueOf(DEVICE_A), null, Duration.ofHours(2), Duration.ofHours(2), Duration.ZERO),
+                new Utilization(String.valueOf(DEVICE_B), null, Duration.ZERO, Duration.ofHours(1), Duration.ZERO));
+    }
+
+    @Test
+    void should_roll_up_daily_summary() {
+        // Given
+        givenTransitions();
+
+        // When
+        deviceUtilizationService.rollUpDay(T0.toLocalDate());
+        List<Utilization> result = deviceUtilizationService.getDailyUtilization(T0.toLocalDate(),
+                T0.toLocalDate(), BRAND);
+
+        // Then
+        assertThat(result).containsExactly(new Utilization(BRAND, LocalDate.of(2001, 1, 1),
+                Duration.ofHours(22), Duration.ofHours(3), Duration.ZERO));
+    }
+
+    @Test
+    void should_roll_up_several_days_in_one_pass() {
+        // Given
+        givenTransitions();
+        LocalDate day = T0.toLocalDate();
+
+        // When
+        deviceUtilizationService.rollUpDays(day, day.plusDays(2));
+        List<Utilization> result = deviceUtilizationService.getDailyUtilization(day, day.plusDays(1), BRAND);
+
+        // Then
+        assertThat(result).containsExactly(
+                new Utilization(BRAND, day, Duration.ofHours(22), Duration.ofHours(3), Duration.ZERO),
+                new Utilization(BRAND, day.plusDays(1), Duration.ofHours(24), Duration.ZERO, Duration.ZERO));
+    }
+
+    @Test
+    void should_record_transitions_of_device_changes() {
+        // Given
+        Device device = deviceService.createDevice(DeviceDTO.builder()
+                .name("Utilization Device").brand(BRAND).state("available").build());
+
+        // When
+        deviceService.updateDevice(device.getId(), DeviceDTO.builder().state("in_use").build());
+        deviceService.updateDevice(device.getId(), DeviceDTO.builder().state("in_use").build());
+        deviceService.updateDevice(device.getId(), DeviceDTO.builder().state("inactive").build());
+        deviceService.deleteDevice(device.getId());
+
+        // Then
+        assertThat(jdbcTemplate.queryForList("SELECT state FROM restapi.device_state_transitions "
+                + "WHERE device_id = ? ORDER BY id", String.class, device.getId()))
+                .containsExactly("AVAILABLE", "IN_USE", "INACTIVE", null);
+    }
+
+    /**
+     * Device A is available before the window, in use from 1h to 3h and available again afterwards.
+     * Device B is in use from the start of the window until it is removed after 1h.
+     */
+    private void givenTransitions() {
+        insert(DEVICE_A, "AVAILABLE", T0.minusHours(1));
+        insert(DEVICE_A, "IN_USE", T0.plusHours(1));
+        insert(DEVICE_A, "AVAILABLE", T0.plusHours(3));
+        insert(DEVICE_B, "IN_USE", T0);
+        insert(DEVICE_B, null, T0.plusHours(1));
+    }
+
+    private void insert(long deviceId, String state, LocalDateTime changedOn) {
+        jdbcTemplate.update("INSERT INTO restapi.device_state_transitions (device_id, brand_id, state, changed_on) "
+                + "VALUES (?, ?, ?, ?)", deviceId, brandId, state, Timestamp.valueOf(changedOn));
+    }
+}
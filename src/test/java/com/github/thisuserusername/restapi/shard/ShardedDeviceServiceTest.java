@@ -0,0 +1,94 @@
+package com.github.thisuserusername.restapi.shard;
+
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import com.github.thisuserusername.restapi.service.DeviceFilter;
+import com.github.thisuserusername.restapi.service.DeviceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "sharded"})
+class ShardedDeviceServiceTest {
+
+    private static final String BRAND = "Sharded Test Brand";
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceShards deviceShards;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void should_route_devices_by_id_and_merge_pages_across_shards() {
+        // Given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(deviceService.createDevice(DeviceDTO.builder()
+                    .name("Sharded Device " + i)
+                    .brand(BRAND)
+                    .state("available")
+                    .build()).getId());
+        }
+
+        // Then
+        assertThat(deviceService).isInstanceOf(ShardedDeviceService.class);
+        assertThat(ids.stream().map(id -> deviceShards.forId(id).index()).distinct()).hasSize(3);
+        for (Long id : ids) {
+            DeviceShard owner = deviceShards.forId(id);
+            assertThat(owner.readOnly(() -> owner.deviceRepository().existsById(id))).isTrue();
+            assertThat(deviceService.getDeviceById(id)).get().extracting(Device::getId).isEqualTo(id);
+        }
+
+        // When
+        DeviceFilter filter = DeviceFilter.builder().brand(BRAND).build();
+        Page<Device> first = deviceService.getFilteredDevicesAsPage(filter, 0, 4);
+        Page<Device> second = deviceService.getFilteredDevicesAsPage(filter, 1, 4);
+
+        // Then
+        List<Long> sorted = ids.stream().sorted().toList();
+        assertThat(first.getTotalElements()).isEqualTo(7);
+        assertThat(first.getContent()).extracting(Device::getId).containsExactlyElementsOf(sorted.subList(0, 4));
+        assertThat(second.getContent()).extracting(Device::getId).containsExactlyElementsOf(sorted.subList(4, 7));
+
+        // When
+        deviceService.updateDevice(ids.get(1), DeviceDTO.builder().state("inactive").build());
+        deviceService.deleteDevice(ids.get(2));
+
+        // Then
+        assertThat(deviceService.getDeviceById(ids.get(1))).get().extracting(Device::getState)
+                .isEqualTo(DeviceState.INACTIVE);
+        assertThat(deviceService.getDeviceById(ids.get(2))).isEmpty();
+        assertThat(deviceService.getFilteredDevicesAsPage(filter, 0, 10).getTotalElements()).isEqualTo(6);
+    }
+
+    @Test
+    void should_answer_endpoints_of_the_primary_device_tables_with_not_implemented() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/devices/1/heartbeat")).andExpect(status().isNotImplemented());
+        mockMvc.perform(post("/api/v1/devices/state-changes")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/v1/devices/changes")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/v1/analytics/utilization/daily")).andExpect(status().isNotImplemented());
+        mockMvc.perform(post("/api/v1/jobs")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/v1/devices").param("page", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+    }
+}
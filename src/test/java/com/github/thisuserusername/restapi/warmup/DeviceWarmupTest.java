@@ -0,0 +1,88 @@
+package com.github.thisuserusername.restapi.warmup;
+
+import com.github.thisuserusername.restapi.jdbc.ConnectionPools;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "restapi.warmup.enabled=true",
+        "restapi.warmup.max-duration=10s",
+        "restapi.warmup.round-size=20",
+        "restapi.warmup.stable-rounds=2",
+        "restapi.warmup.tolerance=10"
+})
+@ActiveProfiles("test")
+class DeviceWarmupTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    private ConnectionPools connectionPools;
+
+    @Autowired
+    private ReadinessRecorder readinessRecorder;
+
+    @Test
+    void should_warm_up_before_accepting_traffic() {
+        // Then
+        assertThat(meterRegistry.get("warmup.duration").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("warmup.latency").tag("round", "first").timeGauge().value(TimeUnit.NANOSECONDS))
+                .isPositive();
+        assertThat(meterRegistry.get("warmup.latency").tag("round", "last").timeGauge().value(TimeUnit.NANOSECONDS))
+                .isPositive();
+        assertThat(readinessRecorder.states()).isNotEmpty().containsOnly(ReadinessState.REFUSING_TRAFFIC);
+        assertThat(applicationAvailability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    @Test
+    void should_fill_every_connection_pool() {
+        // Then
+        connectionPools.asMap().forEach((pool, dataSource) ->
+                assertThat(dataSource.getHikariPoolMXBean().getTotalConnections())
+                        .as("connections of the %s pool", pool)
+                        .isEqualTo(dataSource.getMaximumPoolSize()));
+    }
+
+    /**
+     * Records the readiness state seen by every request served while the context starts, which are the requests
+     * of the warm-up.
+     */
+    record ReadinessRecorder(List<ReadinessState> states) {
+    }
+
+    @TestConfiguration
+    static class ReadinessRecorderConfig {
+
+        @Bean
+        ReadinessRecorder readinessRecorder() {
+            return new ReadinessRecorder(new CopyOnWriteArrayList<>());
+        }
+
+        @Bean
+        Filter readinessRecordingFilter(ReadinessRecorder readinessRecorder,
+                                        ApplicationAvailability applicationAvailability) {
+            return (request, response, chain) -> {
+                readinessRecorder.states().add(applicationAvailability.getReadinessState());
+                chain.doFilter(request, response);
+            };
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.thisuserusername.restapi.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTest {
+
+    private static final ConcurrencyLimitProperties PROPERTIES =
+            new ConcurrencyLimitProperties(true, 10, 4, 100, 1.5, 0.2, 600, 0.9, 0.8, Duration.ofSeconds(2));
+
+    @Test
+    void should_reject_low_priority_requests_first() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(PROPERTIES);
+
+        // When
+        int lowAdmitted = admit(limiter, ConcurrencyLimiter.Priority.LOW, 20);
+        int highAdmitted = admit(limiter, ConcurrencyLimiter.Priority.HIGH, 20);
+
+        // Then
+        assertThat(lowAdmitted).isEqualTo(8);
+        assertThat(highAdmitted).isEqualTo(2);
+        assertThat(limiter.inFlight()).isEqualTo(10);
+    }
+
+    @Test
+    void should_raise_limit_while_latency_is_stable() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(PROPERTIES);
+
+        // When
+        saturate(limiter, 20, TimeUnit.MILLISECONDS.toNanos(10));
+
+        // Then
+        assertThat(limiter.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    void should_lower_limit_when_latency_rises() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(PROPERTIES);
+        saturate(limiter, 20, TimeUnit.MILLISECONDS.toNanos(10));
+        int before = limiter.limit();
+
+        // When
+        saturate(limiter, 5, TimeUnit.MILLISECONDS.toNanos(50));
+
+        // Then
+        assertThat(limiter.limit()).isLessThan(before);
+    }
+
+    @Test
+    void should_back_off_on_server_errors_down_to_min_limit() {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(PROPERTIES);
+
+        // When
+        limiter.tryAcquire(ConcurrencyLimiter.Priority.HIGH);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(9);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire(ConcurrencyLimiter.Priority.HIGH);
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        }
+
+        // Then
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void filter_should_reject_requests_above_limit_with_retry_after() throws Exception {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(PROPERTIES);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, PROPERTIES, meterRegistry);
+        admit(limiter, ConcurrencyLimiter.Priority.LOW, 8);
+        MockHttpServletResponse listResponse = new MockHttpServletResponse();
+        MockHttpServletResponse getResponse = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/devices"), listResponse,
+                (request, response) -> { });
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/devices/1"), getResponse,
+                (request, response) -> { });
+
+        // Then
+        assertThat(listResponse.getStatus()).isEqualTo(503);
+        assertThat(listResponse.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(getResponse.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("http.server.concurrency.rejected").tag("priority", "low").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("http.server.concurrency.in-flight").gauge().value()).isEqualTo(8);
+    }
+
+    @Test
+    void filter_should_give_single_device_reads_high_priority_below_a_context_path() throws Exception {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(PROPERTIES);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, PROPERTIES, new SimpleMeterRegistry());
+        admit(limiter, ConcurrencyLimiter.Priority.LOW, 8);
+        MockHttpServletRequest getRequest = new MockHttpServletRequest("GET", "/inventory/api/v1/devices/1");
+        getRequest.setContextPath("/inventory");
+        MockHttpServletRequest lookupRequest = new MockHttpServletRequest("GET", "/inventory/api/v1/devices/lookup");
+        lookupRequest.setContextPath("/inventory");
+        MockHttpServletResponse getResponse = new MockHttpServletResponse();
+        MockHttpServletResponse lookupResponse = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(getRequest, getResponse, (request, response) -> { });
+        filter.doFilter(lookupRequest, lookupResponse, (request, response) -> { });
+
+        // Then
+        assertThat(getResponse.getStatus()).isEqualTo(200);
+        assertThat(lookupResponse.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void filter_should_not_limit_long_running_requests() throws Exception {
+        // Given
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(PROPERTIES);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, PROPERTIES, new SimpleMeterRegistry());
+        admit(limiter, ConcurrencyLimiter.Priority.HIGH, 10);
+        MockHttpServletResponse stateChangeResponse = new MockHttpServletResponse();
+        MockHttpServletResponse changesResponse = new MockHttpServletResponse();
+        MockHttpServletResponse historyResponse = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/devices/state-changes"), stateChangeResponse,
+                (request, response) -> { });
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/devices/changes"), changesResponse,
+                (request, response) -> { });
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/devices/1/history"), historyResponse,
+                (request, response) -> { });
+
+        // Then
+        assertThat(stateChangeResponse.getStatus()).isEqualTo(200);
+        assertThat(changesResponse.getStatus()).isEqualTo(200);
+        assertThat(historyResponse.getStatus()).isEqualTo(200);
+        assertThat(limiter.inFlight()).isEqualTo(10);
+    }
+
+    private static int admit(ConcurrencyLimiter limiter, ConcurrencyLimiter.Priority priority, int requests) {
+        int admitted = 0;
+        for (int i = 0; i < requests; i++) {
+            if (limiter.tryAcquire(priority)) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    /**
+     * Runs rounds of as many concurrent requests as the limit admits, all taking the given latency.
+     */
+    private static void saturate(ConcurrencyLimiter limiter, int rounds, long rttNanos) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = admit(limiter, ConcurrencyLimiter.Priority.HIGH, limiter.limit());
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(rttNanos, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.thisuserusername.restapi.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.github.thisuserusername.restapi.controller.DeviceModelAssembler;
+import com.github.thisuserusername.restapi.dto.DeviceDTO;
+import com.github.thisuserusername.restapi.model.Device;
+import com.github.thisuserusername.restapi.model.DeviceState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.HateoasPageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceHalModuleTest {
+
+    private ObjectMapper halMapper;
+    private ObjectMapper streamingMapper;
+    private ObjectMapper fastPathOnlyMapper;
+
+    @BeforeEach
+    void setUp() {
+        LinkRelationProvider linkRelationProvider = new DefaultLinkRelationProvider();
+        halMapper = halMapper(linkRelationProvider);
+        streamingMapper = halMapper(linkRelationProvider).registerModule(new DeviceHalModule(linkRelationProvider));
+        // serializer modifiers registered later run first, so this one sees the serializers of the module
+        fastPathOnlyMapper = halMapper(linkRelationProvider)
+                .registerModule(withoutFallback())
+                .registerModule(new DeviceHalModule(linkRelationProvider));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_write_device_like_hal_serializer() throws Exception {
+        // Given
+        DeviceDTO device = device(1L, "Test Device");
+
+        // When / Then
+        assertSameBytes(device);
+    }
+
+    @Test
+    void should_write_device_without_links_and_with_nulls_like_hal_serializer() throws Exception {
+        // Given
+        DeviceDTO device = DeviceDTO.builder().name("Quote \" Device").build();
+
+        // When / Then
+        assertSameBytes(device);
+    }
+
+    @Test
+    void should_write_templated_link_on_fast_path_like_hal_serializer() throws Exception {
+        // Given
+        DeviceDTO device = device(1L, "Test Device");
+        device.add(Link.of("http://localhost/api/v1/devices{?page,size}", "search"));
+
+        // When / Then
+        assertSameBytesOnFastPath(device);
+    }
+
+    @Test
+    void should_fall_back_for_repeated_links() throws Exception {
+        // Given
+        DeviceDTO device = device(1L, "Test Device");
+        device.add(Link.of("http://localhost/api/v1/devices/2", "devices"));
+
+        // When / Then
+        assertSameBytes(device);
+    }
+
+    @Test
+    void should_write_assembled_device_page_on_fast_path_like_hal_serializer() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/devices");
+        request.setQueryString("page=0&size=2");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        PageImpl<Device> devices = new PageImpl<>(List.of(entity(1L, "Test Device"), entity(2L, "Test Device 2")),
+                PageRequest.of(0, 2), 5);
+        PagedModel<DeviceDTO> page = new PagedResourcesAssembler<Device>(
+                new HateoasPageableHandlerMethodArgumentResolver(), null)
+                .toModel(devices, new DeviceModelAssembler());
+
+        // When / Then
+        assertThat(page.getContent()).allSatisfy(device -> assertThat(device.getLinks().stream()
+                .anyMatch(Link::isTemplated)).isTrue());
+        assertSameBytesOnFastPath(page);
+    }
+
+    @Test
+    void should_write_device_page_like_hal_serializer() throws Exception {
+        // Given
+        PagedModel<DeviceDTO> page = PagedModel.of(List.of(device(1L, "Test Device"), device(2L, "Test Device 2")),
+                new PagedModel.PageMetadata(2, 0, 5),
+                Link.of("http://localhost/api/v1/devices?page=0&size=2"),
+                Link.of("http://localhost/api/v1/devices?page=1&size=2", "next"));
+
+        // When / Then
+        assertSameBytes(page);
+    }
+
+    @Test
+    void should_write_empty_device_page_like_hal_serializer() throws Exception {
+        // Given
+        PagedModel<DeviceDTO> page = PagedModel.of(List.of(), new PagedModel.PageMetadata(100, 3, 0),
+                Link.of("http://localhost/api/v1/devices?page=3&size=100"));
+
+        // When / Then
+        assertSameBytes(page);
+    }
+
+    private void assertSameBytes(Object value) throws Exception {
+        assertThat(streamingMapper.writeValueAsBytes(value)).isEqualTo(halMapper.writeValueAsBytes(value));
+    }
+
+    private void assertSameBytesOnFastPath(Object value) throws Exception {
+        assertThat(fastPathOnlyMapper.writeValueAsBytes(value)).isEqualTo(halMapper.writeValueAsBytes(value));
+    }
+
+    /**
+     * Replaces the fallback of the fast path serializers with one failing the test.
+     */
+    private static SimpleModule withoutFallback() {
+        JsonSerializer<Object> failing = new JsonSerializer<>() {
+            @Override
+            public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) {
+                throw new AssertionError("Fell back to the HAL serializer for " + value);
+            }
+        };
+        return new SimpleModule("WithoutFallback").setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                                                      JsonSerializer<?> serializer) {
+                return serializer instanceof FastPathSerializer<?> fastPath ? fastPath.withDelegate(failing)
+                        : serializer;
+            }
+        });
+    }
+
+    private static ObjectMapper halMapper(LinkRelationProvider linkRelationProvider) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(linkRelationProvider,
+                CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    private static Device entity(long id, String name) {
+        return Device.builder()
+                .id(id)
+                .name(name)
+                .brand("Test Brand")
+                .state(DeviceState.AVAILABLE)
+                .createdOn(LocalDateTime.of(2023, 10, 1, 12, 0))
+                .build();
+    }
+
+    private static DeviceDTO device(long id, String name) {
+        DeviceDTO device = DeviceDTO.builder()
+                .id(id)
+                .name(name)
+                .brand("Test Brand")
+                .state("available")
+                .creationTime("2023-10-01T12:00:00")
+                .build();
+        device.add(Link.of("http://localhost/api/v1/devices/" + id));
+        device.add(Link.of("http://localhost/api/v1/devices?page=0&size=100", "devices"));
+        return device;
+    }
+}
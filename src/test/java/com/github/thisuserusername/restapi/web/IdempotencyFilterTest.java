@@ -0,0 +1,232 @@
+package com.github.thisuserusername.restapi.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyFilterTest {
+
+    private IdempotencyFilter filter;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyProperties properties = properties(DataSize.ofKilobytes(64), Duration.ofMinutes(1));
+        filter = new IdempotencyFilter(new InMemoryIdempotencyStore(properties), properties);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void should_replay_first_response_without_executing_again() throws Exception {
+        // Given
+        FilterChain chain = creatingChain(null);
+
+        // When
+        MockHttpServletResponse first = perform("POST", "key-1", chain);
+        MockHttpServletResponse retry = perform("POST", "key-1", chain);
+
+        // Then
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void should_reject_key_reused_for_different_request() throws Exception {
+        // Given
+        FilterChain chain = creatingChain(null);
+        perform("POST", "key-2", chain);
+
+        // When
+        MockHttpServletResponse response = perform("DELETE", "key-2", chain);
+
+        // Then
+        assertThat(executions).hasValue(1);
+        assertThat(response.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    void should_reject_key_reused_for_different_body() throws Exception {
+        // Given
+        FilterChain chain = creatingChain(null);
+        perform("POST", "key-4", "{\"name\":\"Device 1\"}", chain);
+
+        // When
+        MockHttpServletResponse response = perform("POST", "key-4", "{\"name\":\"Device 2\"}", chain);
+
+        // Then
+        assertThat(executions).hasValue(1);
+        assertThat(response.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    void should_hand_body_to_controller_after_hashing_it() throws Exception {
+        // Given
+        StringBuilder received = new StringBuilder();
+        FilterChain chain = (request, response) -> received.append(
+                new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+        // When
+        perform("POST", "key-5", "{\"name\":\"Device 1\"}", chain);
+
+        // Then
+        assertThat(received).hasToString("{\"name\":\"Device 1\"}");
+    }
+
+    @Test
+    void should_make_concurrent_duplicates_wait_for_first_execution() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain chain = creatingChain(release);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // When
+            Future<MockHttpServletResponse> first = executor.submit(() -> perform("POST", "key-3", chain));
+            Future<MockHttpServletResponse> duplicate1 = executor.submit(() -> perform("POST", "key-3", chain));
+            Future<MockHttpServletResponse> duplicate2 = executor.submit(() -> perform("POST", "key-3", chain));
+            TimeUnit.MILLISECONDS.sleep(200);
+            release.countDown();
+
+            // Then
+            assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            assertThat(duplicate1.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            assertThat(duplicate2.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            assertThat(executions).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_take_over_reservation_whose_lease_expired() throws Exception {
+        // Given
+        IdempotencyProperties properties = properties(DataSize.ofKilobytes(64), Duration.ZERO);
+        IdempotencyStore store = new InMemoryIdempotencyStore(properties);
+        filter = new IdempotencyFilter(store, properties);
+        // left behind by an execution that died before completing or releasing the key
+        store.reserve("key-6", "POST /api/v1/devices " + HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(new byte[0])));
+
+        // When
+        MockHttpServletResponse response = perform("POST", "key-6", creatingChain(null));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void should_reject_retry_of_response_too_large_to_replay() throws Exception {
+        // Given
+        IdempotencyProperties properties = properties(DataSize.ofBytes(4), Duration.ofMinutes(1));
+        filter = new IdempotencyFilter(new InMemoryIdempotencyStore(properties), properties);
+        FilterChain chain = creatingChain(null);
+        perform("POST", "key-7", chain);
+
+        // When
+        MockHttpServletResponse retry = perform("POST", "key-7", chain);
+
+        // Then
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(409);
+    }
+
+    @Test
+    void should_release_key_when_storing_the_response_fails() throws Exception {
+        // Given
+        IdempotencyProperties properties = properties(DataSize.ofKilobytes(64), Duration.ofMinutes(1));
+        AtomicBoolean storeFails = new AtomicBoolean(true);
+        filter = new IdempotencyFilter(new InMemoryIdempotencyStore(properties) {
+            @Override
+            public void complete(String key, String fingerprint, IdempotentResponse response) {
+                if (storeFails.getAndSet(false)) {
+                    throw new IllegalStateException("store unavailable");
+                }
+                super.complete(key, fingerprint, response);
+            }
+        }, properties);
+        FilterChain chain = creatingChain(null);
+        assertThatThrownBy(() -> perform("POST", "key-8", chain)).isInstanceOf(IllegalStateException.class);
+
+        // When
+        MockHttpServletResponse retry = perform("POST", "key-8", chain);
+
+        // Then
+        assertThat(executions).hasValue(2);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+    }
+
+    @Test
+    void should_reject_body_over_the_limit_before_buffering_it() throws Exception {
+        // Given
+        IdempotencyProperties properties = new IdempotencyProperties(true, IdempotencyProperties.StoreType.MEMORY,
+                Duration.ofHours(1), 100, DataSize.ofKilobytes(64), Duration.ofSeconds(5), Duration.ofMinutes(1),
+                DataSize.ofBytes(16));
+        filter = new IdempotencyFilter(new InMemoryIdempotencyStore(properties), properties);
+
+        // When
+        MockHttpServletResponse response = perform("POST", "key-9", "{\"name\":\"Device 1\"}", creatingChain(null));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(executions).hasValue(0);
+    }
+
+    private static IdempotencyProperties properties(DataSize maxBodySize, Duration leaseTimeout) {
+        return new IdempotencyProperties(true, IdempotencyProperties.StoreType.MEMORY, Duration.ofHours(1), 100,
+                maxBodySize, Duration.ofSeconds(5), leaseTimeout, DataSize.ofMegabytes(1));
+    }
+
+    private FilterChain creatingChain(CountDownLatch release) {
+        return (request, response) -> {
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int id = executions.incrementAndGet();
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(201);
+            httpResponse.setContentType("application/hal+json");
+            httpResponse.getOutputStream().write(("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private MockHttpServletResponse perform(String method, String key, FilterChain chain) throws Exception {
+        return perform(method, key, "", chain);
+    }
+
+    private MockHttpServletResponse perform(String method, String key, String body, FilterChain chain)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/devices");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
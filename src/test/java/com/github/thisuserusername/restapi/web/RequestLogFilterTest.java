@@ -0,0 +1,34 @@
+package com.github.thisuserusername.restapi.web;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(OutputCaptureExtension.class)
+class RequestLogFilterTest {
+
+    @Test
+    void should_log_server_error_when_chain_throws(CapturedOutput output) {
+        // Given
+        RequestLogFilter filter = new RequestLogFilter(new RequestLogProperties(true, 0.0, 20));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/devices/1");
+        FilterChain failingChain = (req, res) -> {
+            throw new IllegalStateException("database down");
+        };
+
+        // When
+        assertThatThrownBy(() -> filter.doFilter(request, new MockHttpServletResponse(), failingChain))
+                .isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(output).containsPattern(
+                "GET /api/v1/devices/1 500 \\d+ ms java.lang.IllegalStateException: database down");
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.thisuserusername.restapi.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceUsageFilterTest {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void should_record_usage_tagged_by_endpoint_and_filter_shape() throws Exception {
+        // Given
+        ResourceUsageFilter filter = new ResourceUsageFilter(new ResourceUsageProperties(true, 1.0, true),
+                meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/devices");
+        request.addParameter("brand", "Apple");
+        request.addParameter("state", "available");
+        request.addParameter("page", "1");
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), allocatingChain());
+
+        // Then
+        assertThat(meterRegistry.get("http.server.requests.allocated")
+                .tags("method", "GET", "uri", "/api/v1/devices", "filter", "brand+state")
+                .summary().totalAmount()).isGreaterThanOrEqualTo(1024);
+        assertThat(meterRegistry.get("http.server.requests.cpu")
+                .tags("method", "GET", "uri", "/api/v1/devices", "filter", "brand+state")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_add_usage_header_for_debug_request_outside_of_sample() throws Exception {
+        // Given
+        ResourceUsageFilter filter = new ResourceUsageFilter(new ResourceUsageProperties(true, 0.0, true),
+                meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/devices/1");
+        request.addHeader(ResourceUsageFilter.DEBUG_HEADER, "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request, response, allocatingChain());
+
+        // Then
+        assertThat(response.getHeader(ResourceUsageFilter.USAGE_HEADER)).matches("cpu-ns=\\d+, allocated-bytes=\\d+");
+        assertThat(response.getContentAsString()).isEqualTo("{}");
+        assertThat(meterRegistry.get("http.server.requests.cpu").tag("filter", "none").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_ignore_debug_request_when_debug_header_is_disabled() throws Exception {
+        // Given
+        ResourceUsageFilter filter = new ResourceUsageFilter(new ResourceUsageProperties(true, 0.0, false),
+                meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/devices/1");
+        request.addHeader(ResourceUsageFilter.DEBUG_HEADER, "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request, response, allocatingChain());
+
+        // Then
+        assertThat(response.getHeader(ResourceUsageFilter.USAGE_HEADER)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{}");
+        assertThat(meterRegistry.find("http.server.requests.cpu").timers()).isEmpty();
+    }
+
+    @Test
+    void should_not_record_requests_outside_of_sample() throws Exception {
+        // Given
+        ResourceUsageFilter filter = new ResourceUsageFilter(new ResourceUsageProperties(true, 0.0, true),
+                meterRegistry);
+
+        // When
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/devices"), response, allocatingChain());
+
+        // Then
+        assertThat(meterRegistry.find("http.server.requests.cpu").timers()).isEmpty();
+        assertThat(response.getHeader(ResourceUsageFilter.USAGE_HEADER)).isNull();
+    }
+
+    private static FilterChain allocatingChain() {
+        return (request, response) -> {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                    ((MockHttpServletRequest) request).getRequestURI().matches(".*/\\d+")
+                            ? "/api/v1/devices/{id}" : "/api/v1/devices");
+            request.setAttribute("payload", new byte[4096]);
+            response.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+        };
+    }
+}